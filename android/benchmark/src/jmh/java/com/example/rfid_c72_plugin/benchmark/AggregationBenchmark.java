@@ -0,0 +1,65 @@
+package com.example.rfid_c72_plugin.benchmark;
+
+import com.example.rfid_c72_plugin.TagAggregationBuffer;
+import com.example.rfid_c72_plugin.TagCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The read path (addEPCToBatch) and one flush tick (processBatchUpdates).
+ */
+@State(Scope.Thread)
+public class AggregationBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int tags;
+
+    // Reads per 200 ms tick: 700 reads/s fast inventory, 5,000 reads/s dense portal
+    @Param({"140", "1000"})
+    public int readsPerTick;
+
+    private TagPopulation population;
+    private TagAggregationBuffer buffer;
+    private TagCache cache;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        population = new TagPopulation(tags);
+        buffer = new TagAggregationBuffer(tags);
+        cache = new TagCache(tags);
+        // Reach the steady state where every tag already has a record
+        for (int i = 0; i < TagPopulation.READS; i++) {
+            buffer.add(population.keys[i], population.rssi[i], System.nanoTime());
+        }
+        buffer.drain(cache::merge);
+        buffer.drain(cache::merge);
+    }
+
+    /**
+     * One read recorded from the inventory callback.
+     */
+    @Benchmark
+    public boolean addEPCToBatch() {
+        int i = cursor++ & TagPopulation.MASK;
+        return buffer.add(population.keys[i], population.rssi[i], System.nanoTime());
+    }
+
+    /**
+     * One tick: the reads of a flush interval, then swap, merge into the cache and evict.
+     */
+    @Benchmark
+    public int processBatchUpdates() {
+        for (int r = 0; r < readsPerTick; r++) {
+            int i = cursor++ & TagPopulation.MASK;
+            buffer.add(population.keys[i], population.rssi[i], System.nanoTime());
+        }
+        int drained = buffer.drain(cache::merge);
+        return drained + cache.evict(System.nanoTime(), null);
+    }
+}
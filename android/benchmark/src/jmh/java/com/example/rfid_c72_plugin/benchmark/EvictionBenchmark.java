@@ -0,0 +1,55 @@
+package com.example.rfid_c72_plugin.benchmark;
+
+import com.example.rfid_c72_plugin.EPC;
+import com.example.rfid_c72_plugin.EpcKey;
+import com.example.rfid_c72_plugin.TagCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * trimTagList: a new tag arriving in a full cache, which forces one eviction.
+ * Each operation allocates the incoming record, as the aggregation buffer would for a new tag.
+ */
+@State(Scope.Thread)
+public class EvictionBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int tags;
+
+    @Param({TagCache.POLICY_LRU, TagCache.POLICY_LOWEST_RSSI})
+    public String policy;
+
+    private TagCache cache;
+    private EpcKey[] keys;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TagPopulation population = new TagPopulation(tags);
+        cache = population.fullCache();
+        cache.setPolicy(policy, 0);
+        // Twice the population so the incoming key has always left the cache under LRU
+        keys = new EpcKey[tags * 2];
+        for (int i = 0; i < tags; i++) {
+            keys[i] = EpcKey.of(population.reader.getEpc(i));
+            keys[tags + i] = EpcKey.of("3000" + population.reader.getEpc(i).substring(4));
+        }
+        cursor = tags;
+    }
+
+    @Benchmark
+    public int mergeAndEvict() {
+        int i = cursor++ % keys.length;
+        EPC tag = new EPC();
+        tag.setId("");
+        tag.setKey(keys[i]);
+        tag.recordRead(-700 + (i % 400), System.nanoTime());
+        cache.merge(keys[i], tag);
+        return cache.evict(System.nanoTime(), null);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.rfid_c72_plugin.benchmark;
+
+import com.example.rfid_c72_plugin.EPC;
+import com.example.rfid_c72_plugin.TagAggregationBuffer;
+import com.example.rfid_c72_plugin.TagBatchEncoder;
+import com.example.rfid_c72_plugin.TagCache;
+import com.example.rfid_c72_plugin.TagJsonEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * sendTagListUpdateToListener: building the payload of one tick, full list versus delta,
+ * JSON versus the binary frame.
+ */
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int tags;
+
+    // Distinct tags changed in one 200 ms tick
+    private static final int CHANGED_PER_TICK = 140;
+
+    private TagCache cache;
+    private List<EPC> changed;
+    private long seq;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = new TagPopulation(tags).fullCache();
+        changed = new ArrayList<>();
+        for (EPC tag : cache.values()) {
+            if (changed.size() == Math.min(CHANGED_PER_TICK, tags)) break;
+            changed.add(tag);
+        }
+    }
+
+    @Benchmark
+    public String jsonFullList() {
+        return TagJsonEncoder.encodeList(cache.values());
+    }
+
+    @Benchmark
+    public String jsonDelta() {
+        return TagJsonEncoder.encodeDelta(changed, null, ++seq, false, TagAggregationBuffer.DEDUP_EPC);
+    }
+
+    @Benchmark
+    public byte[] binaryFullList() {
+        return TagBatchEncoder.encode(cache.values(), null, 0, TagBatchEncoder.FLAG_FULL);
+    }
+
+    @Benchmark
+    public byte[] binaryDelta() {
+        return TagBatchEncoder.encode(changed, null, ++seq, TagBatchEncoder.FLAG_DELTA);
+    }
+}
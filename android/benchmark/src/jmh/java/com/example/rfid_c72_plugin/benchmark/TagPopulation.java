@@ -0,0 +1,46 @@
+package com.example.rfid_c72_plugin.benchmark;
+
+import com.example.rfid_c72_plugin.EPC;
+import com.example.rfid_c72_plugin.SimulatedRfidReader;
+import com.example.rfid_c72_plugin.TagCache;
+
+/**
+ * A recorded read sequence from the simulated reader, so the benchmarks measure the pipeline
+ * and not the random number generator.
+ */
+final class TagPopulation {
+    static final int READS = 1 << 16;
+    static final int MASK = READS - 1;
+
+    final SimulatedRfidReader reader;
+    final String[] keys = new String[READS];
+    final int[] rssi = new int[READS];
+
+    TagPopulation(int tags) {
+        reader = new SimulatedRfidReader(tags, 1000, 42);
+        reader.init();
+        final int[] cursor = new int[1];
+        reader.setTagCallback((epc, tid, value) -> {
+            keys[cursor[0]] = epc;
+            rssi[cursor[0]] = value;
+            cursor[0]++;
+        });
+        reader.emitReads(READS);
+    }
+
+    /**
+     * A cache holding every tag of the population once.
+     */
+    TagCache fullCache() {
+        TagCache cache = new TagCache(reader.getTagCount());
+        long now = System.nanoTime();
+        for (int i = 0; i < reader.getTagCount(); i++) {
+            EPC tag = new EPC();
+            tag.setId("");
+            tag.setEpc(reader.getEpc(i));
+            tag.recordRead(-600 + (i % 300), now);
+            cache.merge(tag.getKey(), tag);
+        }
+        return cache;
+    }
+}
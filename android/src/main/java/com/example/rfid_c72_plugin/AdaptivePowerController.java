@@ -0,0 +1,211 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Steps the RF power towards a target read zone from the statistics of the aggregation pipeline.
+ *
+ * The zone is given as an RSSI at full power ({@link #FULL_POWER} dBm): tags read weaker than
+ * that are farther away than wanted, e.g. in the neighbouring aisle. Reads are normalized to full
+ * power (the backscatter RSSI follows the transmit power about 1 dB per dB), so the zone stays a
+ * distance when the power changes. Every interval the controller looks at the tags seen in it:
+ *
+ * - too many of them outside the zone ({@code maxOutsideShare}): step down;
+ * - too few tags at all, or the weakest 10% still well inside the zone while no new tags are
+ *   being found: step up, to cover the whole zone;
+ * - otherwise keep the power.
+ *
+ * After a change the next interval is skipped, since it mixes reads at both powers. Each change
+ * is returned as a decision event with the statistics behind it. The decided power only takes
+ * effect once the reader reports it through {@link #onApplied}; until then reads are still
+ * normalized from the old power and no further decision is made.
+ *
+ * UHFHelper calls {@link #onTagSeen} on the flush thread while it drains a batch under its tag
+ * list lock, and {@link #evaluate} on the same thread after the flush, outside that lock;
+ * {@link #onApplied} comes from the reader command thread. The object is synchronized for that.
+ */
+public class AdaptivePowerController {
+    public static final int FULL_POWER = 30;
+    public static final int MIN_POWER = 5;
+    public static final int DEFAULT_STEP = 2;
+    public static final int DEFAULT_ZONE_RSSI = -650; // tenths of a dBm at full power
+    public static final double DEFAULT_MAX_OUTSIDE_SHARE = 0.1;
+    public static final int DEFAULT_INTERVAL_MS = 1000;
+
+    public static final String REASON_OUTSIDE_ZONE = "outsideZone";
+    public static final String REASON_FEW_TAGS = "fewTags";
+    public static final String REASON_ZONE_NOT_REACHED = "zoneNotReached";
+
+    /** Fewer tag sightings per interval than this count as "too few tags". */
+    private static final int MIN_SIGHTINGS = 5;
+    /** The weakest 10% have to be this far inside the zone (tenths of a dB) before stepping up. */
+    private static final int ZONE_MARGIN = 60;
+    /** Below this many new tags per second the search counts as exhausted. */
+    private static final double DISCOVERY_RATE = 1.0;
+
+    // Normalized RSSI histogram in 1 dB bins from -100 dBm to -20 dBm
+    private static final int HISTOGRAM_FLOOR = -1000;
+    private static final int BIN_WIDTH = 10;
+    private static final int BINS = 80;
+
+    private final int minPower;
+    private final int maxPower;
+    private final int step;
+    private final int zoneRssi;
+    private final double maxOutsideShare;
+    private final long intervalNanos;
+
+    private int power;
+    private long windowStartNanos;
+    private boolean skipWindow;
+    private boolean decisionPending;
+    private final int[] histogram = new int[BINS];
+    private int sightings;
+    private int newTags;
+    private int outside;
+
+    /**
+     * @param minPower        lowest power to step to, dBm
+     * @param maxPower        highest power to step to, dBm
+     * @param step            dBm per change
+     * @param zoneRssi        edge of the read zone as RSSI at full power, tenths of a dBm
+     * @param maxOutsideShare share of tags outside the zone that makes the power go down
+     * @param intervalNanos   time between decisions
+     * @param initialPower    power in effect now
+     * @param nowNanos        System.nanoTime(), start of the first interval
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public AdaptivePowerController(int minPower, int maxPower, int step, int zoneRssi, double maxOutsideShare,
+                                   long intervalNanos, int initialPower, long nowNanos) {
+        if (minPower < MIN_POWER || maxPower > FULL_POWER || minPower > maxPower || step < 1
+                || !(maxOutsideShare > 0 && maxOutsideShare < 1) || intervalNanos <= 0) {
+            throw new IllegalArgumentException("Invalid adaptive power settings");
+        }
+        this.minPower = minPower;
+        this.maxPower = maxPower;
+        this.step = step;
+        this.zoneRssi = zoneRssi;
+        this.maxOutsideShare = maxOutsideShare;
+        this.intervalNanos = intervalNanos;
+        this.power = Math.max(minPower, Math.min(maxPower, initialPower));
+        this.windowStartNanos = nowNanos;
+    }
+
+    /**
+     * @return the power in effect as far as the controller knows; differs from the initial power
+     * if it was out of bounds
+     */
+    public synchronized int getPower() {
+        return power;
+    }
+
+    /**
+     * One tag in a drained batch.
+     *
+     * @param rssi  its strongest read in the batch, tenths of a dBm
+     * @param isNew whether the tag was not in the tag list before
+     */
+    public synchronized void onTagSeen(int rssi, boolean isNew) {
+        int normalized = rssi + (FULL_POWER - power) * 10;
+        int bin = Math.max(0, Math.min(BINS - 1, (normalized - HISTOGRAM_FLOOR) / BIN_WIDTH));
+        histogram[bin]++;
+        sightings++;
+        if (isNew) {
+            newTags++;
+        }
+        if (normalized < zoneRssi) {
+            outside++;
+        }
+    }
+
+    /**
+     * Decides once per interval.
+     *
+     * @return the decision if the power changes: "power", "previousPower", "reason" and the
+     * interval's "sightingsPerSecond", "newPerSecond", "outsideShare" and "p10Rssi" (normalized,
+     * tenths of a dBm); null otherwise, and while the previous decision is not applied yet
+     */
+    public synchronized Map<String, Object> evaluate(long nowNanos) {
+        long elapsed = nowNanos - windowStartNanos;
+        if (elapsed < intervalNanos) {
+            return null;
+        }
+        double seconds = elapsed / 1e9;
+        double outsideShare = sightings > 0 ? (double) outside / sightings : 0;
+        double newPerSecond = newTags / seconds;
+        int p10 = percentile(0.10);
+        int observed = sightings;
+        boolean skip = skipWindow || decisionPending;
+        resetWindow(nowNanos);
+        if (skip) {
+            return null;
+        }
+
+        int next = power;
+        String reason = null;
+        if (observed >= MIN_SIGHTINGS && outsideShare > maxOutsideShare) {
+            next = Math.max(minPower, power - step);
+            reason = REASON_OUTSIDE_ZONE;
+        } else if (observed < MIN_SIGHTINGS) {
+            next = Math.min(maxPower, power + step);
+            reason = REASON_FEW_TAGS;
+        } else if (p10 > zoneRssi + ZONE_MARGIN && newPerSecond < DISCOVERY_RATE) {
+            next = Math.min(maxPower, power + step);
+            reason = REASON_ZONE_NOT_REACHED;
+        }
+        if (next == power) {
+            return null;
+        }
+
+        Map<String, Object> decision = new HashMap<>();
+        decision.put("power", next);
+        decision.put("previousPower", power);
+        decision.put("reason", reason);
+        decision.put("sightingsPerSecond", observed / seconds);
+        decision.put("newPerSecond", newPerSecond);
+        decision.put("outsideShare", outsideShare);
+        decision.put("p10Rssi", p10);
+        decisionPending = true;
+        return decision;
+    }
+
+    /**
+     * The reader has tried to set the power of the last decision.
+     *
+     * @param power   the decided power
+     * @param applied whether the reader took it; if not the power stays as it was
+     */
+    public synchronized void onApplied(int power, boolean applied) {
+        decisionPending = false;
+        if (applied) {
+            this.power = power;
+            skipWindow = true;
+        }
+    }
+
+    private int percentile(double fraction) {
+        if (sightings == 0) {
+            return HISTOGRAM_FLOOR;
+        }
+        int rank = (int) Math.ceil(sightings * fraction);
+        int seen = 0;
+        for (int i = 0; i < BINS; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return HISTOGRAM_FLOOR + i * BIN_WIDTH;
+            }
+        }
+        return HISTOGRAM_FLOOR + (BINS - 1) * BIN_WIDTH;
+    }
+
+    private void resetWindow(long nowNanos) {
+        windowStartNanos = nowNanos;
+        skipWindow = false;
+        Arrays.fill(histogram, 0);
+        sightings = 0;
+        newTags = 0;
+        outside = 0;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Groups tag reads into windows opened by barcode scans ("scan a carton, read its tags").
+ *
+ * A scan opens a window of {@code windowNanos}; reads whose System.nanoTime() timestamp falls
+ * into it are collected per tag (read count, peak RSSI, time of the first read after the scan).
+ * The window ends when it expires or when the next scan opens a new one, and is then turned into
+ * one association event. Reads outside any window are ignored. At most {@code maxTags} distinct
+ * tags are kept per window; further tags are counted as truncated.
+ *
+ * Scans arrive on the decoder thread, reads on the reader callback thread and expiry checks on
+ * the scheduler thread; all methods synchronize on this object. Repeat reads of a tag allocate
+ * nothing.
+ */
+public class AssociationTracker {
+    public static final int DEFAULT_WINDOW_MS = 2000;
+    public static final int DEFAULT_MAX_TAGS = 500;
+
+    private static final class Read {
+        int count;
+        int peakRssi;
+        long firstNanos;
+    }
+
+    private final long windowNanos;
+    private final int maxTags;
+    private final EpcKey scratchKey = new EpcKey();
+
+    // Current window, guarded by this
+    private String barcode;
+    private long openedNanos;
+    private long sequence;
+    private final EpcMap<Read> reads = new EpcMap<>(64);
+    private int truncated;
+
+    public AssociationTracker(long windowNanos, int maxTags) {
+        this.windowNanos = windowNanos;
+        this.maxTags = maxTags;
+    }
+
+    public long getWindowNanos() {
+        return windowNanos;
+    }
+
+    /**
+     * Opens a window for a scan.
+     *
+     * @return the association of the window this scan ended, or null if none was open
+     */
+    public synchronized Map<String, Object> onBarcode(String code, long nowNanos) {
+        Map<String, Object> previous = barcode != null ? close() : null;
+        barcode = code;
+        openedNanos = nowNanos;
+        sequence++;
+        return previous;
+    }
+
+    /**
+     * Records a read if it falls into the open window.
+     *
+     * @param rssi tenths of a dBm
+     */
+    public synchronized void onTagRead(String epc, int rssi, long nowNanos) {
+        if (barcode == null || nowNanos < openedNanos || nowNanos - openedNanos >= windowNanos) {
+            return;
+        }
+        Read read = reads.get(scratchKey.set(epc));
+        if (read == null) {
+            if (reads.size() >= maxTags) {
+                truncated++;
+                return;
+            }
+            read = new Read();
+            read.peakRssi = rssi;
+            read.firstNanos = nowNanos;
+            reads.put(scratchKey.copy(), read);
+        }
+        read.count++;
+        if (rssi > read.peakRssi) {
+            read.peakRssi = rssi;
+        }
+    }
+
+    /**
+     * @return the association of the open window if it has expired, else null
+     */
+    public synchronized Map<String, Object> closeExpired(long nowNanos) {
+        if (barcode == null || nowNanos - openedNanos < windowNanos) {
+            return null;
+        }
+        return close();
+    }
+
+    /**
+     * Ends the open window regardless of its age.
+     *
+     * @return its association, or null if none was open
+     */
+    public synchronized Map<String, Object> flush() {
+        return barcode != null ? close() : null;
+    }
+
+    /**
+     * Builds the event: "sequence", "barcode", "windowMs" (the configured window),
+     * "truncated" (tags left out) and, per tag in parallel arrays, "epcs", "counts", "peakRssi"
+     * (tenths of a dBm) and "firstReadMs" (after the scan).
+     */
+    private Map<String, Object> close() {
+        int size = reads.size();
+        String[] epcs = new String[size];
+        int[] counts = new int[size];
+        int[] peakRssi = new int[size];
+        int[] firstReadMs = new int[size];
+        int row = 0;
+        for (int i = 0, n = reads.capacity(); i < n; i++) {
+            Read read = reads.valueAt(i);
+            if (read == null) continue;
+            epcs[row] = reads.keyAt(i).toString();
+            counts[row] = read.count;
+            peakRssi[row] = read.peakRssi;
+            firstReadMs[row] = (int) ((read.firstNanos - openedNanos) / 1_000_000L);
+            row++;
+        }
+
+        Map<String, Object> event = new HashMap<>();
+        event.put("sequence", sequence);
+        event.put("barcode", barcode);
+        event.put("windowMs", (int) (windowNanos / 1_000_000L));
+        event.put("truncated", truncated);
+        event.put("epcs", Arrays.asList(epcs));
+        event.put("counts", counts);
+        event.put("peakRssi", peakRssi);
+        event.put("firstReadMs", firstReadMs);
+
+        barcode = null;
+        reads.clear();
+        truncated = 0;
+        return event;
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.rfid_c72_plugin;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.rscja.barcode.BarcodeDecoder;
+import com.rscja.barcode.BarcodeFactory;
+import com.rscja.barcode.BarcodeUtility;
+import com.rscja.deviceapi.entity.BarcodeEntity;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The barcode decoder, opened once and kept open with a single decode callback until
+ * {@link #close()}.
+ *
+ * In {@link #TRIGGER_SINGLE} mode a scan decodes one code; in {@link #TRIGGER_CONTINUOUS} mode the
+ * callback re-arms the decoder after every decode until {@link #stopScan()}, so nothing polls.
+ * Repeats of a code within the duplicate window are dropped ({@link ScanDeduplicator}); unless a
+ * window was configured this only applies in continuous mode, so that single scans behave as
+ * before and every scanBarcode gets a result. Decodes
+ * are handled on the decoder's callback thread and queued in a bounded queue; when it is full the
+ * oldest scan is dropped. One drain at a time runs on the main thread, where the listener must be
+ * called, and records the time from decode to delivery.
+ */
+public class BarcodeSession {
+    private static final String TAG = "BarcodeSession";
+
+    public static final String TRIGGER_SINGLE = "single";
+    public static final String TRIGGER_CONTINUOUS = "continuous";
+    /** Duplicate window of continuous mode until one is configured. */
+    public static final int DEFAULT_DUPLICATE_WINDOW_MS = 1000;
+    public static final int QUEUE_CAPACITY = 32;
+    /** Sent in single mode when a scan ends without a code, as before. */
+    public static final String FAILED_SCAN = "-1";
+
+    public interface Listener {
+        /** Main thread. */
+        void onScan(String code);
+    }
+
+    public interface DecodeObserver {
+        /** Decoder callback thread, for every code that passed duplicate suppression. */
+        void onDecoded(String code, long decodedAtNanos);
+    }
+
+    private static final class Scan {
+        final String code;
+        final long decodedAtNanos;
+
+        Scan(String code, long decodedAtNanos) {
+            this.code = code;
+            this.decodedAtNanos = decodedAtNanos;
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable drainer = this::drain;
+    private final ArrayDeque<Scan> queue = new ArrayDeque<>(QUEUE_CAPACITY);
+    private boolean drainPosted; // guarded by queue
+    private final ScanDeduplicator deduplicator =
+            new ScanDeduplicator(TimeUnit.MILLISECONDS.toNanos(DEFAULT_DUPLICATE_WINDOW_MS));
+
+    private final InventoryMetrics.Counter scans = new InventoryMetrics.Counter();
+    private final InventoryMetrics.Counter duplicates = new InventoryMetrics.Counter();
+    private final InventoryMetrics.Counter dropped = new InventoryMetrics.Counter();
+    private final InventoryMetrics.Histogram latencyNanos = new InventoryMetrics.Histogram();
+
+    private BarcodeDecoder decoder; // guarded by this
+    private volatile boolean open;
+    private volatile boolean scanning;
+    private volatile String triggerMode = TRIGGER_SINGLE;
+    private volatile boolean duplicateWindowSet;
+    private volatile String lastCode;
+    private volatile Listener listener;
+    private volatile DecodeObserver decodeObserver;
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sees accepted codes as soon as they are decoded, before they are queued for the main thread.
+     */
+    public void setDecodeObserver(DecodeObserver observer) {
+        this.decodeObserver = observer;
+    }
+
+    /**
+     * Opens the decoder unless it is already open.
+     */
+    public synchronized boolean open(Context context) {
+        if (open) {
+            return true;
+        }
+        try {
+            if (decoder == null) {
+                decoder = BarcodeFactory.getInstance().getBarcodeDecoder();
+            }
+            if (!decoder.open(context)) {
+                return false;
+            }
+            BarcodeUtility.getInstance().enablePlaySuccessSound(context, true);
+            decoder.setDecodeCallback(this::onDecode);
+            open = true;
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error initializing barcode scanner", e);
+            return false;
+        }
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * @param triggerMode       TRIGGER_SINGLE or TRIGGER_CONTINUOUS, null to keep it
+     * @param duplicateWindowMs repeats of a code within this time are dropped, 0 keeps all; null
+     *                          to keep it. Once set it applies in single mode as well
+     * @return false if an argument is invalid
+     */
+    public boolean configure(String triggerMode, Integer duplicateWindowMs) {
+        if (triggerMode != null && !TRIGGER_SINGLE.equals(triggerMode) && !TRIGGER_CONTINUOUS.equals(triggerMode)) {
+            return false;
+        }
+        if (duplicateWindowMs != null && duplicateWindowMs < 0) {
+            return false;
+        }
+        if (triggerMode != null) {
+            this.triggerMode = triggerMode;
+        }
+        if (duplicateWindowMs != null) {
+            synchronized (deduplicator) {
+                deduplicator.setWindowNanos(TimeUnit.MILLISECONDS.toNanos(duplicateWindowMs));
+            }
+            duplicateWindowSet = true;
+        }
+        return true;
+    }
+
+    public String getTriggerMode() {
+        return triggerMode;
+    }
+
+    /**
+     * Starts a scan; in continuous mode scanning goes on until stopScan.
+     */
+    public synchronized boolean startScan() {
+        if (!open) {
+            Log.e(TAG, "Barcode scanner not initialized");
+            return false;
+        }
+        scanning = TRIGGER_CONTINUOUS.equals(triggerMode);
+        return decoder.startScan();
+    }
+
+    public synchronized boolean stopScan() {
+        scanning = false;
+        if (!open) {
+            return false;
+        }
+        decoder.stopScan();
+        return true;
+    }
+
+    public synchronized boolean close() {
+        scanning = false;
+        if (decoder == null) {
+            return false;
+        }
+        decoder.close();
+        open = false;
+        synchronized (queue) {
+            queue.clear();
+        }
+        return true;
+    }
+
+    /**
+     * @return the last decoded code, or null
+     */
+    public String getLastCode() {
+        return lastCode;
+    }
+
+    public void clearLastCode() {
+        lastCode = null;
+    }
+
+    /**
+     * Decoder callback thread.
+     */
+    private void onDecode(BarcodeEntity entity) {
+        long now = System.nanoTime();
+        if (entity.getResultCode() == BarcodeDecoder.DECODE_SUCCESS) {
+            String code = entity.getBarcodeData();
+            lastCode = code;
+            boolean accepted = true;
+            if (duplicateWindowSet || TRIGGER_CONTINUOUS.equals(triggerMode)) {
+                synchronized (deduplicator) {
+                    accepted = deduplicator.accept(code, now);
+                }
+            }
+            if (accepted) {
+                DecodeObserver observer = decodeObserver;
+                if (observer != null) {
+                    observer.onDecoded(code, now);
+                }
+                enqueue(new Scan(code, now));
+            } else {
+                duplicates.increment();
+            }
+        } else if (!scanning) {
+            enqueue(new Scan(FAILED_SCAN, now));
+        }
+        if (scanning) {
+            synchronized (this) {
+                if (scanning && open) {
+                    decoder.startScan();
+                }
+            }
+        }
+    }
+
+    private void enqueue(Scan scan) {
+        boolean post = false;
+        synchronized (queue) {
+            if (queue.size() >= QUEUE_CAPACITY) {
+                queue.poll();
+                dropped.increment();
+            }
+            queue.add(scan);
+            if (!drainPosted) {
+                drainPosted = true;
+                post = true;
+            }
+        }
+        if (post) {
+            mainHandler.post(drainer);
+        }
+    }
+
+    /**
+     * Main thread: delivers everything queued.
+     */
+    private void drain() {
+        while (true) {
+            Scan scan;
+            synchronized (queue) {
+                scan = queue.poll();
+                if (scan == null) {
+                    drainPosted = false;
+                    return;
+                }
+            }
+            Listener current = listener;
+            if (current != null) {
+                current.onScan(scan.code);
+            }
+            scans.increment();
+            latencyNanos.record(System.nanoTime() - scan.decodedAtNanos);
+        }
+    }
+
+    /**
+     * Adds the scan counters to a stats map: delivered, duplicate and dropped scans, and the time
+     * from decode to delivery in microseconds.
+     */
+    public void putStats(Map<String, Object> stats) {
+        stats.put("barcodeScans", scans.sum());
+        stats.put("duplicateScans", duplicates.sum());
+        stats.put("droppedScans", dropped.sum());
+        stats.put("barcodeLatencyUs", latencyNanos.toMap(1_000L));
+    }
+}
@@ -1,10 +1,24 @@
 package com.example.rfid_c72_plugin;
 
+/**
+ * Aggregated state of one tag.
+ *
+ * Counts and RSSI are kept as primitives so the read path can update a record in place
+ * without parsing or allocating. RSSI values are fixed-point tenths of a dBm
+ * (-553 means -55.3 dBm); timestamps come from System.nanoTime().
+ */
 public class EPC {
-    private String count;
-    private String epc;
+    private int count;
+    private EpcKey key;
+    private EpcKey epcKey;
+    private EpcKey tidKey;
     private String id;
-    private String rssi;
+    private int rssi;
+    private int peakRssi = Integer.MIN_VALUE;
+    private int minRssi = Integer.MAX_VALUE;
+    private long rssiSum;
+    private long firstSeenNanos;
+    private long lastSeenNanos;
 
     private boolean isFind;
 
@@ -24,31 +38,232 @@ public class EPC {
         this.id = id2;
     }
 
+    /** EPC as upper-case hex; builds a String, prefer {@link #getEpcKey()} on hot paths. */
     public String getEpc() {
-        return this.epc;
+        return this.epcKey != null ? this.epcKey.toString() : null;
     }
 
+    /** Sets the EPC, which is also the record's key. */
     public void setEpc(String epc2) {
-        this.epc = epc2;
+        setKey(epc2 != null ? EpcKey.of(epc2) : null);
     }
 
-    public String getCount() {
+    /** Key the record is deduplicated by: the EPC, the TID or both (see TagAggregationBuffer). */
+    public EpcKey getKey() {
+        return this.key;
+    }
+
+    /** Sets a key that is the EPC itself. */
+    public void setKey(EpcKey key2) {
+        this.key = key2;
+        this.epcKey = key2;
+    }
+
+    public void setKeys(EpcKey key2, EpcKey epcKey2) {
+        this.key = key2;
+        this.epcKey = epcKey2;
+    }
+
+    public EpcKey getEpcKey() {
+        return this.epcKey;
+    }
+
+    /** TID as upper-case hex if the reader reported one, otherwise null. */
+    public String getTid() {
+        return this.tidKey != null ? this.tidKey.toString() : null;
+    }
+
+    public void setTid(String tid2) {
+        this.tidKey = tid2 != null && !tid2.isEmpty() ? EpcKey.of(tid2) : null;
+    }
+
+    public EpcKey getTidKey() {
+        return this.tidKey;
+    }
+
+    public void setTidKey(EpcKey tidKey2) {
+        this.tidKey = tidKey2;
+    }
+
+    public int getCount() {
         return this.count;
     }
 
-    public void setCount(String count2) {
+    public void setCount(int count2) {
         this.count = count2;
     }
 
-    public String getRssi() {
+    /** Last RSSI in tenths of a dBm. */
+    public int getRssi() {
         return this.rssi;
     }
 
-    public void setRssi(String rssi2) {
+    public void setRssi(int rssi2) {
+        this.rssi = rssi2;
+    }
+
+    public int getPeakRssi() {
+        return this.peakRssi;
+    }
+
+    public int getMinRssi() {
+        return this.minRssi;
+    }
+
+    /** Mean RSSI in tenths of a dBm over all reads. */
+    public int getMeanRssi() {
+        return count > 0 ? (int) (rssiSum / count) : rssi;
+    }
+
+    public long getRssiSum() {
+        return this.rssiSum;
+    }
+
+    public long getFirstSeenNanos() {
+        return this.firstSeenNanos;
+    }
+
+    public long getLastSeenNanos() {
+        return this.lastSeenNanos;
+    }
+
+    /**
+     * Records one read of this tag.
+     */
+    public void recordRead(int rssi2, long nowNanos) {
+        if (count == 0) {
+            firstSeenNanos = nowNanos;
+        }
+        count++;
+        rssi = rssi2;
+        rssiSum += rssi2;
+        if (rssi2 > peakRssi) {
+            peakRssi = rssi2;
+        }
+        if (rssi2 < minRssi) {
+            minRssi = rssi2;
+        }
+        lastSeenNanos = nowNanos;
+    }
+
+    /**
+     * Folds the reads aggregated in another record of the same tag into this one.
+     */
+    public void merge(EPC other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0 || other.firstSeenNanos < firstSeenNanos) {
+            firstSeenNanos = other.firstSeenNanos;
+        }
+        count += other.count;
+        rssiSum += other.rssiSum;
+        isFind |= other.isFind;
+        if (tidKey == null) {
+            tidKey = other.tidKey;
+        }
+        if (other.peakRssi > peakRssi) {
+            peakRssi = other.peakRssi;
+        }
+        if (other.minRssi < minRssi) {
+            minRssi = other.minRssi;
+        }
+        if (other.lastSeenNanos >= lastSeenNanos) {
+            lastSeenNanos = other.lastSeenNanos;
+            rssi = other.rssi;
+        }
+    }
+
+    /**
+     * Sets all aggregated values at once, e.g. when reloading a journaled session.
+     */
+    public void restore(int count2, int rssi2, int minRssi2, int peakRssi2, long rssiSum2,
+                        long firstSeenNanos2, long lastSeenNanos2) {
+        this.count = count2;
         this.rssi = rssi2;
+        this.minRssi = minRssi2;
+        this.peakRssi = peakRssi2;
+        this.rssiSum = rssiSum2;
+        this.firstSeenNanos = firstSeenNanos2;
+        this.lastSeenNanos = lastSeenNanos2;
+    }
+
+    /**
+     * Clears the aggregated values so the record can be reused for another tag.
+     */
+    public void reset() {
+        count = 0;
+        key = null;
+        epcKey = null;
+        tidKey = null;
+        id = null;
+        rssi = 0;
+        peakRssi = Integer.MIN_VALUE;
+        minRssi = Integer.MAX_VALUE;
+        rssiSum = 0;
+        firstSeenNanos = 0;
+        lastSeenNanos = 0;
+        isFind = false;
+    }
+
+    /**
+     * Parses an SDK RSSI string such as "-62.35" into tenths of a dBm without allocating.
+     * Both '.' and ',' are accepted as decimal separator; unparsable input yields 0.
+     */
+    public static int parseRssi(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        int whole = 0;
+        int tenths = 0;
+        int roundDigit = 0;
+        int fraction = -1;
+        boolean digits = false;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (fraction < 0) {
+                    whole = whole * 10 + (c - '0');
+                } else if (fraction == 0) {
+                    tenths = c - '0';
+                    fraction++;
+                } else if (fraction == 1) {
+                    roundDigit = c - '0';
+                    fraction++;
+                }
+            } else if ((c == '.' || c == ',') && fraction < 0) {
+                fraction = 0;
+            } else {
+                break;
+            }
+        }
+        if (!digits) {
+            return 0;
+        }
+        int result = whole * 10 + tenths + (roundDigit >= 5 ? 1 : 0);
+        return negative ? -result : result;
+    }
+
+    /**
+     * Appends an RSSI in tenths of a dBm as a decimal string (e.g. "-55.3").
+     */
+    public static StringBuilder appendRssi(StringBuilder builder, int rssi2) {
+        if (rssi2 < 0) {
+            builder.append('-');
+            rssi2 = -rssi2;
+        }
+        return builder.append(rssi2 / 10).append('.').append(rssi2 % 10);
     }
 
     public String toString() {
-        return "EPC [id=" + this.id + ", epc=" + this.epc + ", count=" + this.count + "]";
+        return "EPC [id=" + this.id + ", epc=" + this.key + ", count=" + this.count + "]";
     }
 }
@@ -0,0 +1,220 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.Arrays;
+
+/**
+ * Compact identity of a tag: its EPC as packed bytes with a precomputed hash.
+ *
+ * The first 16 bytes live in two longs, so a 96- or 128-bit EPC needs no array at all; longer
+ * EPCs keep the rest in a small overflow array. Input that is not an even number of hex digits
+ * is kept as text, so odd reader output still gets a stable key. Keys render as upper-case hex.
+ *
+ * Keys stored in maps are immutable. The read path parses into one scratch key per producer
+ * with {@link #set} and only {@link #copy}s it when a tag is seen for the first time, so repeat
+ * reads of a known tag allocate nothing.
+ */
+public final class EpcKey {
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final int INLINE_BYTES = 16;
+
+    private long high;
+    private long low;
+    private int length;
+    private byte[] overflow; // bytes 16.. of long EPCs, may be longer than needed in scratch keys
+    private String text;
+    private int hash;
+
+    public EpcKey() { }
+
+    public static EpcKey of(String epc) {
+        return new EpcKey().set(epc);
+    }
+
+    /**
+     * Key of {@code length} raw EPC bytes.
+     */
+    public static EpcKey of(byte[] bytes, int offset, int length) {
+        EpcKey key = new EpcKey();
+        key.length = length;
+        if (length > INLINE_BYTES) {
+            key.overflow = new byte[length - INLINE_BYTES];
+        }
+        for (int i = 0; i < length; i++) {
+            key.putByte(i, bytes[offset + i] & 0xFF);
+        }
+        key.hash = key.computeHash();
+        return key;
+    }
+
+    /**
+     * Key of the bytes of {@code first} followed by those of {@code second}, as
+     * {@link #set(String, String)} would build it.
+     */
+    public static EpcKey concat(EpcKey first, EpcKey second) {
+        if (first.isText() || second.isText()) {
+            return new EpcKey().setText(first.toString() + second.toString());
+        }
+        byte[] bytes = new byte[first.length + second.length];
+        for (int i = 0; i < first.length; i++) {
+            bytes[i] = (byte) first.byteAt(i);
+        }
+        for (int i = 0; i < second.length; i++) {
+            bytes[first.length + i] = (byte) second.byteAt(i);
+        }
+        return of(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Re-parses this key in place. Only for scratch keys that are not stored anywhere.
+     */
+    EpcKey set(String epc) {
+        return set(epc, null);
+    }
+
+    /**
+     * Re-parses this key in place as the bytes of {@code first} followed by those of
+     * {@code second} (may be null), e.g. EPC + TID, without concatenating the Strings.
+     */
+    EpcKey set(String first, String second) {
+        high = 0;
+        low = 0;
+        text = null;
+        int firstChars = first.length();
+        int secondChars = second != null ? second.length() : 0;
+        if ((firstChars & 1) != 0 || (secondChars & 1) != 0 || firstChars == 0) {
+            return setText(second != null ? first + second : first);
+        }
+        length = (firstChars + secondChars) / 2;
+        if (length > INLINE_BYTES && (overflow == null || overflow.length < length - INLINE_BYTES)) {
+            overflow = new byte[length - INLINE_BYTES];
+        }
+        if (!putHex(first, 0) || (second != null && !putHex(second, firstChars / 2))) {
+            return setText(second != null ? first + second : first);
+        }
+        hash = computeHash();
+        return this;
+    }
+
+    /**
+     * @return an immutable copy, e.g. of a scratch key about to be stored
+     */
+    public EpcKey copy() {
+        EpcKey key = new EpcKey();
+        key.high = high;
+        key.low = low;
+        key.length = length;
+        key.text = text;
+        key.hash = hash;
+        if (text == null && length > INLINE_BYTES) {
+            key.overflow = Arrays.copyOf(overflow, length - INLINE_BYTES);
+        }
+        return key;
+    }
+
+    /** True if the key is not hex and was kept as text. */
+    public boolean isText() {
+        return text != null;
+    }
+
+    /** Number of EPC bytes; 0 for text keys. */
+    public int length() {
+        return text != null ? 0 : length;
+    }
+
+    public int byteAt(int index) {
+        if (index < 8) {
+            return (int) (high >>> (56 - 8 * index)) & 0xFF;
+        }
+        if (index < INLINE_BYTES) {
+            return (int) (low >>> (56 - 8 * (index - 8))) & 0xFF;
+        }
+        return overflow[index - INLINE_BYTES] & 0xFF;
+    }
+
+    public StringBuilder appendTo(StringBuilder builder) {
+        if (text != null) {
+            return builder.append(text);
+        }
+        for (int i = 0; i < length; i++) {
+            int b = byteAt(i);
+            builder.append(HEX[b >>> 4]).append(HEX[b & 0xF]);
+        }
+        return builder;
+    }
+
+    @Override
+    public String toString() {
+        if (text != null) {
+            return text;
+        }
+        return appendTo(new StringBuilder(length * 2)).toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EpcKey)) {
+            return false;
+        }
+        EpcKey other = (EpcKey) o;
+        if (hash != other.hash || length != other.length || high != other.high || low != other.low) {
+            return false;
+        }
+        if (text != null || other.text != null) {
+            return text != null && text.equals(other.text);
+        }
+        for (int i = INLINE_BYTES; i < length; i++) {
+            if (overflow[i - INLINE_BYTES] != other.overflow[i - INLINE_BYTES]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private EpcKey setText(String epc) {
+        text = epc;
+        length = 0;
+        high = 0;
+        low = 0;
+        hash = epc.hashCode();
+        return this;
+    }
+
+    private boolean putHex(String hex, int start) {
+        for (int i = 0, n = hex.length() / 2; i < n; i++) {
+            int hi = Character.digit(hex.charAt(2 * i), 16);
+            int lo = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0) {
+                return false;
+            }
+            putByte(start + i, (hi << 4) | lo);
+        }
+        return true;
+    }
+
+    private void putByte(int index, int b) {
+        if (index < 8) {
+            high |= (long) b << (56 - 8 * index);
+        } else if (index < INLINE_BYTES) {
+            low |= (long) b << (56 - 8 * (index - 8));
+        } else {
+            overflow[index - INLINE_BYTES] = (byte) b;
+        }
+    }
+
+    private int computeHash() {
+        long h = high * 0x9E3779B97F4A7C15L ^ low * 0xC2B2AE3D27D4EB4FL ^ length;
+        for (int i = INLINE_BYTES; i < length; i++) {
+            h = h * 31 + overflow[i - INLINE_BYTES];
+        }
+        h ^= h >>> 29;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@link EpcKey} to values, used for the tag stores.
+ *
+ * Keys and values sit in two flat arrays with linear probing, so an entry costs two array slots
+ * instead of a HashMap node, and lookups use the key's precomputed hash. Removal shifts the
+ * following entries back instead of leaving tombstones. Iterate with {@link #capacity()},
+ * {@link #keyAt} and {@link #valueAt}; empty slots return null.
+ *
+ * Not thread-safe.
+ */
+public final class EpcMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private EpcKey[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public EpcMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(EpcKey key) {
+        int slot = slotOf(key);
+        EpcKey current;
+        while ((current = keys[slot]) != null) {
+            if (current.equals(key)) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Maps the key, which must not be modified afterwards, to the value.
+     *
+     * @return the previous value, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(EpcKey key, V value) {
+        int slot = slotOf(key);
+        EpcKey current;
+        while ((current = keys[slot]) != null) {
+            if (current.equals(key)) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length * 2);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(EpcKey key) {
+        int slot = slotOf(key);
+        EpcKey current;
+        while ((current = keys[slot]) != null) {
+            if (current.equals(key)) {
+                V previous = (V) values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, null);
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public EpcKey keyAt(int slot) {
+        return keys[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    private int slotOf(EpcKey key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Empties a slot and moves later entries of the same probe run into the gap, so lookups
+     * never stop early at a hole.
+     */
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            EpcKey key = keys[slot];
+            if (key == null) {
+                break;
+            }
+            int home = slotOf(key);
+            // Move the entry if its home is not within (gap, slot], cyclically
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = key;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = null;
+        values[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        EpcKey[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            EpcKey key = oldKeys[i];
+            if (key != null) {
+                int slot = slotOf(key);
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new EpcKey[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity / 3 * 2;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 3 * 2 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reconciles reads against an expected list of EPCs: which expected tags were found, which are
+ * still missing and which read tags were not expected at all.
+ *
+ * The expected EPCs are kept as raw bytes in one array and indexed by an open-addressing table
+ * of ints, so 10,000 96-bit EPCs take under 300 KB. Lookups hash the bytes of a read's
+ * {@link EpcKey} directly, without copying them. Found flags are a BitSet.
+ *
+ * Packed input is a sequence of [u8 byte length][EPC bytes] entries. Zero-length entries are
+ * skipped and duplicates are stored once.
+ *
+ * Not thread-safe; UHFHelper guards it with the tag list monitor.
+ */
+public class ExpectedTagSet {
+    public static final String LIST_FOUND = "found";
+    public static final String LIST_MISSING = "missing";
+    public static final String LIST_UNEXPECTED = "unexpected";
+
+    /** Result of {@link #onSeen}. */
+    public static final int SEEN_FOUND = 1;
+    public static final int SEEN_FOUND_AGAIN = 2;
+    public static final int SEEN_UNEXPECTED = 3;
+    public static final int SEEN_UNEXPECTED_AGAIN = 4;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final byte[] arena;
+    private final int[] offsets; // entry i spans arena[offsets[i], offsets[i + 1])
+    private final int[] table; // entry index + 1, 0 = empty
+    private final int mask;
+    private final int size;
+    private final BitSet found;
+    private int foundCount;
+    private final LinkedHashSet<EpcKey> unexpected = new LinkedHashSet<>();
+
+    /**
+     * @throws IllegalArgumentException if the packed list is truncated
+     */
+    public ExpectedTagSet(byte[] packed) {
+        int entries = 0;
+        int position = 0;
+        while (position < packed.length) {
+            position += 1 + (packed[position] & 0xFF);
+            entries++;
+        }
+        if (position != packed.length) {
+            throw new IllegalArgumentException("Truncated expected tag list");
+        }
+
+        arena = new byte[packed.length - entries];
+        offsets = new int[entries + 1];
+        int capacity = Integer.highestOneBit(Math.max(entries, 8) * 2 - 1) << 1;
+        table = new int[capacity];
+        mask = capacity - 1;
+
+        int count = 0;
+        int write = 0;
+        position = 0;
+        while (position < packed.length) {
+            int length = packed[position++] & 0xFF;
+            if (length == 0) {
+                continue; // no read can match it
+            }
+            System.arraycopy(packed, position, arena, write, length);
+            position += length;
+            offsets[count] = write;
+            offsets[count + 1] = write + length;
+            // Duplicates in the input are stored once
+            if (find(arena, write, length) < 0) {
+                int slot = hash(arena, write, length) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = count + 1;
+                write += length;
+                count++;
+            }
+        }
+        size = count;
+        found = new BitSet(count);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getFoundCount() {
+        return foundCount;
+    }
+
+    public int getMissingCount() {
+        return size - foundCount;
+    }
+
+    public int getUnexpectedCount() {
+        return unexpected.size();
+    }
+
+    /**
+     * Records a read of the tag.
+     *
+     * @return {@link #SEEN_FOUND} or {@link #SEEN_UNEXPECTED} the first time the tag is read,
+     * {@link #SEEN_FOUND_AGAIN} or {@link #SEEN_UNEXPECTED_AGAIN} after that
+     */
+    public int onSeen(EpcKey epc) {
+        int index = indexOf(epc);
+        if (index >= 0) {
+            if (found.get(index)) {
+                return SEEN_FOUND_AGAIN;
+            }
+            found.set(index);
+            foundCount++;
+            return SEEN_FOUND;
+        }
+        return unexpected.add(epc) ? SEEN_UNEXPECTED : SEEN_UNEXPECTED_AGAIN;
+    }
+
+    /**
+     * Forgets all reads but keeps the expected list.
+     */
+    public void resetReads() {
+        found.clear();
+        foundCount = 0;
+        unexpected.clear();
+    }
+
+    public List<String> getList(String which) {
+        if (LIST_UNEXPECTED.equals(which)) {
+            List<String> list = new ArrayList<>(unexpected.size());
+            for (EpcKey key : unexpected) {
+                list.add(key.toString());
+            }
+            return list;
+        }
+        boolean wantFound = LIST_FOUND.equals(which);
+        List<String> list = new ArrayList<>(wantFound ? foundCount : size - foundCount);
+        for (int i = 0; i < size; i++) {
+            if (found.get(i) == wantFound) {
+                list.add(epcAt(i));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Counter payload of the reconciliation channel.
+     */
+    public Map<String, Object> toMap(List<String> newlyFound, List<String> newlyUnexpected) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("expected", size);
+        map.put("found", foundCount);
+        map.put("missing", size - foundCount);
+        map.put("unexpected", unexpected.size());
+        map.put("newlyFound", newlyFound);
+        map.put("newlyUnexpected", newlyUnexpected);
+        return map;
+    }
+
+    String epcAt(int index) {
+        int start = offsets[index];
+        int end = offsets[index + 1];
+        char[] chars = new char[(end - start) * 2];
+        for (int i = start, c = 0; i < end; i++) {
+            chars[c++] = HEX[(arena[i] >> 4) & 0xF];
+            chars[c++] = HEX[arena[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    int indexOf(EpcKey epc) {
+        if (epc.length() == 0) {
+            return -1;
+        }
+        int slot = hash(epc) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (matches(entry - 1, epc)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int find(byte[] bytes, int start, int length) {
+        int slot = hash(bytes, start, length) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            int index = entry - 1;
+            int entryStart = offsets[index];
+            if (offsets[index + 1] - entryStart == length && regionMatches(entryStart, bytes, start, length)) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(int arenaStart, byte[] bytes, int start, int length) {
+        for (int i = 0; i < length; i++) {
+            if (arena[arenaStart + i] != bytes[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(int index, EpcKey epc) {
+        int start = offsets[index];
+        int end = offsets[index + 1];
+        if (end - start != epc.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if ((arena[i] & 0xFF) != epc.byteAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Must agree with {@link #hash(EpcKey)}: entries are inserted by bytes and looked up by key. */
+    static int hash(byte[] bytes, int start, int length) {
+        int h = 0;
+        for (int i = start; i < start + length; i++) {
+            h = 31 * h + (bytes[i] & 0xFF);
+        }
+        return spread(h);
+    }
+
+    static int hash(EpcKey epc) {
+        int h = 0;
+        for (int i = 0, length = epc.length(); i < length; i++) {
+            h = 31 * h + epc.byteAt(i);
+        }
+        return spread(h);
+    }
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
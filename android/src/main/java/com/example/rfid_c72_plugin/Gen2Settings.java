@@ -0,0 +1,62 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gen2 inventory parameters of a reader: the session and target a round inventories, and how
+ * the Q algorithm sizes its slot count (2^Q slots per round).
+ *
+ * In session S1-S3 a tag that was read flips its inventoried flag and stays quiet for the
+ * session's persistence time, so a dense population is read once instead of over and over.
+ */
+public final class Gen2Settings {
+    public static final int TARGET_A = 0;
+    public static final int TARGET_B = 1;
+    public static final int Q_FIXED = 0;
+    public static final int Q_DYNAMIC = 1;
+    public static final int MAX_Q = 15;
+
+    public int session;
+    public int target = TARGET_A;
+    public int qAlgorithm = Q_DYNAMIC;
+    public int startQ = 4;
+    public int minQ;
+    public int maxQ = MAX_Q;
+
+    public Gen2Settings copy() {
+        Gen2Settings settings = new Gen2Settings();
+        settings.session = session;
+        settings.target = target;
+        settings.qAlgorithm = qAlgorithm;
+        settings.startQ = startQ;
+        settings.minQ = minQ;
+        settings.maxQ = maxQ;
+        return settings;
+    }
+
+    public boolean isValid() {
+        return session >= 0 && session <= 3
+                && (target == TARGET_A || target == TARGET_B)
+                && (qAlgorithm == Q_FIXED || qAlgorithm == Q_DYNAMIC)
+                && minQ >= 0 && minQ <= startQ && startQ <= maxQ && maxQ <= MAX_Q;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("session", session);
+        map.put("target", target);
+        map.put("dynamicQ", qAlgorithm == Q_DYNAMIC);
+        map.put("startQ", startQ);
+        map.put("minQ", minQ);
+        map.put("maxQ", maxQ);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "Gen2Settings{S" + session + (target == TARGET_A ? " A" : " B")
+                + (qAlgorithm == Q_DYNAMIC ? " dynamic" : " fixed") + " Q=" + startQ
+                + " [" + minQ + ".." + maxQ + "]}";
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.rfid_c72_plugin;
+
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe on-device journal of an inventory session.
+ *
+ * Every flushed batch is appended to an append-only log as one CRC-protected record; once the
+ * log grows past {@link #COMPACT_THRESHOLD_BYTES} the whole tag list is written to a snapshot
+ * and a new log generation is started. Reloading maps the snapshot and replays the log of the
+ * same generation, stopping at the first torn or corrupt record.
+ *
+ * Records are encoded on the flush thread (the inventory callback never touches the journal)
+ * and written and fsynced by a dedicated writer thread.
+ *
+ * Files: snapshot.bin ("RFJS", version, generation, tags, CRC) and journal-&lt;generation&gt;.log
+ * ("RFJL", version, generation, then [length, CRC, tags] records). Times are stored as wall
+ * clock millis because nanoTime does not survive a restart.
+ */
+public class InventoryJournal {
+    private static final String TAG = "InventoryJournal";
+    private static final int SNAPSHOT_MAGIC = 0x52464A53; // RFJS
+    private static final int LOG_MAGIC = 0x52464A4C; // RFJL
+    private static final int VERSION = 3;
+    private static final int KEY_PACKED = 0;
+    private static final int KEY_TEXT = 1;
+    private static final int LOG_HEADER_BYTES = 4 + 4 + 8;
+    private static final long COMPACT_THRESHOLD_BYTES = 1024 * 1024;
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String SNAPSHOT_TMP_FILE = "snapshot.tmp";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * The tags of one flush, encoded on the flush thread.
+     */
+    public static final class Batch {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final long nowNanos = System.nanoTime();
+        private final long nowMillis = System.currentTimeMillis();
+        private int tags;
+
+        public void add(EPC tag) {
+            try {
+                writeTag(out, tag.getEpcKey(), tag, nowNanos, nowMillis);
+                tags++;
+            } catch (IOException e) {
+                // Cannot happen with an in-memory stream
+            }
+        }
+
+        public boolean isEmpty() {
+            return tags == 0;
+        }
+    }
+
+    private final File directory;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private long generation;
+    private long logBytes;
+    private FileChannel log; // writer thread only
+    private long logGeneration; // writer thread only
+
+    public InventoryJournal(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return true if a journal from an earlier session exists in the directory
+     */
+    public static boolean exists(File directory) {
+        return new File(directory, SNAPSHOT_FILE).exists();
+    }
+
+    /**
+     * Loads the journaled session into the cache, keying tags by the current dedup key.
+     * Call before the first append.
+     *
+     * @return number of tags restored
+     */
+    public int restore(TagCache cache, String dedupKey) {
+        int restored = 0;
+        long nowNanos = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+        File snapshot = new File(directory, SNAPSHOT_FILE);
+        if (snapshot.exists()) {
+            try (RandomAccessFile file = new RandomAccessFile(snapshot, "r");
+                 FileChannel channel = file.getChannel()) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.limit() >= 4 + 4 + 8 + 4 + 4 && buffer.getInt() == SNAPSHOT_MAGIC
+                        && buffer.getInt() == VERSION && snapshotCrcMatches(buffer)) {
+                    generation = buffer.getLong();
+                    int tags = buffer.getInt();
+                    for (int i = 0; i < tags; i++) {
+                        readTag(buffer, cache, dedupKey, nowNanos, nowMillis);
+                        restored++;
+                    }
+                } else {
+                    Log.e(TAG, "Ignoring corrupt journal snapshot");
+                }
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Error reading journal snapshot", e);
+            }
+        }
+
+        File logFile = logFile(generation);
+        if (logFile.exists()) {
+            try (RandomAccessFile file = new RandomAccessFile(logFile, "rw");
+                 FileChannel channel = file.getChannel()) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                long valid = 0;
+                if (buffer.limit() >= LOG_HEADER_BYTES && buffer.getInt() == LOG_MAGIC
+                        && buffer.getInt() == VERSION && buffer.getLong() == generation) {
+                    valid = LOG_HEADER_BYTES;
+                    CRC32 crc = new CRC32();
+                    while (buffer.remaining() >= 8) {
+                        int length = buffer.getInt();
+                        int expected = buffer.getInt();
+                        if (length < 4 || length > buffer.remaining()) break;
+                        byte[] record = new byte[length];
+                        buffer.get(record);
+                        crc.reset();
+                        crc.update(record, 0, length);
+                        if ((int) crc.getValue() != expected) break;
+                        ByteBuffer tagsBuffer = ByteBuffer.wrap(record);
+                        while (tagsBuffer.hasRemaining()) {
+                            readTag(tagsBuffer, cache, dedupKey, nowNanos, nowMillis);
+                        }
+                        valid = buffer.position();
+                    }
+                }
+                // Drop a torn tail so later appends start on a record boundary
+                channel.truncate(valid);
+                logBytes = valid;
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Error replaying journal", e);
+            }
+        }
+        Log.d(TAG, "Restored " + restored + " snapshot tags, " + cache.size() + " after replay");
+        return cache.size();
+    }
+
+    /**
+     * Queues a batch for appending. Flush thread.
+     *
+     * @return true if the log is large enough that the caller should {@link #compact} next
+     */
+    public boolean append(Batch batch) {
+        if (batch.isEmpty()) {
+            return false;
+        }
+        final byte[] record = batch.bytes.toByteArray();
+        final long recordGeneration = generation;
+        logBytes += record.length + 8;
+        writer.execute(() -> {
+            try {
+                FileChannel channel = openLog(recordGeneration);
+                CRC32 crc = new CRC32();
+                crc.update(record, 0, record.length);
+                ByteBuffer header = ByteBuffer.allocate(8);
+                header.putInt(record.length).putInt((int) crc.getValue()).flip();
+                channel.write(new ByteBuffer[]{header, ByteBuffer.wrap(record)});
+                channel.force(false);
+            } catch (IOException e) {
+                Log.e(TAG, "Error appending to journal", e);
+            }
+        });
+        return logBytes > COMPACT_THRESHOLD_BYTES;
+    }
+
+    /**
+     * Writes the whole tag list as the new snapshot and starts a fresh log. Flush thread, under
+     * the tag list monitor, so the snapshot covers exactly the batches appended before it.
+     */
+    public void compact(Collection<EPC> tags) {
+        final long nextGeneration = generation + 1;
+        generation = nextGeneration;
+        logBytes = LOG_HEADER_BYTES;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + tags.size() * 48);
+        DataOutputStream out = new DataOutputStream(bytes);
+        long nowNanos = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+        try {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(nextGeneration);
+            out.writeInt(tags.size());
+            for (EPC tag : tags) {
+                writeTag(out, tag.getEpcKey(), tag, nowNanos, nowMillis);
+            }
+        } catch (IOException e) {
+            // Cannot happen with an in-memory stream
+        }
+        final byte[] snapshot = bytes.toByteArray();
+
+        writer.execute(() -> {
+            try {
+                CRC32 crc = new CRC32();
+                crc.update(snapshot, 8, snapshot.length - 8);
+                if (!directory.exists() && !directory.mkdirs()) {
+                    throw new IOException("Cannot create " + directory);
+                }
+                File tmp = new File(directory, SNAPSHOT_TMP_FILE);
+                try (RandomAccessFile file = new RandomAccessFile(tmp, "rw");
+                     FileChannel channel = file.getChannel()) {
+                    channel.truncate(0);
+                    channel.write(ByteBuffer.wrap(snapshot));
+                    ByteBuffer trailer = ByteBuffer.allocate(4);
+                    trailer.putInt((int) crc.getValue()).flip();
+                    channel.write(trailer);
+                    channel.force(true);
+                }
+                // The rename is the commit point: from here on the old log is superseded
+                if (!tmp.renameTo(new File(directory, SNAPSHOT_FILE))) {
+                    throw new IOException("Cannot replace journal snapshot");
+                }
+                closeLog();
+                File[] stale = directory.listFiles();
+                if (stale != null) {
+                    for (File file : stale) {
+                        if (file.getName().startsWith("journal-") && !file.equals(logFile(nextGeneration))) {
+                            file.delete();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Error compacting journal", e);
+            }
+        });
+    }
+
+    /**
+     * Drops everything journaled so far, e.g. when the session is cleared. Flush thread.
+     */
+    public void reset() {
+        compact(Collections.<EPC>emptyList());
+    }
+
+    /**
+     * Stops journaling and removes all journal files.
+     */
+    public void delete() {
+        writer.execute(() -> {
+            closeLog();
+            deleteFiles(directory);
+        });
+        close();
+    }
+
+    /**
+     * Removes the journal files of a session no instance has open, e.g. one kept on disk after
+     * the reader was closed.
+     */
+    public static void deleteFiles(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    public void close() {
+        writer.execute(this::closeLog);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private FileChannel openLog(long recordGeneration) throws IOException {
+        if (log != null && logGeneration != recordGeneration) {
+            closeLog();
+        }
+        if (log == null) {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Cannot create " + directory);
+            }
+            RandomAccessFile file = new RandomAccessFile(logFile(recordGeneration), "rw");
+            log = file.getChannel();
+            logGeneration = recordGeneration;
+            if (log.size() < LOG_HEADER_BYTES) {
+                ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_BYTES);
+                header.putInt(LOG_MAGIC).putInt(VERSION).putLong(recordGeneration).flip();
+                log.truncate(0);
+                log.write(header);
+            }
+            log.position(log.size());
+        }
+        return log;
+    }
+
+    private void closeLog() {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Error closing journal", e);
+            }
+            log = null;
+        }
+    }
+
+    private File logFile(long logGeneration) {
+        return new File(directory, "journal-" + logGeneration + ".log");
+    }
+
+    private static boolean snapshotCrcMatches(MappedByteBuffer buffer) {
+        int end = buffer.limit() - 4;
+        CRC32 crc = new CRC32();
+        for (int i = 8; i < end; i++) {
+            crc.update(buffer.get(i));
+        }
+        return (int) crc.getValue() == buffer.getInt(end);
+    }
+
+    private static void writeTag(DataOutputStream out, EpcKey epc, EPC tag, long nowNanos, long nowMillis)
+            throws IOException {
+        if (epc.isText()) {
+            out.writeByte(KEY_TEXT);
+            writeString(out, epc.toString());
+        } else {
+            out.writeByte(KEY_PACKED);
+            out.writeShort(epc.length());
+            for (int i = 0; i < epc.length(); i++) {
+                out.writeByte(epc.byteAt(i));
+            }
+        }
+        writeString(out, tag.getTid() != null ? tag.getTid() : "");
+        out.writeInt(tag.getCount());
+        out.writeShort(tag.getRssi());
+        out.writeShort(tag.getMinRssi());
+        out.writeShort(tag.getPeakRssi());
+        out.writeLong(tag.getRssiSum());
+        out.writeLong(nowMillis - (nowNanos - tag.getFirstSeenNanos()) / 1_000_000L);
+        out.writeLong(nowMillis - (nowNanos - tag.getLastSeenNanos()) / 1_000_000L);
+    }
+
+    private static void readTag(ByteBuffer in, TagCache cache, String dedupKey, long nowNanos, long nowMillis) {
+        EpcKey epc;
+        if (in.get() == KEY_TEXT) {
+            epc = EpcKey.of(readString(in));
+        } else {
+            byte[] keyBytes = new byte[in.getShort() & 0xFFFF];
+            in.get(keyBytes);
+            epc = EpcKey.of(keyBytes, 0, keyBytes.length);
+        }
+        String tid = readString(in);
+        EPC tag = new EPC();
+        tag.setId("");
+        tag.setTid(tid);
+        EpcKey key = TagAggregationBuffer.keyOf(dedupKey, epc, tag.getTidKey());
+        tag.setKeys(key, epc);
+        int count = in.getInt();
+        int rssi = in.getShort();
+        int min = in.getShort();
+        int peak = in.getShort();
+        long rssiSum = in.getLong();
+        long firstSeen = nowNanos - (nowMillis - in.getLong()) * 1_000_000L;
+        long lastSeen = nowNanos - (nowMillis - in.getLong()) * 1_000_000L;
+        tag.restore(count, rssi, min, peak, rssiSum, firstSeen, lastSeen);
+        cache.merge(key, tag);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Always-on counters of the inventory pipeline: raw reads, new unique tags, batch sizes, the
+ * time from the reader callback to the Flutter emission and the delay of the main-thread queue.
+ *
+ * Recording never locks: counters are striped over padded cells of an AtomicLongArray so that
+ * threads do not contend on one cache line, and histograms are fixed power-of-two buckets
+ * incremented atomically. Only {@link #snapshot} synchronizes, to turn the counters into rates
+ * since the previous snapshot of the same {@link RateWindow}; each consumer of the stats keeps
+ * its own window so that one polling does not shorten the other's.
+ */
+public class InventoryMetrics {
+    /** Rates are only recomputed once the previous window is at least this old. */
+    private static final long MIN_RATE_WINDOW_NANOS = 250_000_000L;
+
+    /**
+     * Sum of per-thread cells, each on its own 64-byte line.
+     */
+    static final class Counter {
+        private static final int STRIPES = 4;
+        private static final int PAD = 8; // longs per cache line
+
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+
+        void add(long delta) {
+            int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+            cells.addAndGet(stripe * PAD, delta);
+        }
+
+        void increment() {
+            add(1);
+        }
+
+        long sum() {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += cells.get(i * PAD);
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Histogram of non-negative values in power-of-two buckets: bucket i holds [2^(i-1), 2^i).
+     * Percentiles are reported as the upper bound of their bucket, so they are accurate to a
+     * factor of two, which is plenty to tell 5 ms from 50 ms.
+     */
+    static final class Histogram {
+        private static final int BUCKETS = 40;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final Counter count = new Counter();
+        private final Counter total = new Counter();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long value) {
+            if (value < 0) value = 0;
+            int bucket = Math.min(64 - Long.numberOfLeadingZeros(value), BUCKETS - 1);
+            buckets.incrementAndGet(bucket);
+            count.increment();
+            total.add(value);
+            long current;
+            while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+                // retry
+            }
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        /**
+         * @param fraction e.g. 0.99
+         * @return upper bound of the bucket holding the percentile, or 0 without samples
+         */
+        long percentile(double fraction) {
+            long[] counts = new long[BUCKETS];
+            long samples = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                samples += counts[i];
+            }
+            if (samples == 0) return 0;
+            long rank = (long) Math.ceil(samples * fraction);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(i == 0 ? 0 : 1L << i, max.get());
+                }
+            }
+            return max.get();
+        }
+
+        Map<String, Object> toMap(long divisor) {
+            long samples = count();
+            Map<String, Object> map = new HashMap<>();
+            map.put("count", samples);
+            map.put("mean", samples > 0 ? total.sum() / samples / divisor : 0L);
+            map.put("p50", percentile(0.50) / divisor);
+            map.put("p90", percentile(0.90) / divisor);
+            map.put("p99", percentile(0.99) / divisor);
+            map.put("max", max.get() / divisor);
+            return map;
+        }
+    }
+
+    /**
+     * Totals at the start of a consumer's rate window and the rates of its last window. Guarded
+     * by the InventoryMetrics it came from.
+     */
+    static final class RateWindow {
+        private long startNanos;
+        private long reads;
+        private long unique;
+        private double readsPerSecond;
+        private double uniquePerSecond;
+
+        private RateWindow(long startNanos, long reads, long unique) {
+            this.startNanos = startNanos;
+            this.reads = reads;
+            this.unique = unique;
+        }
+    }
+
+    private final Counter reads = new Counter();
+    private final Counter uniqueTags = new Counter();
+    private final Counter batches = new Counter();
+    private final Counter emits = new Counter();
+    private final Counter conflatedUpdates = new Counter();
+    private final Counter deltaOverflows = new Counter();
+    private final Histogram batchSizes = new Histogram();
+    private final Histogram emitLatencyNanos = new Histogram();
+    private final Histogram mainQueueDelayNanos = new Histogram();
+    private final Histogram commandLatencyNanos = new Histogram();
+
+    // Window of snapshot() callers without one of their own, guarded by this
+    private final RateWindow defaultWindow = new RateWindow(System.nanoTime(), 0, 0);
+
+    /** One raw read from the reader callback. */
+    public void onRead() {
+        reads.increment();
+    }
+
+    /**
+     * One drained batch.
+     *
+     * @param distinctTags distinct tags in the batch
+     * @param newTags      tags not in the tag list before
+     */
+    public void onBatch(int distinctTags, int newTags) {
+        batches.increment();
+        batchSizes.record(distinctTags);
+        uniqueTags.add(newTags);
+    }
+
+    /**
+     * A tag update reached the Flutter listener.
+     *
+     * @param oldestReadNanos System.nanoTime() of the oldest read it carries, 0 if unknown
+     * @param queueDelayNanos time the update waited in the main-thread queue
+     */
+    public void onEmit(long oldestReadNanos, long queueDelayNanos, long nowNanos) {
+        emits.increment();
+        mainQueueDelayNanos.record(queueDelayNanos);
+        if (oldestReadNanos != 0) {
+            emitLatencyNanos.record(nowNanos - oldestReadNanos);
+        }
+    }
+
+    /** A tag update was held back for a slow consumer and merged into a later one. */
+    public void onConflated() {
+        conflatedUpdates.increment();
+    }
+
+    /** Held-back deltas outgrew their bound and were replaced by a snapshot. */
+    public void onDeltaOverflow() {
+        deltaOverflows.increment();
+    }
+
+    /** A reader command completed this long after it was submitted. */
+    public void onCommand(long latencyNanos) {
+        commandLatencyNanos.record(latencyNanos);
+    }
+
+    public long getReads() {
+        return reads.sum();
+    }
+
+    /**
+     * @return a rate window starting now, for a consumer that samples on its own schedule
+     */
+    public synchronized RateWindow newRateWindow(long nowNanos) {
+        return new RateWindow(nowNanos, reads.sum(), uniqueTags.sum());
+    }
+
+    public Map<String, Object> snapshot(int tagCount, long evictions, long droppedReads,
+                                        long filteredReads, long nowNanos) {
+        return snapshot(tagCount, evictions, droppedReads, filteredReads, nowNanos, defaultWindow);
+    }
+
+    /**
+     * Counters of this object plus the given gauges of other components, as sent to Flutter.
+     * Latencies are in milliseconds except the main-thread queue delay and the reader command
+     * latency, in microseconds. Rates cover the time since the previous snapshot of the window.
+     */
+    public synchronized Map<String, Object> snapshot(int tagCount, long evictions, long droppedReads,
+                                                     long filteredReads, long nowNanos, RateWindow window) {
+        long totalReads = reads.sum();
+        long totalUnique = uniqueTags.sum();
+        long elapsed = nowNanos - window.startNanos;
+        if (elapsed >= MIN_RATE_WINDOW_NANOS) {
+            window.readsPerSecond = (totalReads - window.reads) * 1e9 / elapsed;
+            window.uniquePerSecond = (totalUnique - window.unique) * 1e9 / elapsed;
+            window.startNanos = nowNanos;
+            window.reads = totalReads;
+            window.unique = totalUnique;
+        }
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("reads", totalReads);
+        map.put("readsPerSecond", window.readsPerSecond);
+        map.put("uniqueTags", totalUnique);
+        map.put("uniquePerSecond", window.uniquePerSecond);
+        map.put("tagCount", tagCount);
+        map.put("batches", batches.sum());
+        map.put("emits", emits.sum());
+        map.put("conflatedUpdates", conflatedUpdates.sum());
+        map.put("deltaOverflows", deltaOverflows.sum());
+        map.put("batchSize", batchSizes.toMap(1));
+        map.put("emitLatencyMs", emitLatencyNanos.toMap(1_000_000L));
+        map.put("mainQueueDelayUs", mainQueueDelayNanos.toMap(1_000L));
+        map.put("commandLatencyUs", commandLatencyNanos.toMap(1_000L));
+        map.put("evictions", evictions);
+        map.put("droppedReads", droppedReads);
+        map.put("filteredReads", filteredReads);
+        return map;
+    }
+}
@@ -3,13 +3,31 @@ package com.example.rfid_c72_plugin;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * One location update for Flutter. UHFHelper keeps a single instance and refills it for every
+ * emission on the main thread, where the map is also serialized, so updates do not allocate.
+ */
 public class LocationData {
-    private final int value;
-    private final boolean valid;
+    private int value;
+    private boolean valid;
+    private int raw;
+    private double trend;
+    private double confidence;
+    private final Map<String, Object> json = new HashMap<>();
+
+    public LocationData() {
+    }
 
     public LocationData(int value, boolean valid) {
+        set(value, valid, value, 0, valid ? 1 : 0);
+    }
+
+    public void set(int value, boolean valid, int raw, double trend, double confidence) {
         this.value = value;
         this.valid = valid;
+        this.raw = raw;
+        this.trend = trend;
+        this.confidence = confidence;
     }
 
     public int getValue() {
@@ -20,10 +38,27 @@ public class LocationData {
         return valid;
     }
 
+    public int getRaw() {
+        return raw;
+    }
+
+    public double getTrend() {
+        return trend;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    /**
+     * @return the same map on every call, updated to the current values
+     */
     public Map<String, Object> toMap() {
-        Map<String, Object> json = new HashMap<>();
         json.put("value", value);
         json.put("valid", valid);
+        json.put("raw", raw);
+        json.put("trend", trend);
+        json.put("confidence", confidence);
         return json;
     }
 }
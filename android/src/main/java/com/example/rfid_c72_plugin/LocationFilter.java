@@ -0,0 +1,209 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.Arrays;
+
+/**
+ * Smooths the raw 0..100 proximity values of tag location and derives a trend and a confidence
+ * from them.
+ *
+ * Filters: {@link #FILTER_NONE}, an exponential moving average ({@link #FILTER_EMA}), a
+ * one-dimensional Kalman filter with a random-walk model ({@link #FILTER_KALMAN}) or the median
+ * of the last readings ({@link #FILTER_MEDIAN}). Invalid readings (tag not seen) leave the value
+ * alone but lower the confidence.
+ *
+ * Not thread-safe; {@link #update} runs on the reader's callback thread and readers of the result
+ * synchronize with it. Nothing is allocated per reading.
+ */
+public class LocationFilter {
+    public static final String FILTER_NONE = "none";
+    public static final String FILTER_EMA = "ema";
+    public static final String FILTER_KALMAN = "kalman";
+    public static final String FILTER_MEDIAN = "median";
+
+    public static final double DEFAULT_ALPHA = 0.3;
+    public static final int DEFAULT_WINDOW = 5;
+    public static final int MAX_WINDOW = 31;
+    public static final double DEFAULT_PROCESS_NOISE = 4.0;
+    public static final double DEFAULT_MEASUREMENT_NOISE = 64.0;
+
+    /** Smoothing of the trend, the validity ratio and the residual variance. */
+    private static final double STATS_ALPHA = 0.2;
+    /** Residual standard deviation at which the stability half of the confidence is 0.5. */
+    private static final double NOISE_SCALE = 10.0;
+
+    private final String mode;
+    private final double alpha;
+    private final double processNoise;
+    private final double measurementNoise;
+    private final int[] window;
+    private final int[] sorted;
+
+    private int windowCount;
+    private int windowNext;
+    private boolean initialized;
+    private double value;
+    private double variance; // Kalman estimate variance
+    private int raw;
+    private boolean lastValid;
+    private long lastValidNanos;
+    private double trend;
+    private double validRatio;
+    private double residualVariance;
+
+    /**
+     * @param mode             one of the FILTER_ constants
+     * @param alpha            EMA weight of a new reading, in (0, 1]
+     * @param windowSize       median window, 1..{@link #MAX_WINDOW}
+     * @param processNoise     Kalman variance added per reading (how fast the distance may change)
+     * @param measurementNoise Kalman variance of a reading
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public LocationFilter(String mode, double alpha, int windowSize, double processNoise, double measurementNoise) {
+        if (!FILTER_NONE.equals(mode) && !FILTER_EMA.equals(mode) && !FILTER_KALMAN.equals(mode)
+                && !FILTER_MEDIAN.equals(mode)) {
+            throw new IllegalArgumentException("Unknown location filter: " + mode);
+        }
+        if (!(alpha > 0 && alpha <= 1) || windowSize < 1 || windowSize > MAX_WINDOW
+                || !(processNoise > 0) || !(measurementNoise > 0)) {
+            throw new IllegalArgumentException("Invalid location filter parameters");
+        }
+        this.mode = mode;
+        this.alpha = alpha;
+        this.processNoise = processNoise;
+        this.measurementNoise = measurementNoise;
+        this.window = new int[windowSize];
+        this.sorted = new int[windowSize];
+    }
+
+    public LocationFilter() {
+        this(FILTER_EMA, DEFAULT_ALPHA, DEFAULT_WINDOW, DEFAULT_PROCESS_NOISE, DEFAULT_MEASUREMENT_NOISE);
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * @return a filter with the same settings and no readings
+     */
+    public LocationFilter copySettings() {
+        return new LocationFilter(mode, alpha, window.length, processNoise, measurementNoise);
+    }
+
+    /**
+     * Feeds one reading of the module.
+     */
+    public void update(int reading, boolean valid, long nowNanos) {
+        lastValid = valid;
+        validRatio += STATS_ALPHA * ((valid ? 1.0 : 0.0) - validRatio);
+        if (!valid) {
+            return;
+        }
+        raw = reading;
+        if (!initialized) {
+            initialized = true;
+            value = reading;
+            variance = measurementNoise;
+            lastValidNanos = nowNanos;
+            if (FILTER_MEDIAN.equals(mode)) {
+                push(reading);
+            }
+            return;
+        }
+
+        double previous = value;
+        switch (mode) {
+            case FILTER_EMA:
+                value += alpha * (reading - value);
+                break;
+            case FILTER_KALMAN:
+                variance += processNoise;
+                double gain = variance / (variance + measurementNoise);
+                value += gain * (reading - value);
+                variance *= 1 - gain;
+                break;
+            case FILTER_MEDIAN:
+                push(reading);
+                value = median();
+                break;
+            default:
+                value = reading;
+        }
+
+        double residual = reading - value;
+        residualVariance += STATS_ALPHA * (residual * residual - residualVariance);
+        long elapsed = nowNanos - lastValidNanos;
+        if (elapsed > 0) {
+            double slope = (value - previous) * 1e9 / elapsed;
+            trend += STATS_ALPHA * (slope - trend);
+        }
+        lastValidNanos = nowNanos;
+    }
+
+    private void push(int reading) {
+        window[windowNext] = reading;
+        windowNext = (windowNext + 1) % window.length;
+        if (windowCount < window.length) {
+            windowCount++;
+        }
+    }
+
+    private double median() {
+        System.arraycopy(window, 0, sorted, 0, windowCount);
+        Arrays.sort(sorted, 0, windowCount);
+        int middle = windowCount / 2;
+        return windowCount % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2.0;
+    }
+
+    /**
+     * @return true once a valid reading was seen
+     */
+    public boolean hasValue() {
+        return initialized;
+    }
+
+    /** Smoothed proximity, 0..100. */
+    public double getValue() {
+        return value;
+    }
+
+    /** Last valid raw reading. */
+    public int getRaw() {
+        return raw;
+    }
+
+    /** Whether the latest reading was valid. */
+    public boolean isLastValid() {
+        return lastValid;
+    }
+
+    /** Change of the smoothed value per second; positive means getting closer. */
+    public double getTrend() {
+        return trend;
+    }
+
+    /**
+     * 0..1: the share of recent readings that were valid, scaled down by how much the readings
+     * scatter around the smoothed value.
+     */
+    public double getConfidence() {
+        double stability = 1.0 / (1.0 + Math.sqrt(residualVariance) / NOISE_SCALE);
+        return validRatio * stability;
+    }
+
+    /**
+     * Forgets all readings, e.g. when a different tag is located.
+     */
+    public void reset() {
+        initialized = false;
+        windowCount = 0;
+        windowNext = 0;
+        value = 0;
+        variance = 0;
+        raw = 0;
+        lastValid = false;
+        trend = 0;
+        validRatio = 0;
+        residualVariance = 0;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Proximity of several target tags at once, from the reads of a continuous inventory.
+ *
+ * Targets are looked up by their {@link EpcKey} in an {@link EpcMap}, so a read of any other
+ * tag costs one parse into a scratch key and one probe. Each target has its own
+ * {@link LocationFilter} over the RSSI mapped to 0..100 like the module's location value. A
+ * target that was not read for {@code absenceNanos} is fed an invalid reading per tick, which
+ * lowers its confidence while keeping its last proximity.
+ *
+ * {@link #onRead} runs on the reader callback thread, {@link #tick} on the scheduler thread; both
+ * synchronize on this object.
+ */
+public class MultiTagLocator {
+    /** RSSI, in tenths of a dBm, mapped to proximity 0 and 100. */
+    public static final int MIN_RSSI = -750;
+    public static final int MAX_RSSI = -450;
+    public static final int MAX_TARGETS = 1000;
+
+    private static final class Target {
+        final LocationFilter filter;
+        int rssi;
+        long lastReadNanos;
+        boolean readSinceTick;
+        boolean changed;
+
+        Target(LocationFilter filter) {
+            this.filter = filter;
+        }
+    }
+
+    private final EpcMap<Integer> indexes;
+    private final Target[] targets;
+    private final long absenceNanos;
+    private final EpcKey scratchKey = new EpcKey(); // reader callback thread only
+
+    /**
+     * @param epcs         targets; updates refer to them by their position in this list
+     * @param template     settings of the per-target filters
+     * @param absenceNanos time without reads after which a target counts as not seen
+     * @throws IllegalArgumentException if the list is empty, too long or has duplicates
+     */
+    public MultiTagLocator(List<String> epcs, LocationFilter template, long absenceNanos) {
+        if (epcs == null || epcs.isEmpty() || epcs.size() > MAX_TARGETS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_TARGETS + " EPCs are required");
+        }
+        this.absenceNanos = absenceNanos;
+        indexes = new EpcMap<>(epcs.size());
+        targets = new Target[epcs.size()];
+        for (int i = 0; i < targets.length; i++) {
+            String epc = epcs.get(i);
+            if (epc == null || epc.isEmpty() || indexes.put(EpcKey.of(epc), i) != null) {
+                throw new IllegalArgumentException("Invalid or duplicate EPC: " + epc);
+            }
+            targets[i] = new Target(template.copySettings());
+        }
+    }
+
+    public int size() {
+        return targets.length;
+    }
+
+    /**
+     * Records a read if the tag is a target.
+     *
+     * @param rssi tenths of a dBm
+     * @return false if the tag is not a target
+     */
+    public boolean onRead(String epc, int rssi, long nowNanos) {
+        Integer index = indexes.get(scratchKey.set(epc));
+        if (index == null) {
+            return false;
+        }
+        synchronized (this) {
+            Target target = targets[index];
+            target.filter.update(proximityOf(rssi), true, nowNanos);
+            target.rssi = rssi;
+            target.lastReadNanos = nowNanos;
+            target.readSinceTick = true;
+            target.changed = true;
+        }
+        return true;
+    }
+
+    static int proximityOf(int rssi) {
+        int value = (rssi - MIN_RSSI) * 100 / (MAX_RSSI - MIN_RSSI);
+        return Math.max(0, Math.min(100, value));
+    }
+
+    /**
+     * Ages targets that were not read and collects the ones that changed since the last tick,
+     * column by column: "index", "proximity", "rssi" (tenths of a dBm), "trend" (proximity per
+     * second), "confidence" (0..1), plus "closest", the index of the target with the highest
+     * proximity among those currently seen, or -1.
+     *
+     * @return the update, or null if nothing changed
+     */
+    public synchronized Map<String, Object> tick(long nowNanos) {
+        int changed = 0;
+        int closest = -1;
+        double closestValue = -1;
+        for (int i = 0; i < targets.length; i++) {
+            Target target = targets[i];
+            if (!target.readSinceTick && target.filter.hasValue() && nowNanos - target.lastReadNanos >= absenceNanos
+                    && (target.filter.isLastValid() || target.filter.getConfidence() > 0.01)) {
+                target.filter.update(0, false, nowNanos);
+                target.changed = true;
+            }
+            target.readSinceTick = false;
+            if (target.changed) {
+                changed++;
+            }
+            if (target.filter.isLastValid() && target.filter.getValue() > closestValue) {
+                closestValue = target.filter.getValue();
+                closest = i;
+            }
+        }
+        if (changed == 0) {
+            return null;
+        }
+
+        int[] index = new int[changed];
+        int[] proximity = new int[changed];
+        int[] rssi = new int[changed];
+        double[] trend = new double[changed];
+        double[] confidence = new double[changed];
+        int row = 0;
+        for (int i = 0; i < targets.length; i++) {
+            Target target = targets[i];
+            if (!target.changed) continue;
+            target.changed = false;
+            index[row] = i;
+            proximity[row] = (int) Math.round(target.filter.getValue());
+            rssi[row] = target.rssi;
+            trend[row] = target.filter.getTrend();
+            confidence[row] = target.filter.getConfidence();
+            row++;
+        }
+        Map<String, Object> update = new HashMap<>();
+        update.put("index", index);
+        update.put("proximity", proximity);
+        update.put("rssi", rssi);
+        update.put("trend", trend);
+        update.put("confidence", confidence);
+        update.put("closest", closest);
+        return update;
+    }
+}
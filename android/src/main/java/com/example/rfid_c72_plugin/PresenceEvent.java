@@ -0,0 +1,41 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class PresenceEvent {
+    private final EpcKey epc;
+    private final String event;
+    private final long seenNanos;
+
+    public PresenceEvent(EpcKey epc, String event, long seenNanos) {
+        this.epc = epc;
+        this.event = event;
+        this.seenNanos = seenNanos;
+    }
+
+    public EpcKey getEpc() {
+        return epc;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public long getSeenNanos() {
+        return seenNanos;
+    }
+
+    /**
+     * @param nowNanos   System.nanoTime() when the map is built
+     * @param nowMillis  wall clock at the same moment, to turn the sighting into a timestamp
+     */
+    public Map<String, Object> toMap(long nowNanos, long nowMillis) {
+        Map<String, Object> json = new HashMap<>();
+        json.put("epc", epc.toString());
+        json.put("event", event);
+        // arrived: first sighting, departed: last sighting
+        json.put("timestamp", nowMillis - (nowNanos - seenNanos) / 1_000_000L);
+        return json;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.List;
+
+/**
+ * Tracks which tags are currently in the field and reports arrivals and departures.
+ *
+ * A tag departs when it has not been seen for the absence window. Deadlines are kept in a
+ * hashed timer wheel: each tag sits in the slot of the tick at which it would expire, and a
+ * sighting only updates its last-seen time. When a slot comes due, the tags in it are either
+ * reported as departed or moved to the slot of their new deadline, so a tick only touches tags
+ * whose deadline might have passed instead of scanning every tag.
+ *
+ * Not thread-safe; UHFHelper calls it from the flush thread under the tag list monitor.
+ */
+public class PresenceTracker {
+    public static final String EVENT_ARRIVED = "arrived";
+    public static final String EVENT_DEPARTED = "departed";
+
+    private static final long DEFAULT_RESOLUTION_NANOS = 50_000_000L; // 50 ms
+
+    private static final class Entry {
+        final EpcKey key;
+        final EpcKey epc;
+        long lastSeenNanos;
+        Entry next;
+
+        Entry(EpcKey key, EpcKey epc) {
+            this.key = key;
+            this.epc = epc;
+        }
+    }
+
+    private final EpcMap<Entry> entries = new EpcMap<>(256);
+    private final long resolutionNanos;
+    private long absenceNanos;
+    private Entry[] wheel;
+    private long currentTick = Long.MIN_VALUE;
+
+    public PresenceTracker(long absenceMs) {
+        this(absenceMs, DEFAULT_RESOLUTION_NANOS);
+    }
+
+    PresenceTracker(long absenceMs, long resolutionNanos) {
+        this.resolutionNanos = resolutionNanos;
+        setAbsenceWindow(absenceMs);
+    }
+
+    /**
+     * Changes the absence window. Tags already present are rescheduled lazily.
+     */
+    public void setAbsenceWindow(long absenceMs) {
+        this.absenceNanos = absenceMs * 1_000_000L;
+        int slots = (int) (absenceNanos / resolutionNanos) + 2;
+        Entry[] old = wheel;
+        wheel = new Entry[slots];
+        if (old != null) {
+            for (Entry head : old) {
+                Entry entry = head;
+                while (entry != null) {
+                    Entry next = entry.next;
+                    schedule(entry);
+                    entry = next;
+                }
+            }
+        }
+    }
+
+    public long getAbsenceWindowMs() {
+        return absenceNanos / 1_000_000L;
+    }
+
+    /**
+     * Records that a tag was seen; emits an arrival for tags not currently present.
+     *
+     * @param key identity of the tag (see TagAggregationBuffer.setDedupKey)
+     * @param epc its EPC, which is what the events report
+     */
+    public void onSeen(EpcKey key, EpcKey epc, long seenNanos, List<PresenceEvent> events) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(key, epc);
+            entry.lastSeenNanos = seenNanos;
+            entries.put(key, entry);
+            schedule(entry);
+            events.add(new PresenceEvent(epc, EVENT_ARRIVED, seenNanos));
+        } else if (seenNanos > entry.lastSeenNanos) {
+            entry.lastSeenNanos = seenNanos;
+        }
+    }
+
+    /**
+     * Processes the wheel slots up to {@code nowNanos} and emits departures.
+     */
+    public void advance(long nowNanos, List<PresenceEvent> events) {
+        long targetTick = nowNanos / resolutionNanos;
+        if (currentTick == Long.MIN_VALUE || targetTick - currentTick > wheel.length) {
+            // First call or a long stall: one pass over the whole wheel is enough
+            currentTick = targetTick - wheel.length;
+        }
+        while (currentTick < targetTick) {
+            currentTick++;
+            int index = slotOf(currentTick);
+            Entry entry = wheel[index];
+            wheel[index] = null;
+            while (entry != null) {
+                Entry next = entry.next;
+                entry.next = null;
+                if (nowNanos - entry.lastSeenNanos >= absenceNanos) {
+                    entries.remove(entry.key);
+                    events.add(new PresenceEvent(entry.epc, EVENT_DEPARTED, entry.lastSeenNanos));
+                } else {
+                    schedule(entry);
+                }
+                entry = next;
+            }
+        }
+    }
+
+    public boolean isPresent(EpcKey key) {
+        return entries.get(key) != null;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = null;
+        }
+    }
+
+    private void schedule(Entry entry) {
+        long tick = (entry.lastSeenNanos + absenceNanos) / resolutionNanos + 1;
+        if (currentTick != Long.MIN_VALUE && tick <= currentTick) {
+            tick = currentTick + 1;
+        }
+        int index = slotOf(tick);
+        entry.next = wheel[index];
+        wheel[index] = entry;
+    }
+
+    private int slotOf(long tick) {
+        // nanoTime may be negative, keep the index in range
+        long index = tick % wheel.length;
+        return (int) (index < 0 ? index + wheel.length : index);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.rfid_c72_plugin;
+
+import android.util.Log;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Serializes every command to the reader on one owned thread and tracks what the reader is
+ * doing: {@link #STATE_IDLE}, {@link #STATE_INVENTORY}, {@link #STATE_LOCATING} (one tag, in the
+ * module's location mode) or {@link #STATE_MULTI_LOCATING} (several tags, over inventory).
+ *
+ * The vendor SDK is not safe to call from several threads and some calls block for a while
+ * (e.g. switching to location mode), so commands never run on the main thread and never
+ * overlap. Nothing polls: continuous inventory and location report through the reader's own
+ * callbacks, and the thread sleeps on the queue between commands.
+ *
+ * The state is only changed by commands, so a command sees a state no other command changes
+ * under it; other threads may read it at any time. The time from submission to completion of
+ * every command is recorded in {@link InventoryMetrics}.
+ */
+public class ReaderCommandExecutor {
+    private static final String TAG = "ReaderCommandExecutor";
+
+    public static final String STATE_IDLE = "idle";
+    public static final String STATE_INVENTORY = "inventory";
+    public static final String STATE_LOCATING = "locating";
+    public static final String STATE_MULTI_LOCATING = "multiLocating";
+
+    public interface Command<T> {
+        T run();
+    }
+
+    public interface Callback<T> {
+        /** Called on the command thread. */
+        void onDone(T value);
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "RfidReaderCommands"));
+    private final InventoryMetrics metrics;
+    private volatile String state = STATE_IDLE;
+
+    public ReaderCommandExecutor(InventoryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    /**
+     * Moves to a new state. Commands only.
+     */
+    public void setState(String state) {
+        if (!state.equals(this.state)) {
+            Log.d(TAG, this.state + " -> " + state);
+            this.state = state;
+        }
+    }
+
+    /**
+     * Queues a command.
+     *
+     * @param fallback value reported if the command throws or the executor is shut down
+     * @param callback receives the result on the command thread; may be null
+     */
+    public <T> void submit(final String name, final Command<T> command, final T fallback, final Callback<T> callback) {
+        final long submitted = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                T value = run(name, command, fallback, submitted);
+                if (callback != null) {
+                    callback.onDone(value);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Reader command after shutdown: " + name);
+            if (callback != null) {
+                callback.onDone(fallback);
+            }
+        }
+    }
+
+    /**
+     * Runs a command and waits up to {@code timeoutMs} for it, for callers that cannot continue
+     * without the result. Never call it from the command thread.
+     */
+    public <T> T call(final String name, final Command<T> command, final T fallback, long timeoutMs) {
+        final long submitted = System.nanoTime();
+        try {
+            Future<T> future = executor.submit(() -> run(name, command, fallback, submitted));
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException | ExecutionException | TimeoutException e) {
+            Log.e(TAG, "Reader command failed: " + name, e);
+            return fallback;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback;
+        }
+    }
+
+    private <T> T run(String name, Command<T> command, T fallback, long submitted) {
+        T value = fallback;
+        try {
+            value = command.run();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Reader command failed: " + name, e);
+        }
+        metrics.onCommand(System.nanoTime() - submitted);
+        return value;
+    }
+
+    /**
+     * Lets queued commands finish, then stops the thread.
+     */
+    public void shutdown(long timeoutMs) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                Log.e(TAG, "Reader commands did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+}
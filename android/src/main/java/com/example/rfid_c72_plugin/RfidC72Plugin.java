@@ -1,15 +1,13 @@
 package com.example.rfid_c72_plugin;
 
 import android.content.Context;
-import android.util.Log;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 
-import io.reactivex.Observer;
-import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.Observable;
 import io.reactivex.annotations.NonNull;
-import io.reactivex.disposables.Disposable;
-import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.PublishSubject;
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.plugin.common.BinaryMessenger;
@@ -52,23 +50,73 @@ public class RfidC72Plugin implements FlutterPlugin, MethodCallHandler {
   private static final String CHANNEL_stopTagLocation = "stopTagLocation";
   private static final String CHANNEL_isLocationRunning = "isLocationRunning";
   private static final String CHANNEL_setLocationDynamicDistance = "setLocationDynamicDistance";
+  private static final String CHANNEL_configureLocationFilter = "configureLocationFilter";
+
+  private static final String CHANNEL_setTagStreamMode = "setTagStreamMode";
+  private static final String CHANNEL_requestTagSnapshot = "requestTagSnapshot";
+  private static final String CHANNEL_setTagStreamEncoding = "setTagStreamEncoding";
+  private static final String CHANNEL_configureInventoryStream = "configureInventoryStream";
+  private static final String CHANNEL_setTagEvictionPolicy = "setTagEvictionPolicy";
+  private static final String CHANNEL_getEvictedTagCount = "getEvictedTagCount";
+  private static final String CHANNEL_configurePresence = "configurePresence";
+  private static final String CHANNEL_presenceEventSubject = "presenceEventSubject";
+  private static final String CHANNEL_useSimulatedReader = "useSimulatedReader";
+  private static final String CHANNEL_configureJournal = "configureJournal";
+  private static final String CHANNEL_exportSession = "exportSession";
+  private static final String CHANNEL_setTagDedupKey = "setTagDedupKey";
+  private static final String CHANNEL_loadExpectedTags = "loadExpectedTags";
+  private static final String CHANNEL_getReconciliationList = "getReconciliationList";
+  private static final String CHANNEL_reconciliationEventSubject = "reconciliationEventSubject";
+  private static final String CHANNEL_setSelectFilter = "setSelectFilter";
+  private static final String CHANNEL_getGen2Params = "getGen2Params";
+  private static final String CHANNEL_setGen2Params = "setGen2Params";
+  private static final String CHANNEL_setEpcPrefixFilter = "setEpcPrefixFilter";
+  private static final String CHANNEL_getFilteredReadCount = "getFilteredReadCount";
+  private static final String CHANNEL_getInventoryStats = "getInventoryStats";
+  private static final String CHANNEL_configureInventoryStats = "configureInventoryStats";
+  private static final String CHANNEL_inventoryStatsSubject = "inventoryStatsSubject";
+  private static final String CHANNEL_startMultiTagLocation = "startMultiTagLocation";
+  private static final String CHANNEL_configureBarcode = "configureBarcode";
+  private static final String CHANNEL_configureAssociation = "configureAssociation";
+  private static final String CHANNEL_associationEventSubject = "associationEventSubject";
+  private static final String CHANNEL_configureAdaptivePower = "configureAdaptivePower";
+  private static final String CHANNEL_powerDecisionSubject = "powerDecisionSubject";
+  private static final String CHANNEL_multiTagLocationSubject = "multiTagLocationSubject";
+  private static final String CHANNEL_configureTagStreamFlow = "configureTagStreamFlow";
+  private static final String CHANNEL_requestTagUpdates = "requestTagUpdates";
 
   private static PublishSubject<Boolean> connectedStatusSubject = PublishSubject.create();
-  private static PublishSubject<String> tagsStatusSubject = PublishSubject.create();
+  private static PublishSubject<Object> tagsStatusSubject = PublishSubject.create();
   private static PublishSubject<String> barcodeScanSubject = PublishSubject.create();
 
   private static PublishSubject<Map<String, Object>> locationValueSubject = PublishSubject.create();
+  private static PublishSubject<List<Map<String, Object>>> presenceEventSubject = PublishSubject.create();
+  private static PublishSubject<Map<String, Object>> reconciliationEventSubject = PublishSubject.create();
+  private static PublishSubject<Map<String, Object>> inventoryStatsSubject = PublishSubject.create();
+  private static PublishSubject<Map<String, Object>> multiTagLocationSubject = PublishSubject.create();
+  private static PublishSubject<Map<String, Object>> associationEventSubject = PublishSubject.create();
+  private static PublishSubject<Map<String, Object>> powerDecisionSubject = PublishSubject.create();
+
+  private MethodChannel methodChannel;
+  private final List<EventChannel> eventChannels = new ArrayList<>();
+  private final List<SubjectStreamHandler<?>> streamHandlers = new ArrayList<>();
 
   @Override
   public void onAttachedToEngine(@NonNull FlutterPluginBinding binding) {
     BinaryMessenger messenger = binding.getBinaryMessenger();
-    final MethodChannel channel = new MethodChannel(messenger, "rfid_c72_plugin");
-    channel.setMethodCallHandler(new RfidC72Plugin());
+    methodChannel = new MethodChannel(messenger, "rfid_c72_plugin");
+    methodChannel.setMethodCallHandler(this);
     // Initialize your event channels and listeners
-    initConnectedEvent(messenger);
-    initRfidReadEvent(messenger);
-    initBarcodeReadEvent(messenger);
-    initLocationValueEvent(messenger);
+    registerStream(messenger, CHANNEL_connectedStatusSubject, connectedStatusSubject);
+    registerStream(messenger, CHANNEL_tagsStatusSubject, tagsStatusSubject, true);
+    registerStream(messenger, CHANNEL_barcodeScanSubject, barcodeScanSubject, true);
+    registerStream(messenger, CHANNEL_locationValueSubject, locationValueSubject, true);
+    registerStream(messenger, CHANNEL_presenceEventSubject, presenceEventSubject);
+    registerStream(messenger, CHANNEL_reconciliationEventSubject, reconciliationEventSubject);
+    registerStream(messenger, CHANNEL_inventoryStatsSubject, inventoryStatsSubject);
+    registerStream(messenger, CHANNEL_multiTagLocationSubject, multiTagLocationSubject);
+    registerStream(messenger, CHANNEL_associationEventSubject, associationEventSubject);
+    registerStream(messenger, CHANNEL_powerDecisionSubject, powerDecisionSubject);
 
 
     Context applicationContext = binding.getApplicationContext();
@@ -76,11 +124,18 @@ public class RfidC72Plugin implements FlutterPlugin, MethodCallHandler {
     UHFHelper.getInstance().setUhfListener(new UHFListener() {
       @Override
       public void onRfidRead(String tagsJson) {
+        // Main thread; the tag stream sends it before returning, so flow control sees real delivery
         if (tagsJson != null)
           tagsStatusSubject.onNext(tagsJson);
       }
       @Override
+      public void onRfidBatch(byte[] tagsBatch) {
+        if (tagsBatch != null)
+          tagsStatusSubject.onNext(tagsBatch);
+      }
+      @Override
       public void onBarcodeRead(String barcodeScan) {
+        // Main thread; the barcode stream forwards it without another hop
         if (barcodeScan != null)
           barcodeScanSubject.onNext(barcodeScan);
       }
@@ -91,171 +146,60 @@ public class RfidC72Plugin implements FlutterPlugin, MethodCallHandler {
 
 
       @Override
-      public void onLocationValue(int value, boolean valid) {
-        locationValueSubject.onNext(new LocationData(value, valid).toMap());
+      public void onLocationData(LocationData location) {
+        // Called on the main thread with a reused payload; the direct stream serializes it right away
+        locationValueSubject.onNext(location.toMap());
       }
 
-
-    });
-  }
-
-
-  private static void initConnectedEvent(BinaryMessenger messenger) {
-    final EventChannel scannerEventChannel = new EventChannel(messenger, CHANNEL_connectedStatusSubject);
-    scannerEventChannel.setStreamHandler(new EventChannel.StreamHandler() {
       @Override
-      public void onListen(Object o, final EventChannel.EventSink eventSink) {
-        connectedStatusSubject
-          .subscribeOn(Schedulers.newThread())
-          .observeOn(AndroidSchedulers.mainThread()).subscribe(new Observer<Boolean>() {
-            @Override
-            public void onSubscribe(Disposable d) {
-
-            }
-
-            @Override
-            public void onNext(Boolean isRfidConnected) {
-              eventSink.success(isRfidConnected);
-            }
-
-            @Override
-            public void onError(Throwable e) {
-
-            }
-
-            @Override
-            public void onComplete() {
-
-            }
-          });
+      public void onPresenceEvents(List<Map<String, Object>> events) {
+        presenceEventSubject.onNext(events);
       }
 
       @Override
-      public void onCancel(Object o) {
-
+      public void onReconciliation(Map<String, Object> update) {
+        reconciliationEventSubject.onNext(update);
       }
-    });
-  }
 
-  private static void initRfidReadEvent(BinaryMessenger messenger) {
-    final EventChannel scannerEventChannel = new EventChannel(messenger, CHANNEL_tagsStatusSubject);
-    scannerEventChannel.setStreamHandler(new EventChannel.StreamHandler() {
       @Override
-      public void onListen(Object o, final EventChannel.EventSink eventSink) {
-        tagsStatusSubject
-          .subscribeOn(Schedulers.newThread())
-          .observeOn(AndroidSchedulers.mainThread()).subscribe(new Observer<String>() {
-            @Override
-            public void onSubscribe(Disposable d) {
-
-            }
-
-            @Override
-            public void onNext(String tag) {
-              eventSink.success(tag);
-            }
-
-            @Override
-            public void onError(Throwable e) {
-
-            }
-
-            @Override
-            public void onComplete() {
-
-            }
-          });
+      public void onInventoryStats(Map<String, Object> stats) {
+        inventoryStatsSubject.onNext(stats);
       }
 
       @Override
-      public void onCancel(Object o) {
-
+      public void onMultiTagLocation(Map<String, Object> update) {
+        multiTagLocationSubject.onNext(update);
       }
-    });
-  }
 
-  private static void initBarcodeReadEvent(BinaryMessenger messenger) {
-    final EventChannel scannerEventChannel = new EventChannel(messenger, CHANNEL_barcodeScanSubject);
-    scannerEventChannel.setStreamHandler(new EventChannel.StreamHandler() {
       @Override
-      public void onListen(Object o, final EventChannel.EventSink eventSink) {
-        barcodeScanSubject
-          .subscribeOn(Schedulers.newThread())
-          .observeOn(AndroidSchedulers.mainThread()).subscribe(new Observer<String>() {
-            @Override
-            public void onSubscribe(Disposable d) {
-
-            }
-
-            @Override
-            public void onNext(String value) {
-              eventSink.success(value);
-            }
-
-            @Override
-            public void onError(Throwable e) {
-
-            }
-
-            @Override
-            public void onComplete() {
-
-            }
-          });
+      public void onAssociation(Map<String, Object> association) {
+        associationEventSubject.onNext(association);
       }
 
       @Override
-      public void onCancel(Object o) {
-
+      public void onPowerDecision(Map<String, Object> decision) {
+        powerDecisionSubject.onNext(decision);
       }
-    });
-  }
 
 
-  private static void initLocationValueEvent(BinaryMessenger messenger) {
-    final EventChannel locationEventChannel = new EventChannel(messenger, CHANNEL_locationValueSubject);
-    locationEventChannel.setStreamHandler(new EventChannel.StreamHandler() {
-      @Override
-      public void onListen(Object arguments, final EventChannel.EventSink eventSink) {
-        Log.d("RfidC72Plugin", "Location event channel - onListen called");
-        locationValueSubject
-                .subscribeOn(Schedulers.newThread())
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(new Observer<Map<String, Object>>() {
-                  @Override
-                  public void onSubscribe(Disposable d) {
-                    Log.d("RfidC72Plugin", "Location subscription started");
-                  }
-
-                  @Override
-                  public void onNext(Map<String, Object> locationDataMap) {
-                    try {
-                      eventSink.success(locationDataMap);
-                    } catch (Exception e) {
-                      Log.e("RfidC72Plugin", "Error sending location data to Flutter", e);
-                    }
-                  }
-
-                  @Override
-                  public void onError(Throwable e) {
-                    Log.e("RfidC72Plugin", "Location stream error", e);
-                  }
-
-                  @Override
-                  public void onComplete() {
-                    Log.d("RfidC72Plugin", "Location stream completed");
-                  }
-                });
-      }
-
-      @Override
-      public void onCancel(Object arguments) {
-        Log.d("RfidC72Plugin", "Location event channel - onCancel called");
-      }
     });
   }
 
 
+  /**
+   * Attaches the subject to a new EventChannel; see {@link SubjectStreamHandler}.
+   */
+  private <T> void registerStream(BinaryMessenger messenger, String name, Observable<T> subject) {
+    registerStream(messenger, name, subject, false);
+  }
+
+  private <T> void registerStream(BinaryMessenger messenger, String name, Observable<T> subject, boolean onMainThread) {
+    EventChannel eventChannel = new EventChannel(messenger, name);
+    SubjectStreamHandler<T> handler = new SubjectStreamHandler<>(name, subject, onMainThread);
+    eventChannel.setStreamHandler(handler);
+    eventChannels.add(eventChannel);
+    streamHandlers.add(handler);
+  }
 
   @Override
   public void onMethodCall(@NonNull MethodCall call, @NonNull Result result) {
@@ -271,16 +215,16 @@ public class RfidC72Plugin implements FlutterPlugin, MethodCallHandler {
         result.success(UHFHelper.getInstance().isContinuousRfidReadActive());
         break;
       case CHANNEL_startRfidSingle:
-        result.success(UHFHelper.getInstance().startRfidSingle());
+        UHFHelper.getInstance().startRfidSingle(result);
         break;
       case CHANNEL_startRfidContinuous:
-        result.success(UHFHelper.getInstance().startRfidContinuous());
+        UHFHelper.getInstance().startRfidContinuous(result);
         break;
       case CHANNEL_startBarcodeContinuous:
         result.success(UHFHelper.getInstance().startBarcodeContinuous());
         break;
       case CHANNEL_stopRfid:
-        result.success(UHFHelper.getInstance().stopRfid());
+        UHFHelper.getInstance().stopRfid(result);
         break;
       case CHANNEL_clearData:
         UHFHelper.getInstance().clearData();
@@ -290,11 +234,10 @@ public class RfidC72Plugin implements FlutterPlugin, MethodCallHandler {
         result.success(UHFHelper.getInstance().isEmptyTags());
         break;
       case CHANNEL_closeRfidReader:
-        UHFHelper.getInstance().closeRfidReader();
-        result.success(true);
+        UHFHelper.getInstance().closeRfidReader(result);
         break;
       case CHANNEL_connectRfid:
-        result.success(UHFHelper.getInstance().connectRfid());
+        UHFHelper.getInstance().connectRfid(result);
         break;
       case CHANNEL_isRfidConnected:
         result.success(UHFHelper.getInstance().isRfidConnected());
@@ -313,11 +256,31 @@ public class RfidC72Plugin implements FlutterPlugin, MethodCallHandler {
         break;
       case CHANNEL_setPowerLevel:
         String powerLevel = call.argument("value");
-        result.success(UHFHelper.getInstance().setPowerLevel(powerLevel));
+        UHFHelper.getInstance().setPowerLevel(powerLevel, result);
+        break;
+      case CHANNEL_configureAdaptivePower:
+        Boolean adaptiveEnabled = call.argument("enabled");
+        UHFHelper.getInstance().configureAdaptivePower(Boolean.TRUE.equals(adaptiveEnabled),
+                call.<Integer>argument("minPower"),
+                call.<Integer>argument("maxPower"),
+                call.<Integer>argument("step"),
+                call.<Double>argument("zoneRssiDbm"),
+                call.<Double>argument("maxOutsideShare"),
+                call.<Integer>argument("intervalMs"), result);
         break;
       case CHANNEL_setWorkArea:
         String workArea = call.argument("value");
-        result.success(UHFHelper.getInstance().setWorkArea(workArea));
+        UHFHelper.getInstance().setWorkArea(workArea, result);
+        break;
+      case CHANNEL_configureBarcode:
+        String triggerMode = call.argument("triggerMode");
+        Integer duplicateWindowMs = call.argument("duplicateWindowMs");
+        result.success(UHFHelper.getInstance().configureBarcode(triggerMode, duplicateWindowMs));
+        break;
+      case CHANNEL_configureAssociation:
+        Boolean associationEnabled = call.argument("enabled");
+        result.success(UHFHelper.getInstance().configureAssociation(Boolean.TRUE.equals(associationEnabled),
+                call.<Integer>argument("windowMs"), call.<Integer>argument("maxTags")));
         break;
       case CHANNEL_readBarcode:
         result.success(UHFHelper.getInstance().readBarcode());
@@ -329,7 +292,7 @@ public class RfidC72Plugin implements FlutterPlugin, MethodCallHandler {
 
 
       case CHANNEL_stopTagLocation:
-        result.success(UHFHelper.getInstance().stopTagLocation());
+        UHFHelper.getInstance().stopTagLocation(result);
         break;
 
       case CHANNEL_isLocationRunning:
@@ -338,7 +301,171 @@ public class RfidC72Plugin implements FlutterPlugin, MethodCallHandler {
 
       case CHANNEL_setLocationDynamicDistance:
         int distance = call.argument("value");
-        result.success(UHFHelper.getInstance().setLocationDynamicDistance(distance));
+        UHFHelper.getInstance().setLocationDynamicDistance(distance, result);
+        break;
+
+      case CHANNEL_startMultiTagLocation:
+        List<String> locateEpcs = call.argument("epcs");
+        UHFHelper.getInstance().startMultiTagLocation(locateEpcs, result);
+        break;
+
+      case CHANNEL_configureLocationFilter:
+        result.success(UHFHelper.getInstance().configureLocationFilter(
+                call.<String>argument("filter"),
+                call.<Double>argument("alpha"),
+                call.<Integer>argument("window"),
+                call.<Double>argument("processNoise"),
+                call.<Double>argument("measurementNoise"),
+                call.<Integer>argument("maxRateHz")));
+        break;
+
+      case CHANNEL_setTagStreamMode:
+        String mode = call.argument("mode");
+        result.success(UHFHelper.getInstance().setTagStreamMode(mode));
+        break;
+
+      case CHANNEL_requestTagSnapshot:
+        UHFHelper.getInstance().requestTagSnapshot();
+        result.success(true);
+        break;
+
+      case CHANNEL_setTagStreamEncoding:
+        String encoding = call.argument("encoding");
+        result.success(UHFHelper.getInstance().setTagStreamEncoding(encoding));
+        break;
+
+      case CHANNEL_configureInventoryStream:
+        result.success(UHFHelper.getInstance().configureInventoryStream(
+                call.<Integer>argument("intervalMs"),
+                call.<Integer>argument("maxBatchSize"),
+                call.<Integer>argument("maxLatencyMs"),
+                call.<Boolean>argument("adaptive"),
+                call.<Integer>argument("maxTags")));
+        break;
+
+      case CHANNEL_setTagEvictionPolicy:
+        String policy = call.argument("policy");
+        Integer ttlMs = call.argument("ttlMs");
+        result.success(UHFHelper.getInstance().setTagEvictionPolicy(policy, ttlMs));
+        break;
+
+      case CHANNEL_getEvictedTagCount:
+        result.success(UHFHelper.getInstance().getEvictedTagCount());
+        break;
+
+      case CHANNEL_configurePresence:
+        Boolean presenceEnabled = call.argument("enabled");
+        Integer absenceMs = call.argument("absenceMs");
+        result.success(UHFHelper.getInstance().configurePresence(Boolean.TRUE.equals(presenceEnabled), absenceMs));
+        break;
+
+      case CHANNEL_configureJournal:
+        Boolean journalEnabled = call.argument("enabled");
+        UHFHelper.getInstance().configureJournal(Boolean.TRUE.equals(journalEnabled));
+        result.success(UHFHelper.getInstance().isJournalEnabled());
+        break;
+
+      case CHANNEL_setTagDedupKey:
+        String dedupKey = call.argument("key");
+        result.success(UHFHelper.getInstance().setTagDedupKey(dedupKey));
+        break;
+
+      case CHANNEL_exportSession:
+        String exportPath = call.argument("path");
+        String exportFormat = call.argument("format");
+        UHFHelper.getInstance().exportSession(exportPath, exportFormat != null ? exportFormat : TagExporter.FORMAT_CSV, result);
+        break;
+
+      case CHANNEL_loadExpectedTags:
+        byte[] expectedTags = call.argument("epcs");
+        try {
+          result.success(UHFHelper.getInstance().loadExpectedTags(expectedTags));
+        } catch (IllegalArgumentException e) {
+          result.error("INVALID_ARGUMENT", e.getMessage(), null);
+        }
+        break;
+
+      case CHANNEL_getReconciliationList:
+        String reconciliationList = call.argument("list");
+        result.success(UHFHelper.getInstance().getReconciliationList(reconciliationList));
+        break;
+
+      case CHANNEL_setSelectFilter:
+        Integer filterBank = call.argument("bank");
+        Integer filterOffset = call.argument("offsetBits");
+        Integer filterLength = call.argument("lengthBits");
+        String filterMask = call.argument("mask");
+        UHFHelper.getInstance().setSelectFilter(
+                filterBank != null ? filterBank : RfidReader.BANK_EPC,
+                filterOffset != null ? filterOffset : 32,
+                filterLength != null ? filterLength : 0,
+                filterMask, result);
+        break;
+
+      case CHANNEL_getGen2Params:
+        UHFHelper.getInstance().getGen2Params(result);
+        break;
+
+      case CHANNEL_setGen2Params:
+        UHFHelper.getInstance().setGen2Params(
+                call.<Integer>argument("session"),
+                call.<Integer>argument("target"),
+                call.<Boolean>argument("dynamicQ"),
+                call.<Integer>argument("startQ"),
+                call.<Integer>argument("minQ"),
+                call.<Integer>argument("maxQ"), result);
+        break;
+
+      case CHANNEL_setEpcPrefixFilter:
+        List<String> prefixes = call.argument("prefixes");
+        result.success(UHFHelper.getInstance().setEpcPrefixFilter(prefixes));
+        break;
+
+      case CHANNEL_getFilteredReadCount:
+        result.success(UHFHelper.getInstance().getFilteredReadCount());
+        break;
+
+      case CHANNEL_getInventoryStats:
+        result.success(UHFHelper.getInstance().getInventoryStats());
+        break;
+
+      case CHANNEL_configureInventoryStats:
+        Boolean statsEnabled = call.argument("enabled");
+        Integer statsIntervalMs = call.argument("intervalMs");
+        result.success(UHFHelper.getInstance().configureInventoryStats(Boolean.TRUE.equals(statsEnabled), statsIntervalMs));
+        break;
+
+      case CHANNEL_configureTagStreamFlow:
+        result.success(UHFHelper.getInstance().configureTagStreamFlow(
+                call.<Boolean>argument("creditBased"),
+                call.<Integer>argument("initialCredits"),
+                call.<Integer>argument("maxPendingTags")));
+        break;
+
+      case CHANNEL_requestTagUpdates:
+        Integer requested = call.argument("count");
+        UHFHelper.getInstance().requestTagUpdates(requested != null ? requested : 1);
+        result.success(true);
+        break;
+
+      case CHANNEL_useSimulatedReader:
+        Boolean simulated = call.argument("enabled");
+        if (Boolean.TRUE.equals(simulated)) {
+          Integer tagCount = call.argument("tagCount");
+          Integer readsPerSecond = call.argument("readsPerSecond");
+          Integer seed = call.argument("seed");
+          Double rssiNoise = call.argument("rssiNoise");
+          SimulatedRfidReader reader = new SimulatedRfidReader(
+                  tagCount != null ? tagCount : 1000,
+                  readsPerSecond != null ? readsPerSecond : 700,
+                  seed != null ? seed : 1);
+          if (rssiNoise != null) {
+            reader.setRssiNoise(rssiNoise);
+          }
+          UHFHelper.getInstance().setReader(reader, result);
+        } else {
+          UHFHelper.getInstance().setReader(null, result);
+        }
         break;
 
       default:
@@ -348,6 +475,23 @@ public class RfidC72Plugin implements FlutterPlugin, MethodCallHandler {
 
   @Override
   public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
+    for (EventChannel eventChannel : eventChannels) {
+      eventChannel.setStreamHandler(null);
+    }
+    for (SubjectStreamHandler<?> handler : streamHandlers) {
+      handler.dispose();
+    }
+    eventChannels.clear();
+    streamHandlers.clear();
+    if (methodChannel != null) {
+      methodChannel.setMethodCallHandler(null);
+      methodChannel = null;
+    }
+    // The engine is gone: stop reading and release the reader, scanner and scheduler.
+    // The next attach initializes them again; a journaled session is kept on disk.
+    UHFHelper.getInstance().setUhfListener(null);
+    UHFHelper.getInstance().release();
+    UHFHelper.getInstance().closeScanBarcode();
   }
 
 }
@@ -0,0 +1,78 @@
+package com.example.rfid_c72_plugin;
+
+/**
+ * The operations UHFHelper needs from a UHF reader.
+ *
+ * {@link UartRfidReader} drives the C72's built-in module through the vendor SDK;
+ * {@link SimulatedRfidReader} replays a synthetic tag population on any JVM.
+ */
+public interface RfidReader {
+    int BANK_RESERVED = 0;
+    int BANK_EPC = 1;
+    int BANK_TID = 2;
+    int BANK_USER = 3;
+
+    interface TagCallback {
+        /**
+         * Called for every tag read, on the reader's callback thread.
+         *
+         * @param epc  EPC as upper-case hex
+         * @param tid  TID as hex, or null when the reader is not in EPC+TID mode
+         * @param rssi RSSI in tenths of a dBm
+         */
+        void onTagRead(String epc, String tid, int rssi);
+    }
+
+    interface LocationCallback {
+        void onLocationValue(int value, boolean valid);
+    }
+
+    boolean init();
+
+    boolean free();
+
+    boolean setPower(int power);
+
+    int getPower();
+
+    boolean setFrequencyMode(int mode);
+
+    /**
+     * Sets the callback that receives reads during continuous inventory; null detaches it.
+     */
+    void setTagCallback(TagCallback callback);
+
+    boolean startInventory();
+
+    boolean stopInventory();
+
+    /**
+     * Reads one tag synchronously and reports it to the callback.
+     *
+     * @return false if no tag answered
+     */
+    boolean inventorySingle(TagCallback callback);
+
+    /**
+     * Starts locating one tag. May block while the reader switches mode.
+     */
+    boolean startLocation(String epc, int bank, int pointer, LocationCallback callback);
+
+    boolean stopLocation();
+
+    boolean setDynamicDistance(int value);
+
+    /**
+     * Restricts inventory to tags whose memory in {@code bank} matches the first
+     * {@code lengthBits} bits of {@code maskHex}, starting at bit {@code offsetBits} (a Gen2
+     * Select; the EPC itself starts at bit 32 of BANK_EPC). A length of 0 clears the filter.
+     */
+    boolean setSelectFilter(int bank, int offsetBits, int lengthBits, String maskHex);
+
+    /**
+     * @return the current Gen2 session, target and Q parameters, or null if unavailable
+     */
+    Gen2Settings getGen2Settings();
+
+    boolean setGen2Settings(Gen2Settings settings);
+}
@@ -0,0 +1,53 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Suppresses repeat scans of the same barcode within a time window, as happens when a code stays
+ * in front of a scanner in continuous mode.
+ *
+ * Remembers when each code was last accepted, oldest first, and forgets codes once their window
+ * has passed; at most {@link #MAX_TRACKED} codes are kept. Not thread-safe.
+ */
+public class ScanDeduplicator {
+    public static final int MAX_TRACKED = 256;
+
+    private final LinkedHashMap<String, Long> lastAccepted = new LinkedHashMap<>();
+    private long windowNanos;
+
+    public ScanDeduplicator(long windowNanos) {
+        this.windowNanos = windowNanos;
+    }
+
+    /**
+     * @param windowNanos 0 turns suppression off
+     */
+    public void setWindowNanos(long windowNanos) {
+        this.windowNanos = windowNanos;
+        lastAccepted.clear();
+    }
+
+    /**
+     * @return false if the code was accepted less than the window ago
+     */
+    public boolean accept(String code, long nowNanos) {
+        if (windowNanos <= 0) {
+            return true;
+        }
+        Iterator<Map.Entry<String, Long>> oldest = lastAccepted.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<String, Long> entry = oldest.next();
+            if (nowNanos - entry.getValue() < windowNanos && lastAccepted.size() <= MAX_TRACKED) {
+                break;
+            }
+            oldest.remove();
+        }
+        if (lastAccepted.containsKey(code)) {
+            return false;
+        }
+        lastAccepted.put(code, nowNanos);
+        return true;
+    }
+}
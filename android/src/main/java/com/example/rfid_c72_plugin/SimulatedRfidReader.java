@@ -0,0 +1,330 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Deterministic {@link RfidReader} that replays a synthetic tag population.
+ *
+ * Every tag gets a fixed EPC and base RSSI derived from the seed; each read picks a tag at
+ * random and adds Gaussian noise to its RSSI. The sequence of reads depends only on the seed,
+ * so a load (e.g. 5,000 tags at 1,000 reads/s) can be reproduced exactly on a build machine.
+ * {@link #emitReads(int)} drives the callback synchronously for tests; {@link #startInventory()}
+ * paces the same sequence at the configured read rate on a background thread.
+ *
+ * A select filter hides the tags that do not match it. In Gen2 session S1 (S2/S3) a tag that was
+ * read stays quiet for 1 s (2 s) of reads, so repeat reads thin out like on the real module;
+ * the target and Q parameters are stored but do not change the simulation.
+ *
+ * Base RSSI levels are those at full power (30 dBm). Lowering the power lowers every RSSI by
+ * 1 dB per dB and leaves tags whose RSSI would fall below the weakest base level unread, so a
+ * lower power shrinks the read zone from the far end.
+ */
+public class SimulatedRfidReader implements RfidReader {
+    private static final String EPC_PREFIX = "E2801170";
+    private static final int MIN_BASE_RSSI = -750; // tenths of a dBm
+    private static final int MAX_BASE_RSSI = -450;
+    private static final long PACING_INTERVAL_MS = 5;
+    private static final int S1_PERSISTENCE_MS = 1000;
+    private static final int S2_PERSISTENCE_MS = 2000;
+    private static final int FULL_POWER = 30;
+
+    private final String[] epcs;
+    private final String[] tids;
+    private final int[] baseRssi;
+    private final Random random;
+    private final int readsPerSecond;
+    private double rssiNoise = 3.0; // standard deviation in dBm
+    private boolean emitTid = false;
+    private int[] visible; // indices of the tags that match the select filter
+    private final long[] quietUntil; // read sequence number up to which a tag does not reply
+    private long readSequence;
+    private Gen2Settings gen2 = new Gen2Settings();
+
+    private volatile TagCallback callback;
+    private volatile Thread inventoryThread;
+    private volatile Thread locationThread;
+    private int power = 30;
+    private boolean initialized;
+
+    /**
+     * @param tagCount       size of the population
+     * @param readsPerSecond read rate during continuous inventory
+     * @param seed           seed for EPCs, RSSI levels and the read sequence
+     */
+    public SimulatedRfidReader(int tagCount, int readsPerSecond, long seed) {
+        this.readsPerSecond = readsPerSecond;
+        this.random = new Random(seed);
+        this.epcs = new String[tagCount];
+        this.tids = new String[tagCount];
+        this.baseRssi = new int[tagCount];
+        this.quietUntil = new long[tagCount];
+        this.visible = new int[tagCount];
+        for (int i = 0; i < tagCount; i++) {
+            epcs[i] = String.format(Locale.US, "%s%016X", EPC_PREFIX, random.nextLong());
+            tids[i] = String.format(Locale.US, "E280%020X", (long) i);
+            baseRssi[i] = MIN_BASE_RSSI + random.nextInt(MAX_BASE_RSSI - MIN_BASE_RSSI + 1);
+            visible[i] = i;
+        }
+    }
+
+    /**
+     * @param stdDevDbm standard deviation of the RSSI noise added to each read
+     */
+    public void setRssiNoise(double stdDevDbm) {
+        this.rssiNoise = stdDevDbm;
+    }
+
+    /**
+     * Reports a TID with every read, like the module in EPC+TID mode.
+     */
+    public void setEmitTid(boolean emitTid) {
+        this.emitTid = emitTid;
+    }
+
+    public int getTagCount() {
+        return epcs.length;
+    }
+
+    public String getEpc(int index) {
+        return epcs[index];
+    }
+
+    public int getReadsPerSecond() {
+        return readsPerSecond;
+    }
+
+    /**
+     * Delivers the next {@code reads} reads of the sequence to the tag callback on the calling thread.
+     */
+    public void emitReads(int reads) {
+        TagCallback target = callback;
+        if (target == null) return;
+        for (int i = 0; i < reads; i++) {
+            emitOne(target);
+        }
+    }
+
+    /**
+     * @return false if the read slot stayed empty
+     */
+    private synchronized boolean emitOne(TagCallback target) {
+        long sequence = readSequence++;
+        if (visible.length == 0) return false;
+        int index = visible[random.nextInt(visible.length)];
+        if (quietUntil[index] > sequence) return false;
+        if (baseRssi[index] + powerOffset() < MIN_BASE_RSSI) return false; // out of range at this power
+        int persistenceMs = gen2.session == 0 ? 0 : gen2.session == 1 ? S1_PERSISTENCE_MS : S2_PERSISTENCE_MS;
+        quietUntil[index] = sequence + (long) persistenceMs * readsPerSecond / 1000L;
+        target.onTagRead(epcs[index], emitTid ? tids[index] : null, rssiOf(index));
+        return true;
+    }
+
+    private synchronized int rssiOf(int index) {
+        return baseRssi[index] + powerOffset() + (int) Math.round(random.nextGaussian() * rssiNoise * 10);
+    }
+
+    private int powerOffset() {
+        return (power - FULL_POWER) * 10;
+    }
+
+    @Override
+    public boolean init() {
+        initialized = true;
+        return true;
+    }
+
+    @Override
+    public boolean free() {
+        stopInventory();
+        stopLocation();
+        initialized = false;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean setPower(int power) {
+        if (power < 5 || power > 30) return false;
+        this.power = power;
+        return true;
+    }
+
+    @Override
+    public synchronized int getPower() {
+        return power;
+    }
+
+    @Override
+    public boolean setFrequencyMode(int mode) {
+        return initialized;
+    }
+
+    @Override
+    public void setTagCallback(TagCallback callback) {
+        this.callback = callback;
+    }
+
+    @Override
+    public synchronized boolean startInventory() {
+        if (!initialized || inventoryThread != null) return false;
+        Thread thread = new Thread(this::paceReads, "SimulatedRfidReader");
+        inventoryThread = thread;
+        thread.start();
+        return true;
+    }
+
+    private void paceReads() {
+        long start = System.nanoTime();
+        long emitted = 0;
+        while (inventoryThread == Thread.currentThread()) {
+            long due = (System.nanoTime() - start) / 1_000_000L * readsPerSecond / 1000L;
+            if (due > emitted) {
+                emitReads((int) (due - emitted));
+                emitted = due;
+            }
+            try {
+                Thread.sleep(PACING_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    public synchronized boolean isInventoryRunning() {
+        return inventoryThread != null;
+    }
+
+    @Override
+    public boolean stopInventory() {
+        Thread thread;
+        synchronized (this) {
+            thread = inventoryThread;
+            inventoryThread = null;
+        }
+        if (thread == null) return false;
+        if (thread != Thread.currentThread()) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean inventorySingle(TagCallback callback) {
+        return initialized && emitOne(callback);
+    }
+
+    @Override
+    public synchronized boolean startLocation(final String epc, int bank, int pointer, final LocationCallback callback) {
+        if (!initialized || locationThread != null) return false;
+        int found = -1;
+        for (int i = 0; i < epcs.length; i++) {
+            if (epcs[i].equals(epc)) {
+                found = i;
+                break;
+            }
+        }
+        final int index = found;
+        Thread thread = new Thread(() -> {
+            while (locationThread == Thread.currentThread()) {
+                if (index < 0) {
+                    callback.onLocationValue(0, false);
+                } else {
+                    // Map -75..-45 dBm onto 0..100 like the module's proximity value
+                    int value = (rssiOf(index) - MIN_BASE_RSSI) * 100 / (MAX_BASE_RSSI - MIN_BASE_RSSI);
+                    callback.onLocationValue(Math.max(0, Math.min(100, value)), true);
+                }
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }, "SimulatedRfidLocation");
+        locationThread = thread;
+        thread.start();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean stopLocation() {
+        if (locationThread == null) return false;
+        locationThread = null;
+        return true;
+    }
+
+    @Override
+    public boolean setDynamicDistance(int value) {
+        return initialized;
+    }
+
+    @Override
+    public synchronized boolean setSelectFilter(int bank, int offsetBits, int lengthBits, String maskHex) {
+        if (!initialized) return false;
+        byte[] mask = lengthBits > 0 ? parseHex(maskHex) : new byte[0];
+        if (mask == null || mask.length * 8 < lengthBits || offsetBits < 0) return false;
+        int[] matching = new int[epcs.length];
+        int count = 0;
+        for (int i = 0; i < epcs.length; i++) {
+            if (lengthBits == 0 || bitsMatch(memoryOf(i, bank), offsetBits, mask, lengthBits)) {
+                matching[count++] = i;
+            }
+        }
+        visible = count == matching.length ? matching : Arrays.copyOf(matching, count);
+        return true;
+    }
+
+    @Override
+    public synchronized Gen2Settings getGen2Settings() {
+        return initialized ? gen2.copy() : null;
+    }
+
+    @Override
+    public synchronized boolean setGen2Settings(Gen2Settings settings) {
+        if (!initialized || !settings.isValid()) return false;
+        gen2 = settings.copy();
+        Arrays.fill(quietUntil, 0);
+        return true;
+    }
+
+    /**
+     * Memory bank contents as the module would see them: CRC, PC and EPC for BANK_EPC, the TID
+     * for BANK_TID. The other banks are empty.
+     */
+    private byte[] memoryOf(int index, int bank) {
+        if (bank == BANK_EPC) {
+            int pc = (epcs[index].length() / 4) << 11; // EPC length in words
+            return parseHex(String.format(Locale.US, "0000%04X%s", pc, epcs[index]));
+        }
+        return bank == BANK_TID ? parseHex(tids[index]) : new byte[0];
+    }
+
+    private static boolean bitsMatch(byte[] memory, int offsetBits, byte[] mask, int lengthBits) {
+        if (offsetBits + lengthBits > memory.length * 8) return false;
+        for (int i = 0; i < lengthBits; i++) {
+            int bit = offsetBits + i;
+            if (((memory[bit >>> 3] >>> (7 - (bit & 7))) & 1) != ((mask[i >>> 3] >>> (7 - (i & 7))) & 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] parseHex(String hex) {
+        if (hex == null || (hex.length() & 1) != 0) return null;
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int hi = Character.digit(hex.charAt(2 * i), 16);
+            int lo = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0) return null;
+            bytes[i] = (byte) ((hi << 4) | lo);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.rfid_c72_plugin;
+
+import android.util.Log;
+
+import io.flutter.plugin.common.EventChannel;
+import io.reactivex.Observable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Forwards an Observable to an EventChannel for as long as Dart listens.
+ *
+ * Each handler holds at most one subscription: a new listen replaces the previous one (e.g.
+ * after a hot restart, which never cancels the old stream), and cancel or {@link #dispose()}
+ * ends it, so an event is never serialized to sinks nobody reads. Events are delivered on the
+ * main thread, which EventSink requires; subscribing to a subject does no work, so no extra
+ * thread is involved.
+ *
+ * A source that already emits on the main thread can be forwarded directly
+ * ({@code onMainThread}); its events are then serialized before onNext returns, which lets the
+ * producer reuse the payload.
+ *
+ * onListen, onCancel and dispose are called on the main thread.
+ */
+final class SubjectStreamHandler<T> implements EventChannel.StreamHandler {
+    private static final String TAG = "RfidC72Plugin";
+
+    private final String name;
+    private final Observable<T> source;
+    private final boolean onMainThread;
+    private Disposable subscription;
+
+    SubjectStreamHandler(String name, Observable<T> source, boolean onMainThread) {
+        this.name = name;
+        this.source = source;
+        this.onMainThread = onMainThread;
+    }
+
+    @Override
+    public void onListen(Object arguments, final EventChannel.EventSink eventSink) {
+        dispose();
+        Observable<T> events = onMainThread ? source : source.observeOn(AndroidSchedulers.mainThread());
+        subscription = events.subscribe(value -> {
+            try {
+                eventSink.success(value);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error sending " + name + " event to Flutter", e);
+            }
+        }, error -> Log.e(TAG, name + " stream error", error));
+    }
+
+    @Override
+    public void onCancel(Object arguments) {
+        dispose();
+    }
+
+    void dispose() {
+        if (subscription != null) {
+            subscription.dispose();
+            subscription = null;
+        }
+    }
+}
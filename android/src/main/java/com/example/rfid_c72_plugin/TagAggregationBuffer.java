@@ -0,0 +1,267 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Double-buffered aggregation of tag reads between the reader callback thread and the flush thread.
+ *
+ * The producer (the inventory callback, or a single read while no inventory is running) records
+ * reads into the active buffer without taking a lock. The flusher swaps the active buffer for the
+ * idle one, waits until the producer has left the old buffer and then drains it, so a read that
+ * arrives while a flush is in progress lands in the next batch instead of being cleared away.
+ *
+ * Only one thread may call {@link #add} at a time. Each buffer holds at most {@code capacity}
+ * distinct tags; reads of further new tags are dropped and counted in {@link #getDroppedReads()}.
+ * Records that were merged into the cache are reset and reused for later batches, so the
+ * steady-state read path does not allocate tag records, and the EPC is parsed into a scratch key
+ * that is only copied the first time a tag enters a buffer.
+ *
+ * Reads are deduplicated by the EPC (default), the TID, or both; see {@link #setDedupKey}.
+ * An optional EPC prefix filter ({@link #setEpcPrefixFilter}) discards reads of other tags
+ * before they are parsed, for readers that cannot filter at the radio.
+ */
+public class TagAggregationBuffer {
+    public static final String DEDUP_EPC = "epc";
+    public static final String DEDUP_TID = "tid";
+    public static final String DEDUP_EPC_TID = "epcTid";
+
+    /**
+     * Receives drained records. Returns true if the record was kept (e.g. stored in the tag cache)
+     * and must not be recycled.
+     */
+    public interface Consumer {
+        boolean accept(EpcKey key, EPC tag);
+    }
+
+    private static final class Slot {
+        final EpcMap<EPC> tags;
+        final ArrayList<EPC> spare = new ArrayList<>();
+        volatile boolean writing;
+
+        Slot(int capacity) {
+            tags = new EpcMap<>(Math.min(capacity, 1024));
+        }
+    }
+
+    private final int capacity;
+    private final Slot first;
+    private final Slot second;
+    private volatile Slot active;
+    private volatile boolean pending;
+    private final AtomicLong droppedReads = new AtomicLong();
+    private final EpcKey scratchKey = new EpcKey(); // producer only
+    private volatile String dedupKey = DEDUP_EPC;
+    private volatile String[] epcPrefixes; // upper-case hex, null = no filter
+    private final AtomicLong filteredReads = new AtomicLong();
+
+    public TagAggregationBuffer(int capacity) {
+        this.capacity = capacity;
+        this.first = new Slot(capacity);
+        this.second = new Slot(capacity);
+        this.active = first;
+    }
+
+    /**
+     * Records one read. Producer side, lock-free.
+     *
+     * @return false if the read was filtered out or dropped because the buffer is full of other tags
+     */
+    public boolean add(String epc, int rssi, long nowNanos) {
+        return add(epc, null, rssi, nowNanos);
+    }
+
+    /**
+     * Records one read of a tag that reported its TID as well. Producer side, lock-free.
+     *
+     * @return false if the read was filtered out or dropped because the buffer is full of other tags
+     */
+    public boolean add(String epc, String tid, int rssi, long nowNanos) {
+        String[] prefixes = epcPrefixes;
+        if (prefixes != null && !matchesAny(epc, prefixes)) {
+            filteredReads.incrementAndGet();
+            return false;
+        }
+        String mode = dedupKey;
+        boolean byEpc = tid == null || DEDUP_EPC.equals(mode);
+        EpcKey key = byEpc ? scratchKey.set(epc) : DEDUP_TID.equals(mode) ? scratchKey.set(tid) : scratchKey.set(epc, tid);
+        Slot slot;
+        // Announce the write, then confirm the flusher has not swapped the buffer meanwhile.
+        // Both fields are volatile, so either we see the swap or the flusher sees our flag.
+        while (true) {
+            slot = active;
+            slot.writing = true;
+            if (slot == active) {
+                break;
+            }
+            slot.writing = false;
+        }
+        try {
+            EPC tag = slot.tags.get(key);
+            if (tag == null) {
+                if (slot.tags.size() >= capacity) {
+                    droppedReads.incrementAndGet();
+                    return false;
+                }
+                int spare = slot.spare.size();
+                tag = spare > 0 ? slot.spare.remove(spare - 1) : new EPC();
+                EpcKey stored = key.copy();
+                tag.setId("");
+                if (byEpc) {
+                    tag.setKey(stored);
+                } else {
+                    tag.setKeys(stored, EpcKey.of(epc));
+                }
+                slot.tags.put(stored, tag);
+            }
+            if (tid != null && tag.getTidKey() == null) {
+                if (DEDUP_TID.equals(mode)) {
+                    tag.setTidKey(tag.getKey());
+                } else {
+                    tag.setTid(tid);
+                }
+            }
+            tag.recordRead(rssi, nowNanos);
+            pending = true;
+            return true;
+        } finally {
+            slot.writing = false;
+        }
+    }
+
+    /**
+     * Selects what identifies a tag: DEDUP_EPC, DEDUP_TID or DEDUP_EPC_TID. Reads without a TID
+     * are always keyed by their EPC. Records already buffered keep their key, so callers clear
+     * the buffer when switching.
+     *
+     * @return false if the mode is unknown
+     */
+    public boolean setDedupKey(String mode) {
+        if (!DEDUP_EPC.equals(mode) && !DEDUP_TID.equals(mode) && !DEDUP_EPC_TID.equals(mode)) {
+            return false;
+        }
+        dedupKey = mode;
+        return true;
+    }
+
+    public String getDedupKey() {
+        return dedupKey;
+    }
+
+    /**
+     * Keeps only reads whose EPC starts with one of the hex prefixes (case-insensitive); null or
+     * an empty list turns the filter off. Records already buffered are not affected.
+     *
+     * @return false if a prefix is empty or not hex
+     */
+    public boolean setEpcPrefixFilter(List<String> prefixes) {
+        if (prefixes == null || prefixes.isEmpty()) {
+            epcPrefixes = null;
+            return true;
+        }
+        String[] upper = new String[prefixes.size()];
+        for (int i = 0; i < upper.length; i++) {
+            String prefix = prefixes.get(i);
+            if (prefix == null || prefix.isEmpty()) {
+                return false;
+            }
+            for (int c = 0; c < prefix.length(); c++) {
+                if (Character.digit(prefix.charAt(c), 16) < 0) {
+                    return false;
+                }
+            }
+            upper[i] = prefix.toUpperCase(Locale.US);
+        }
+        epcPrefixes = upper;
+        return true;
+    }
+
+    /**
+     * @return number of reads discarded by the EPC prefix filter
+     */
+    public long getFilteredReads() {
+        return filteredReads.get();
+    }
+
+    private static boolean matchesAny(String epc, String[] prefixes) {
+        for (String prefix : prefixes) {
+            if (epc.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the key a record with this EPC and TID (may be null) is stored under.
+     */
+    public static EpcKey keyOf(String mode, EpcKey epc, EpcKey tid) {
+        if (tid == null || DEDUP_EPC.equals(mode)) {
+            return epc;
+        }
+        return DEDUP_TID.equals(mode) ? tid : EpcKey.concat(epc, tid);
+    }
+
+    /**
+     * Number of distinct tags in the buffer currently being written. Producer side.
+     */
+    public int activeSize() {
+        return active.tags.size();
+    }
+
+    /**
+     * @return true if reads were recorded since the last drain
+     */
+    public boolean hasPending() {
+        return pending;
+    }
+
+    /**
+     * Swaps the buffers and hands every record of the retired one to the consumer.
+     * Flusher side; calls are serialized against each other but never block the producer.
+     *
+     * @return the number of distinct tags drained
+     */
+    public synchronized int drain(Consumer consumer) {
+        // Cleared before the swap: a read that lands in the new buffer must leave it set
+        pending = false;
+        Slot retired = active;
+        active = retired == first ? second : first;
+        while (retired.writing) {
+            Thread.yield();
+        }
+
+        EpcMap<EPC> tags = retired.tags;
+        int drained = tags.size();
+        if (consumer != null) {
+            for (int i = 0, n = tags.capacity(); i < n; i++) {
+                EPC tag = tags.valueAt(i);
+                if (tag != null && !consumer.accept(tags.keyAt(i), tag) && retired.spare.size() < capacity) {
+                    tag.reset();
+                    retired.spare.add(tag);
+                }
+            }
+        }
+        retired.tags.clear();
+        return drained;
+    }
+
+    /**
+     * Discards everything recorded so far.
+     */
+    public void clear() {
+        // Drain twice so that both buffers are empty afterwards
+        drain(null);
+        drain(null);
+    }
+
+    public long getDroppedReads() {
+        return droppedReads.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.rfid_c72_plugin;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Packs a batch of tags into a compact binary frame for the tag stream.
+ *
+ * The frame is sent as a byte[] so StandardMessageCodec hands it to Dart as a Uint8List
+ * without any JSON on either side. Layout (big-endian):
+ *
+ * <pre>
+ *   u8    version (2)
+ *   u8    flags        bit0 = full snapshot, bit1 = delta envelope,
+ *                      bit2 = keyed by TID, bit3 = keyed by EPC + TID (neither: by EPC)
+ *   i32   sequence     0 outside delta mode
+ *   i64   timestamp    epoch millis when the frame was built
+ *   i32   tag count, then per tag:
+ *         u8  key length  (bit7 set: key is UTF-8 text instead of packed hex)
+ *         ..  key bytes
+ *         u8  TID length, 0 if unknown (bit7 as above), TID bytes
+ *         i16 RSSI x 10
+ *         i32 read count
+ *   i32   removed count, then per removed dedup key: u8 length + key bytes as above
+ * </pre>
+ *
+ * The decoder lives in lib/tag_epc.dart (TagEpc.decodeBatch).
+ */
+public final class TagBatchEncoder {
+    public static final byte VERSION = 2;
+    public static final int FLAG_FULL = 0x01;
+    public static final int FLAG_DELTA = 0x02;
+    public static final int FLAG_KEY_TID = 0x04;
+    public static final int FLAG_KEY_EPC_TID = 0x08;
+
+    private static final int TEXT_KEY = 0x80;
+    private static final int MAX_KEY_LENGTH = 0x7F;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private TagBatchEncoder() { }
+
+    public static byte[] encode(Collection<EPC> tags, List<EpcKey> removed, long sequence, int flags) {
+        return encode(tags, removed, sequence, flags, System.currentTimeMillis());
+    }
+
+    static byte[] encode(Collection<EPC> tags, List<EpcKey> removed, long sequence, int flags, long timestampMillis) {
+        int size = 1 + 1 + 4 + 8 + 4 + 4;
+        for (EPC tag : tags) {
+            size += keySize(tag.getEpcKey()) + 2 + 4;
+            size += tag.getTidKey() != null ? keySize(tag.getTidKey()) : 1;
+        }
+        if (removed != null) {
+            for (EpcKey key : removed) {
+                size += keySize(key);
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION);
+        buffer.put((byte) flags);
+        buffer.putInt((int) sequence);
+        buffer.putLong(timestampMillis);
+        buffer.putInt(tags.size());
+        for (EPC tag : tags) {
+            putKey(buffer, tag.getEpcKey());
+            if (tag.getTidKey() != null) {
+                putKey(buffer, tag.getTidKey());
+            } else {
+                buffer.put((byte) 0);
+            }
+            buffer.putShort((short) tag.getRssi());
+            buffer.putInt(tag.getCount());
+        }
+        if (removed != null) {
+            buffer.putInt(removed.size());
+            for (EpcKey key : removed) {
+                putKey(buffer, key);
+            }
+        } else {
+            buffer.putInt(0);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Flag bits naming the dedup key (see TagAggregationBuffer.setDedupKey).
+     */
+    public static int keyFlags(String dedupKey) {
+        if (TagAggregationBuffer.DEDUP_TID.equals(dedupKey)) {
+            return FLAG_KEY_TID;
+        }
+        return TagAggregationBuffer.DEDUP_EPC_TID.equals(dedupKey) ? FLAG_KEY_EPC_TID : 0;
+    }
+
+    private static int keySize(EpcKey key) {
+        if (isPacked(key)) {
+            return 1 + key.length();
+        }
+        return 1 + Math.min(key.toString().getBytes(UTF_8).length, MAX_KEY_LENGTH);
+    }
+
+    private static void putKey(ByteBuffer buffer, EpcKey key) {
+        if (isPacked(key)) {
+            int length = key.length();
+            buffer.put((byte) length);
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) key.byteAt(i));
+            }
+        } else {
+            byte[] text = key.toString().getBytes(UTF_8);
+            int length = Math.min(text.length, MAX_KEY_LENGTH);
+            buffer.put((byte) (TEXT_KEY | length));
+            buffer.put(text, 0, length);
+        }
+    }
+
+    /**
+     * EPCs are normally hex and already held as packed bytes. Keys that are not are sent as text.
+     */
+    private static boolean isPacked(EpcKey key) {
+        return !key.isText() && key.length() <= MAX_KEY_LENGTH;
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Bounded store of aggregated tags with a selectable eviction policy.
+ *
+ * Every entry sits in a recency list ordered by the time it was last merged, and in an RSSI
+ * bucket keyed by its last RSSI in whole dBm. Merging, evicting the least recently seen tag and
+ * evicting the weakest tag are all O(1): the bucket scan is bounded by the fixed bucket count.
+ *
+ * Tags are indexed by {@link EpcKey} in an {@link EpcMap}.
+ *
+ * Not thread-safe; UHFHelper guards it with its own monitor.
+ */
+public class TagCache {
+    public static final String POLICY_LRU = "lru";
+    public static final String POLICY_TTL = "ttl";
+    public static final String POLICY_LOWEST_RSSI = "lowestRssi";
+
+    private static final int RSSI_BUCKETS = 256;
+    private static final int RSSI_BUCKET_OFFSET = 200; // -200 dBm maps to bucket 0
+
+    private static final class Node {
+        final EpcKey key;
+        final EPC tag;
+        Node prev;
+        Node next;
+        Node bucketPrev;
+        Node bucketNext;
+        int bucket;
+
+        Node(EpcKey key, EPC tag) {
+            this.key = key;
+            this.tag = tag;
+        }
+    }
+
+    private final EpcMap<Node> nodes;
+    private final Node[] buckets = new Node[RSSI_BUCKETS];
+    private int lowestBucket = RSSI_BUCKETS;
+    private Node head; // least recently seen
+    private Node tail; // most recently seen
+
+    private String policy = POLICY_LRU;
+    private int maxSize;
+    private long ttlNanos;
+    private long evictedCount;
+
+    private final AbstractCollection<EPC> values = new AbstractCollection<EPC>() {
+        @Override
+        public Iterator<EPC> iterator() {
+            return new Iterator<EPC>() {
+                private Node cursor = head;
+
+                @Override
+                public boolean hasNext() {
+                    return cursor != null;
+                }
+
+                @Override
+                public EPC next() {
+                    if (cursor == null) {
+                        throw new NoSuchElementException();
+                    }
+                    EPC tag = cursor.tag;
+                    cursor = cursor.next;
+                    return tag;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return nodes.size();
+        }
+    };
+
+    public TagCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.nodes = new EpcMap<>(Math.min(maxSize, 4096));
+    }
+
+    /**
+     * @param policy POLICY_LRU, POLICY_TTL or POLICY_LOWEST_RSSI
+     * @param ttlMs  age after which a tag is dropped under POLICY_TTL
+     * @return false if the policy is unknown
+     */
+    public boolean setPolicy(String policy, long ttlMs) {
+        if (!POLICY_LRU.equals(policy) && !POLICY_TTL.equals(policy) && !POLICY_LOWEST_RSSI.equals(policy)) {
+            return false;
+        }
+        this.policy = policy;
+        this.ttlNanos = ttlMs * 1_000_000L;
+        return true;
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public EPC get(EpcKey key) {
+        Node node = nodes.get(key);
+        return node != null ? node.tag : null;
+    }
+
+    /**
+     * Folds a batch record into the cache.
+     *
+     * @return true if the record itself was stored (first sighting of the tag)
+     */
+    public boolean merge(EpcKey key, EPC batchTag) {
+        Node node = nodes.get(key);
+        boolean stored = false;
+        if (node == null) {
+            node = new Node(key, batchTag);
+            nodes.put(key, node);
+            node.bucket = bucketOf(batchTag.getRssi());
+            bucketInsert(node);
+            stored = true;
+        } else {
+            node.tag.merge(batchTag);
+            unlink(node);
+            int bucket = bucketOf(node.tag.getRssi());
+            if (bucket != node.bucket) {
+                bucketRemove(node);
+                node.bucket = bucket;
+                bucketInsert(node);
+            }
+        }
+        append(node);
+        return stored;
+    }
+
+    /**
+     * Applies the eviction policy: drops expired tags under POLICY_TTL, then trims the cache to
+     * its maximum size by last-seen order or, under POLICY_LOWEST_RSSI, weakest signal first.
+     *
+     * @param removed receives the evicted keys, may be null
+     * @return number of evicted tags
+     */
+    public int evict(long nowNanos, List<EpcKey> removed) {
+        int evicted = 0;
+        if (POLICY_TTL.equals(policy) && ttlNanos > 0) {
+            while (head != null && nowNanos - head.tag.getLastSeenNanos() > ttlNanos) {
+                remove(head, removed);
+                evicted++;
+            }
+        }
+        while (nodes.size() > maxSize) {
+            remove(POLICY_LOWEST_RSSI.equals(policy) ? weakest() : head, removed);
+            evicted++;
+        }
+        evictedCount += evicted;
+        return evicted;
+    }
+
+    public Collection<EPC> values() {
+        return values;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    public void clear() {
+        nodes.clear();
+        for (int i = 0; i < RSSI_BUCKETS; i++) {
+            buckets[i] = null;
+        }
+        lowestBucket = RSSI_BUCKETS;
+        head = null;
+        tail = null;
+    }
+
+    private void remove(Node node, List<EpcKey> removed) {
+        nodes.remove(node.key);
+        unlink(node);
+        bucketRemove(node);
+        if (removed != null) {
+            removed.add(node.key);
+        }
+    }
+
+    private Node weakest() {
+        while (lowestBucket < RSSI_BUCKETS && buckets[lowestBucket] == null) {
+            lowestBucket++;
+        }
+        return buckets[lowestBucket];
+    }
+
+    private static int bucketOf(int rssiTenths) {
+        int bucket = rssiTenths / 10 + RSSI_BUCKET_OFFSET;
+        return bucket < 0 ? 0 : (bucket >= RSSI_BUCKETS ? RSSI_BUCKETS - 1 : bucket);
+    }
+
+    private void append(Node node) {
+        node.prev = tail;
+        node.next = null;
+        if (tail != null) {
+            tail.next = node;
+        } else {
+            head = node;
+        }
+        tail = node;
+    }
+
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else if (head == node) {
+            head = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else if (tail == node) {
+            tail = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    private void bucketInsert(Node node) {
+        Node first = buckets[node.bucket];
+        node.bucketPrev = null;
+        node.bucketNext = first;
+        if (first != null) {
+            first.bucketPrev = node;
+        }
+        buckets[node.bucket] = node;
+        if (node.bucket < lowestBucket) {
+            lowestBucket = node.bucket;
+        }
+    }
+
+    private void bucketRemove(Node node) {
+        if (node.bucketPrev != null) {
+            node.bucketPrev.bucketNext = node.bucketNext;
+        } else {
+            buckets[node.bucket] = node.bucketNext;
+        }
+        if (node.bucketNext != null) {
+            node.bucketNext.bucketPrev = node.bucketPrev;
+        }
+        node.bucketPrev = null;
+        node.bucketNext = null;
+    }
+}
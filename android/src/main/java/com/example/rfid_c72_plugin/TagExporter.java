@@ -0,0 +1,122 @@
+package com.example.rfid_c72_plugin;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Collection;
+
+/**
+ * Writes the tag list of a session straight to a file, so large stock takes never have to be
+ * held or serialized on the Dart side.
+ *
+ * csv:    epc,tid,count,first_seen,last_seen,min_rssi,max_rssi,avg_rssi
+ *         (times in epoch millis, RSSI in dBm with one decimal)
+ * binary: "RFEX", u8 version, i64 export time, i32 rows, then per row
+ *         u8 epc length + ASCII, u8 tid length + ASCII, i32 count, i64 first seen,
+ *         i64 last seen, i16 min / max / avg RSSI in tenths of a dBm
+ */
+public final class TagExporter {
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_BINARY = "binary";
+
+    private static final int BINARY_MAGIC = 0x52464558; // RFEX
+    private static final int BINARY_VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "epc,tid,count,first_seen,last_seen,min_rssi,max_rssi,avg_rssi\n";
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    private TagExporter() { }
+
+    public static boolean isSupportedFormat(String format) {
+        return FORMAT_CSV.equals(format) || FORMAT_BINARY.equals(format);
+    }
+
+    /**
+     * Writes all tags to the file, replacing it. The caller holds the tag list monitor.
+     *
+     * @return number of rows written
+     */
+    public static int export(Collection<EPC> tags, File file, String format) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        long nowNanos = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE)) {
+            if (FORMAT_BINARY.equals(format)) {
+                return writeBinary(tags, new DataOutputStream(out), nowNanos, nowMillis);
+            }
+            return writeCsv(tags, out, nowNanos, nowMillis);
+        }
+    }
+
+    private static int writeCsv(Collection<EPC> tags, OutputStream out, long nowNanos, long nowMillis)
+            throws IOException {
+        out.write(CSV_HEADER.getBytes(US_ASCII));
+        // One reused row buffer; EPCs, TIDs and numbers are all ASCII
+        StringBuilder row = new StringBuilder(128);
+        byte[] bytes = new byte[128];
+        int rows = 0;
+        for (EPC tag : tags) {
+            row.setLength(0);
+            String tid = tag.getTid();
+            tag.getEpcKey().appendTo(row).append(',').append(tid != null ? tid : "").append(',')
+                    .append(tag.getCount()).append(',')
+                    .append(toMillis(tag.getFirstSeenNanos(), nowNanos, nowMillis)).append(',')
+                    .append(toMillis(tag.getLastSeenNanos(), nowNanos, nowMillis)).append(',');
+            EPC.appendRssi(row, tag.getMinRssi()).append(',');
+            EPC.appendRssi(row, tag.getPeakRssi()).append(',');
+            EPC.appendRssi(row, tag.getMeanRssi()).append('\n');
+
+            int length = row.length();
+            if (bytes.length < length) {
+                bytes = new byte[length * 2];
+            }
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) row.charAt(i);
+            }
+            out.write(bytes, 0, length);
+            rows++;
+        }
+        return rows;
+    }
+
+    private static int writeBinary(Collection<EPC> tags, DataOutputStream out, long nowNanos, long nowMillis)
+            throws IOException {
+        out.writeInt(BINARY_MAGIC);
+        out.writeByte(BINARY_VERSION);
+        out.writeLong(nowMillis);
+        out.writeInt(tags.size());
+        int rows = 0;
+        for (EPC tag : tags) {
+            String tid = tag.getTid();
+            writeAscii(out, tag.getEpc());
+            writeAscii(out, tid != null ? tid : "");
+            out.writeInt(tag.getCount());
+            out.writeLong(toMillis(tag.getFirstSeenNanos(), nowNanos, nowMillis));
+            out.writeLong(toMillis(tag.getLastSeenNanos(), nowNanos, nowMillis));
+            out.writeShort(tag.getMinRssi());
+            out.writeShort(tag.getPeakRssi());
+            out.writeShort(tag.getMeanRssi());
+            rows++;
+        }
+        return rows;
+    }
+
+    private static void writeAscii(DataOutputStream out, String value) throws IOException {
+        int length = Math.min(value.length(), 255);
+        out.writeByte(length);
+        for (int i = 0; i < length; i++) {
+            out.writeByte(value.charAt(i));
+        }
+    }
+
+    private static long toMillis(long seenNanos, long nowNanos, long nowMillis) {
+        return nowMillis - (nowNanos - seenNanos) / 1_000_000L;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Builds the JSON payloads of the tag stream.
+ *
+ * Full list: [{"KEY_ID":"","KEY_EPC":"..","KEY_TID":"..","KEY_RSSI":"-55.3","KEY_COUNT":"12"},...]
+ * Delta:     {"seq":n,"full":bool,"key":"epc","tags":[...],"removed":["key",...]}
+ *
+ * KEY_TID is "" when the reader did not report one. Removed entries are the tags' dedup keys
+ * in hex: the EPC, the TID, or EPC followed by TID, as named by "key".
+ *
+ * Values stay strings for compatibility with TagEpc.fromMap on the Dart side.
+ */
+public final class TagJsonEncoder {
+    private static final int BYTES_PER_TAG = 96;
+
+    private TagJsonEncoder() { }
+
+    public static String encodeList(Collection<EPC> tags) {
+        StringBuilder jsonBuilder = new StringBuilder(2 + tags.size() * BYTES_PER_TAG);
+        jsonBuilder.append('[');
+        appendTags(jsonBuilder, tags);
+        return jsonBuilder.append(']').toString();
+    }
+
+    public static String encodeDelta(Collection<EPC> tags, List<EpcKey> removed, long seq, boolean full,
+                                     String dedupKey) {
+        StringBuilder jsonBuilder = new StringBuilder(64 + tags.size() * BYTES_PER_TAG);
+        jsonBuilder.append("{\"seq\":").append(seq)
+                .append(",\"full\":").append(full)
+                .append(",\"key\":\"").append(dedupKey).append('"')
+                .append(",\"tags\":[");
+        appendTags(jsonBuilder, tags);
+        jsonBuilder.append("],\"removed\":[");
+        if (removed != null) {
+            boolean first = true;
+            for (EpcKey key : removed) {
+                if (!first) jsonBuilder.append(',');
+                first = false;
+                key.appendTo(jsonBuilder.append('"')).append('"');
+            }
+        }
+        return jsonBuilder.append("]}").toString();
+    }
+
+    private static void appendTags(StringBuilder jsonBuilder, Collection<EPC> tags) {
+        boolean first = true;
+        for (EPC epcTag : tags) {
+            if (!first) jsonBuilder.append(',');
+            first = false;
+            appendTag(jsonBuilder, epcTag);
+        }
+    }
+
+    public static void appendTag(StringBuilder jsonBuilder, EPC epcTag) {
+        jsonBuilder.append("{\"")
+                .append(TagKey.ID).append("\":\"").append(epcTag.getId()).append("\",\"")
+                .append(TagKey.EPC).append("\":\"");
+        epcTag.getEpcKey().appendTo(jsonBuilder)
+                .append("\",\"")
+                .append(TagKey.TID).append("\":\"");
+        if (epcTag.getTidKey() != null) {
+            epcTag.getTidKey().appendTo(jsonBuilder);
+        }
+        jsonBuilder.append("\",\"")
+                .append(TagKey.RSSI).append("\":\"");
+        EPC.appendRssi(jsonBuilder, epcTag.getRssi())
+                .append("\",\"")
+                .append(TagKey.COUNT).append("\":\"").append(epcTag.getCount()).append("\"}");
+    }
+}
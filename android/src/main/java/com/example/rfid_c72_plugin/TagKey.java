@@ -7,6 +7,7 @@ public class TagKey {
     public final static String RSSI = "KEY_RSSI";
     public final static String EPC = "KEY_EPC";
     public final static String COUNT = "KEY_COUNT";
+    public final static String TID = "KEY_TID";
 
     public  static String getTag(Map<String, Object> map){
         return ((String) map.get(EPC));
@@ -0,0 +1,161 @@
+package com.example.rfid_c72_plugin;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flow control of the tag stream, so that a slow Flutter consumer gets fewer, fresher updates
+ * instead of a growing backlog.
+ *
+ * An update may only be posted after {@link #tryAcquire()} succeeded. By default at most
+ * {@link #MAX_IN_FLIGHT} updates wait for the main thread at any time; in credit mode Dart grants
+ * updates explicitly with {@link #grant} (request-N), so the emission rate follows what the
+ * consumer actually processes. While no update may be posted, state is conflated rather than
+ * queued: full lists are simply re-encoded when the next update is allowed, and the keys of
+ * deferred deltas are merged into one pending delta. A pending delta that grows beyond
+ * {@code maxPendingTags} is dropped in favour of a full snapshot.
+ *
+ * Grants and deliveries may come from any thread; everything else runs on the scheduler thread,
+ * which is also the only thread that acquires.
+ */
+public class TagStreamFlow {
+    public static final int MAX_IN_FLIGHT = 2;
+    public static final int DEFAULT_MAX_PENDING_TAGS = 2000;
+    private static final int MAX_CREDITS = 1 << 20;
+
+    private final AtomicInteger credits = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean creditBased;
+    private volatile int maxPendingTags = DEFAULT_MAX_PENDING_TAGS;
+
+    // Scheduler thread only
+    private final LinkedHashSet<EpcKey> pendingChanged = new LinkedHashSet<>();
+    private final LinkedHashSet<EpcKey> pendingRemoved = new LinkedHashSet<>();
+    private volatile boolean deferred; // also read by grant callers
+
+    /**
+     * @param creditBased    emit only as many updates as Dart requested
+     * @param initialCredits updates allowed right away in credit mode
+     * @param maxPendingTags bound of a conflated delta before it turns into a snapshot
+     */
+    public void configure(boolean creditBased, int initialCredits, int maxPendingTags) {
+        this.maxPendingTags = maxPendingTags;
+        credits.set(Math.min(initialCredits, MAX_CREDITS));
+        this.creditBased = creditBased;
+    }
+
+    public boolean isCreditBased() {
+        return creditBased;
+    }
+
+    /**
+     * Allows {@code count} more updates in credit mode.
+     */
+    public void grant(int count) {
+        int current;
+        do {
+            current = credits.get();
+        } while (!credits.compareAndSet(current, (int) Math.min((long) current + count, MAX_CREDITS)));
+    }
+
+    public int getCredits() {
+        return credits.get();
+    }
+
+    /**
+     * @return true if an update may be posted now; it must then be followed by
+     * {@link #onDelivered()} once it reached the listener, or {@link #refund()} if it was not sent
+     */
+    public boolean tryAcquire() {
+        if (!creditBased && inFlight.get() >= MAX_IN_FLIGHT) {
+            return false;
+        }
+        if (creditBased) {
+            int current;
+            do {
+                current = credits.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!credits.compareAndSet(current, current - 1));
+        }
+        inFlight.incrementAndGet();
+        return true;
+    }
+
+    public void onDelivered() {
+        inFlight.decrementAndGet();
+    }
+
+    public void refund() {
+        inFlight.decrementAndGet();
+        if (creditBased) {
+            grant(1);
+        }
+    }
+
+    /**
+     * Adds the keys of a delta to the pending delta. A key that changed after it was removed, or
+     * the other way round, ends up only in the later list. Within one delta the removals come
+     * last, since a tick merges reads before it evicts: a tag re-read and evicted in the same
+     * tick is pending as removed.
+     *
+     * @return false if the pending delta overflowed and was dropped; send a snapshot instead
+     */
+    public boolean add(List<EpcKey> changed, List<EpcKey> removed) {
+        if (changed != null) {
+            for (EpcKey key : changed) {
+                pendingRemoved.remove(key);
+                pendingChanged.add(key);
+            }
+        }
+        if (removed != null) {
+            for (EpcKey key : removed) {
+                pendingChanged.remove(key);
+                pendingRemoved.add(key);
+            }
+        }
+        if (pendingChanged.size() + pendingRemoved.size() > maxPendingTags) {
+            discard();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Marks that an update was held back and has to be sent once one may be posted again.
+     */
+    public void defer() {
+        deferred = true;
+    }
+
+    public boolean hasDeferred() {
+        return deferred;
+    }
+
+    public void clearDeferred() {
+        deferred = false;
+    }
+
+    public List<EpcKey> takeChanged() {
+        List<EpcKey> keys = new ArrayList<>(pendingChanged);
+        pendingChanged.clear();
+        return keys;
+    }
+
+    public List<EpcKey> takeRemoved() {
+        List<EpcKey> keys = new ArrayList<>(pendingRemoved);
+        pendingRemoved.clear();
+        return keys;
+    }
+
+    /**
+     * Forgets the pending delta, e.g. because a snapshot supersedes it.
+     */
+    public void discard() {
+        pendingChanged.clear();
+        pendingRemoved.clear();
+    }
+}
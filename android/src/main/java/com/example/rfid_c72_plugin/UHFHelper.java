@@ -3,23 +3,20 @@ package com.example.rfid_c72_plugin;
 import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
-import android.os.Message;
 import android.text.TextUtils;
 import android.util.Log;
 
-import com.rscja.barcode.BarcodeDecoder;
-import com.rscja.barcode.BarcodeFactory;
-import com.rscja.barcode.BarcodeUtility;
-import com.rscja.deviceapi.RFIDWithUHFUART;
-import com.rscja.deviceapi.entity.BarcodeEntity;
-import com.rscja.deviceapi.entity.UHFTAGInfo;
-import com.rscja.deviceapi.interfaces.IUHFInventoryCallback;
-import com.rscja.deviceapi.interfaces.IUHFLocationCallback;
-
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -35,41 +32,105 @@ import io.flutter.plugin.common.MethodChannel.Result;
  */
 public class UHFHelper {
     private static final String TAG = "UHFHelper";
-    private static final int MAX_TAG_CACHE_SIZE = 1000;  // Prevent memory issues with too many tags
-    private static final int BATCH_UPDATE_INTERVAL_MS = 200; // Batch update interval
+    private static final int DEFAULT_MAX_TAG_CACHE_SIZE = 1000;  // Prevent memory issues with too many tags
+    private static final int DEFAULT_BATCH_UPDATE_INTERVAL_MS = 200; // Batch update interval
+    private static final int DEFAULT_MAX_BATCH_SIZE = 500; // Adaptive mode: flush early at this many tags
+    private static final int DEFAULT_MAX_LATENCY_MS = 1000; // Adaptive mode: longest idle back-off
+    private static final int MIN_BATCH_UPDATE_INTERVAL_MS = 10;
+    private static final int DEFAULT_STATS_INTERVAL_MS = 1000;
+    private static final long READER_CLOSE_TIMEOUT_MS = 3000;
+    private static final int DEFAULT_LOCATION_RATE_HZ = 10;
+    private static final int MAX_LOCATION_RATE_HZ = 60;
+    private static final long MULTI_LOCATE_ABSENCE_MS = 500;
+    private static final int MIN_ASSOCIATION_WINDOW_MS = 50;
+    private static final int MAX_ASSOCIATION_WINDOW_MS = 60000;
+    private static final int MAX_ASSOCIATION_TAGS = 10000;
+    private static final int MIN_POWER_INTERVAL_MS = 250;
+    private static final int MAX_POWER_INTERVAL_MS = 60000;
+    private static final int MIN_STATS_INTERVAL_MS = 100;
+    private static final String JOURNAL_DIR = "rfid_journal";
+    private static final int DEFAULT_PRESENCE_ABSENCE_MS = 2000;
+    private static final int BATCH_BUFFER_CAPACITY = 5000; // Distinct tags per batch before reads are dropped
+    private static final int DELTA_SNAPSHOT_EVERY_TICKS = 25; // Full resync roughly every 5 s in delta mode
+
+    // Tag stream modes selectable from Flutter
+    public static final String STREAM_MODE_FULL = "full";
+    public static final String STREAM_MODE_DELTA = "delta";
+    public static final String STREAM_ENCODING_JSON = "json";
+    public static final String STREAM_ENCODING_BINARY = "binary";
 
     private static UHFHelper instance;
 
-    private RFIDWithUHFUART mReader;
-    private BarcodeDecoder barcodeDecoder;
-    private Handler rfidHandler;
-    private Handler barcodeHandler;
+    private RfidReader mReader;
+    private BarcodeSession barcodeSession;
     private UHFListener uhfListener;
     private Context context;
 
     // Atomic flags for thread safety
-    private final AtomicBoolean continuousRfidReadActive = new AtomicBoolean(false);
-    private final AtomicBoolean continuousBarcodeReadActive = new AtomicBoolean(false);
     private final AtomicBoolean isRfidConnected = new AtomicBoolean(false);
-    private final AtomicBoolean isInventoryRunning = new AtomicBoolean(false);
-    private final AtomicBoolean isBarcodeInitialized = new AtomicBoolean(false);
-    private final AtomicBoolean pendingUpdates = new AtomicBoolean(false);
 
-    private final AtomicBoolean isLocationRunning = new AtomicBoolean(false);
+    // Runs every reader command and tracks idle/inventory/locating. mReader is only touched from it.
+    private ReaderCommandExecutor readerCommands;
 
 
-    // Thread-safe maps for maintaining the tag list and a batch of new tag updates
-    private ConcurrentHashMap<String, EPC> tagList;
-    private ConcurrentHashMap<String, EPC> newTagsBatch;
+    // Bounded tag list (guarded by its own monitor), fed from a double-buffered batch of new reads
+    private TagCache tagList;
+    // Arrival/departure tracking, null while disabled. Guarded by the tag list monitor.
+    private PresenceTracker presenceTracker;
+    private TagAggregationBuffer newTagsBatch;
+    // Expected-list reconciliation, null until an expected list is loaded. Guarded by the tag list monitor.
+    private ExpectedTagSet expectedTags;
+    // Crash-safe session journal, null while disabled. Guarded by the tag list monitor.
+    private InventoryJournal journal;
 
+    // Tag stream state, only touched from the scheduler thread except for the volatile flags
     private String lastTagListJson = "";
+    private volatile boolean deltaMode = false;
+    private volatile boolean binaryEncoding = false;
+    private final AtomicBoolean snapshotRequested = new AtomicBoolean(false);
+    private long streamSequence = 0;
+    private int ticksSinceSnapshot = 0;
+
+    // Pipeline counters, always on
+    private final InventoryMetrics metrics = new InventoryMetrics();
+    // Rates of getInventoryStats() calls; the stats stream has a window of its own
+    private final InventoryMetrics.RateWindow pollStatsWindow = metrics.newRateWindow(System.nanoTime());
+    // Oldest read not yet emitted, scheduler thread only
+    private long batchOldestReadNanos;
+    private ScheduledFuture<?> statsTask;
+    // Backpressure of the tag stream, see configureTagStreamFlow
+    private final TagStreamFlow tagStreamFlow = new TagStreamFlow();
+
+    // Location smoothing: the filter is fed on the reader callback thread and guarded by its lock;
+    // at most one emission, which fills the reused payload on the main thread, is queued at a time.
+    private volatile LocationFilter locationFilter = new LocationFilter();
+    private final LocationData locationData = new LocationData();
+    private final AtomicBoolean locationEmitPending = new AtomicBoolean(false);
+    private volatile long minLocationIntervalNanos = TimeUnit.SECONDS.toNanos(1) / DEFAULT_LOCATION_RATE_HZ;
+    private volatile long lastLocationEmitNanos; // reader callback thread, reset by startTagLocation
+    private Handler locationHandler; // reader callback thread only
+    private final Runnable locationEmitter = this::emitLocation;
+    // Multi-tag locate, see startMultiTagLocation
+    private volatile MultiTagLocator multiLocator;
+    private ScheduledFuture<?> multiLocateTask; // command thread only
+    // Barcode + RFID association, see configureAssociation
+    private volatile AssociationTracker associationTracker;
+    // RF power auto-tuning, see configureAdaptivePower
+    private volatile AdaptivePowerController powerController;
 
 
-
-    private String scannedBarcode;
-
     // Scheduler to process batched tag updates
     private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> nextFlush;
+    private long currentFlushDelayMs;
+    private final AtomicBoolean earlyFlushRequested = new AtomicBoolean(false);
+
+    // Flush policy, see configureInventoryStream
+    private volatile int batchIntervalMs = DEFAULT_BATCH_UPDATE_INTERVAL_MS;
+    private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private volatile int maxLatencyMs = DEFAULT_MAX_LATENCY_MS;
+    private volatile boolean adaptiveFlush = false;
+    private volatile int maxTagCacheSize = DEFAULT_MAX_TAG_CACHE_SIZE;
 
     // Private constructor (singleton)
     private UHFHelper() { }
@@ -92,584 +153,1570 @@ public class UHFHelper {
 
     public void init(Context context) {
         this.context = context;
-        tagList = new ConcurrentHashMap<>();
-        newTagsBatch = new ConcurrentHashMap<>();
+        startPipeline();
+
+        File journalDir = journalDirectory();
+        if (InventoryJournal.exists(journalDir)) {
+            // A previous session was journaled, most likely killed mid-inventory: pick it up again
+            synchronized (tagList) {
+                journal = new InventoryJournal(journalDir);
+            }
+            scheduler.execute(this::restoreJournal);
+        }
+    }
+
+    /**
+     * The part of init() that needs no Context: tag list, batch buffer, flush scheduler and reader
+     * command thread. Tests call it directly, together with setReader.
+     */
+    void startPipeline() {
+        tagList = new TagCache(maxTagCacheSize);
+        newTagsBatch = new TagAggregationBuffer(BATCH_BUFFER_CAPACITY);
         scheduler = Executors.newSingleThreadScheduledExecutor();
+        if (readerCommands == null || readerCommands.isShutdown()) {
+            readerCommands = new ReaderCommandExecutor(metrics);
+        }
 
-        clearData();
+        clearSession();
 
-        // Create handlers on the main thread
-        if (Looper.myLooper() == Looper.getMainLooper()) {
-            initHandlers();
-        } else {
-            new Handler(Looper.getMainLooper()).post(this::initHandlers);
+        if (barcodeSession == null) {
+            barcodeSession = new BarcodeSession();
+            barcodeSession.setListener(this::recordBarcodeScan);
+            barcodeSession.setDecodeObserver(this::onBarcodeDecoded);
         }
 
         // Schedule the batch update processor
-        scheduler.scheduleWithFixedDelay(this::processBatchUpdates, BATCH_UPDATE_INTERVAL_MS,
-                BATCH_UPDATE_INTERVAL_MS, TimeUnit.MILLISECONDS);
-    }
-
-    private void initHandlers() {
-        rfidHandler = new Handler(Looper.getMainLooper()) {
-            @Override
-            public void handleMessage(Message msg) {
-                String result = msg.obj.toString();
-                // Expected format: EPC@RSSI
-                String[] parts = result.split("@");
-                if (parts.length >= 2) {
-                    addEPCToBatch(parts[0], parts[1]);
-                }
-            }
-        };
+        currentFlushDelayMs = batchIntervalMs;
+        scheduleNextFlush(currentFlushDelayMs);
+    }
 
-        barcodeHandler = new Handler(Looper.getMainLooper()) {
-            @Override
-            public void handleMessage(Message msg) {
-                String result = msg.obj.toString();
-                recordBarcodeScan(result);
-            }
-        };
+    /**
+     * Uses another reader, e.g. a SimulatedRfidReader, instead of the UART module. Call it
+     * before connectRfid.
+     */
+    void setReader(RfidReader reader) {
+        mReader = reader;
     }
 
     /**
-     * Process all batched tag updates. If a tag already exists, update its count and RSSI.
-     * This minimizes the number of updates sent over the platform channel.
+     * Waits until the reader commands queued so far have run.
+     *
+     * @return the reader state afterwards, or null on timeout
      */
-    private void processBatchUpdates() {
-        if (newTagsBatch.isEmpty() || !pendingUpdates.get()) {
-            return;
-        }
-        pendingUpdates.set(false);
+    String awaitReaderState(long timeoutMs) {
+        return readerCommands.call("state", () -> readerCommands.getState(), null, timeoutMs);
+    }
 
-        // Merge new tags into the main tag list
-        for (Map.Entry<String, EPC> entry : newTagsBatch.entrySet()) {
-            String epc = entry.getKey();
-            EPC newTag = entry.getValue();
+    /**
+     * Configures how often batched reads are flushed to Flutter. Null arguments keep their value.
+     *
+     * @param intervalMs   flush interval while tags are being read
+     * @param maxBatchSize adaptive mode: flush as soon as a batch holds this many distinct tags,
+     *                     at most the batch buffer capacity
+     * @param maxLatencyMs adaptive mode: upper bound for the idle back-off, at least the interval
+     * @param adaptive     flush early on large batches and back off while nothing changes
+     * @param maxTags      size of the native tag list
+     * @return false if a value is out of range
+     */
+    public boolean configureInventoryStream(Integer intervalMs, Integer maxBatchSize, Integer maxLatencyMs,
+                                            Boolean adaptive, Integer maxTags) {
+        int interval = intervalMs != null ? intervalMs : batchIntervalMs;
+        if ((intervalMs != null && intervalMs < MIN_BATCH_UPDATE_INTERVAL_MS)
+                || (maxBatchSize != null && (maxBatchSize < 1 || maxBatchSize > BATCH_BUFFER_CAPACITY))
+                || (maxLatencyMs != null && maxLatencyMs < interval)
+                || (maxTags != null && maxTags < 1)) {
+            Log.e(TAG, "Invalid inventory stream configuration");
+            return false;
+        }
+        if (intervalMs != null) this.batchIntervalMs = intervalMs;
+        if (maxBatchSize != null) this.maxBatchSize = maxBatchSize;
+        if (maxLatencyMs != null) this.maxLatencyMs = maxLatencyMs;
+        if (adaptive != null) this.adaptiveFlush = adaptive;
+        if (maxTags != null) this.maxTagCacheSize = maxTags;
 
-            if (tagList.containsKey(epc)) {
-                EPC existingTag = tagList.get(epc);
-                if (existingTag != null) {
-                    int count = Integer.parseInt(existingTag.getCount()) + Integer.parseInt(newTag.getCount());
-                    existingTag.setCount(String.valueOf(count));
-                    existingTag.setRssi(newTag.getRssi());
+        // Apply the new interval right away instead of after the current (possibly backed-off) delay
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.execute(() -> {
+                if (nextFlush != null && nextFlush.cancel(false)) {
+                    currentFlushDelayMs = batchIntervalMs;
+                    scheduleNextFlush(currentFlushDelayMs);
                 }
-            } else {
-                tagList.put(epc, newTag);
-            }
+            });
         }
-        newTagsBatch.clear();
+        return true;
+    }
 
-        if (tagList.size() > MAX_TAG_CACHE_SIZE) {
-            trimTagList();
+    private void scheduleNextFlush(long delayMs) {
+        try {
+            nextFlush = scheduler.schedule(this::runScheduledFlush, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Reader closed, scheduler shut down
         }
+    }
 
-        sendTagListUpdateToListener();
+    /**
+     * Runs on the scheduler thread: flushes and picks the next delay. With the adaptive policy
+     * the delay doubles on every tick that had nothing to send, up to maxLatencyMs, and drops
+     * back to the base interval as soon as reads arrive.
+     */
+    private void runScheduledFlush() {
+        earlyFlushRequested.set(false);
+        boolean flushed = false;
+        try {
+            flushed = processBatchUpdates();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error processing tag batch", e);
+        }
+        evaluatePower();
+        if (adaptiveFlush && !flushed) {
+            currentFlushDelayMs = Math.min(currentFlushDelayMs * 2, Math.max(maxLatencyMs, batchIntervalMs));
+        } else {
+            currentFlushDelayMs = batchIntervalMs;
+        }
+        scheduleNextFlush(currentFlushDelayMs);
     }
 
     /**
-     * Removes the oldest tags when the list exceeds MAX_TAG_CACHE_SIZE.
+     * Scheduler thread, after a flush and outside the tag list lock: lets the power controller
+     * decide on the reads it was given, also when a tick had none.
      */
-    private void trimTagList() {
-        int toRemove = tagList.size() - MAX_TAG_CACHE_SIZE;
-        int removed = 0;
-        for (String key : tagList.keySet()) {
-            tagList.remove(key);
-            removed++;
-            if (removed >= toRemove) break;
+    private void evaluatePower() {
+        AdaptivePowerController controller = powerController;
+        if (controller == null || !isContinuousRfidReadActive()) return;
+        Map<String, Object> decision = controller.evaluate(System.nanoTime());
+        if (decision != null) {
+            applyPowerDecision(controller, decision);
         }
     }
 
     /**
-     * Creates a JSON array of the current tags and sends it to the Flutter listener.
+     * Called on the producer thread after a read. In adaptive mode a batch that reached
+     * maxBatchSize is flushed immediately rather than waiting for the next tick.
      */
-    private void sendTagListUpdateToListener() {
-        if (uhfListener == null) return;
+    private void maybeFlushEarly() {
+        if (!adaptiveFlush || newTagsBatch.activeSize() < maxBatchSize
+                || !earlyFlushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.execute(() -> {
+                if (nextFlush != null && nextFlush.cancel(false)) {
+                    runScheduledFlush();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            earlyFlushRequested.set(false);
+        }
+    }
 
-        StringBuilder jsonBuilder = new StringBuilder("[");
-        boolean first = true;
+    /**
+     * Process all batched tag updates. If a tag already exists, update its count and RSSI.
+     * This minimizes the number of updates sent over the platform channel.
+     */
+    private boolean processBatchUpdates() {
+        boolean snapshotDue = snapshotRequested.get();
+        boolean ageing;
+        synchronized (tagList) {
+            ageing = TagCache.POLICY_TTL.equals(tagList.getPolicy()) || presenceTracker != null;
+        }
+        if (!newTagsBatch.hasPending() && !snapshotDue && !ageing && !tagStreamFlow.hasDeferred()) {
+            return false;
+        }
 
-        for (EPC epcTag : tagList.values()) {
-            if (!first) {
-                jsonBuilder.append(",");
-            } else {
-                first = false;
+        synchronized (tagList) {
+            final List<EpcKey> changed = deltaMode ? new ArrayList<EpcKey>() : null;
+            final PresenceTracker presence = presenceTracker;
+            final List<PresenceEvent> presenceEvents = presence != null ? new ArrayList<PresenceEvent>() : null;
+
+            // Swap out the batch and merge it into the main tag list. Reads arriving meanwhile
+            // go to the other buffer and are picked up on the next tick.
+            final ExpectedTagSet expected = expectedTags;
+            final List<String> newlyFound = expected != null ? new ArrayList<String>() : null;
+            final List<String> newlyUnexpected = expected != null ? new ArrayList<String>() : null;
+            final InventoryJournal.Batch journalBatch = journal != null ? new InventoryJournal.Batch() : null;
+            final long[] oldestRead = {0};
+            final int[] newTags = {0};
+            final AdaptivePowerController controller = powerController;
+            int drained = newTagsBatch.drain((key, newTag) -> {
+                long firstSeen = newTag.getFirstSeenNanos();
+                if (oldestRead[0] == 0 || firstSeen - oldestRead[0] < 0) {
+                    oldestRead[0] = firstSeen;
+                }
+                if (expected != null) {
+                    reconcile(expected, newTag.getEpcKey(), newTag, newlyFound, newlyUnexpected);
+                }
+                if (journalBatch != null) {
+                    journalBatch.add(newTag);
+                }
+                if (changed != null) {
+                    changed.add(key);
+                }
+                if (presence != null) {
+                    presence.onSeen(key, newTag.getEpcKey(), newTag.getLastSeenNanos(), presenceEvents);
+                }
+                int peakRssi = newTag.getPeakRssi();
+                boolean added = tagList.merge(key, newTag);
+                if (added) {
+                    newTags[0]++;
+                }
+                if (controller != null) {
+                    controller.onTagSeen(peakRssi, added);
+                }
+                return added;
+            });
+            if (drained > 0) {
+                metrics.onBatch(drained, newTags[0]);
+            }
+            // Held-back updates carry the reads of every batch since the last one sent
+            if (oldestRead[0] != 0 && (batchOldestReadNanos == 0 || oldestRead[0] - batchOldestReadNanos < 0)) {
+                batchOldestReadNanos = oldestRead[0];
+            }
+            if (expected != null && (!newlyFound.isEmpty() || !newlyUnexpected.isEmpty())) {
+                sendReconciliationToListener(expected.toMap(newlyFound, newlyUnexpected));
+            }
+            if (journalBatch != null && journal.append(journalBatch)) {
+                journal.compact(tagList.values());
+            }
+            if (presence != null) {
+                presence.advance(System.nanoTime(), presenceEvents);
+                sendPresenceEventsToListener(presenceEvents);
             }
 
-            jsonBuilder.append("{\"")
-                    .append(TagKey.ID).append("\":\"").append(epcTag.getId()).append("\",\"")
-                    .append(TagKey.EPC).append("\":\"").append(epcTag.getEpc()).append("\",\"")
-                    .append(TagKey.RSSI).append("\":\"").append(epcTag.getRssi()).append("\",\"")
-                    .append(TagKey.COUNT).append("\":\"").append(epcTag.getCount()).append("\"}");
-        }
-        jsonBuilder.append("]");
-        final String jsonString = jsonBuilder.toString();
+            List<EpcKey> removed = trimTagList();
+            boolean deferred = tagStreamFlow.hasDeferred();
+            if (drained == 0 && removed.isEmpty() && !snapshotDue && !deferred) {
+                return false;
+            }
 
-        // Only send if the tag list has changed since the last update.
-        if (jsonString.equals(lastTagListJson)) {
-            // No changes detected, skip update.
-            return;
+            // Deltas are merged into the pending one; the full list is re-encoded when sent anyway
+            if (deltaMode && !tagStreamFlow.add(changed, removed)) {
+                metrics.onDeltaOverflow();
+                snapshotRequested.set(true);
+            }
+            if (!tagStreamFlow.tryAcquire()) {
+                if (drained > 0 || !removed.isEmpty()) {
+                    metrics.onConflated();
+                }
+                tagStreamFlow.defer();
+                return true;
+            }
+            tagStreamFlow.clearDeferred();
+            if (deltaMode) {
+                sendTagDeltaToListener(tagStreamFlow.takeChanged(), tagStreamFlow.takeRemoved());
+            } else {
+                sendTagListUpdateToListener();
+            }
+            batchOldestReadNanos = 0;
         }
-        lastTagListJson = jsonString;
+        return true;
+    }
 
-        new Handler(Looper.getMainLooper()).post(() ->
-                uhfListener.onRfidRead(jsonString));
+    private static void reconcile(ExpectedTagSet expected, EpcKey epc, EPC tag,
+                                  List<String> newlyFound, List<String> newlyUnexpected) {
+        switch (expected.onSeen(epc)) {
+            case ExpectedTagSet.SEEN_FOUND:
+                newlyFound.add(epc.toString());
+                tag.setFind(true);
+                break;
+            case ExpectedTagSet.SEEN_FOUND_AGAIN:
+                tag.setFind(true);
+                break;
+            case ExpectedTagSet.SEEN_UNEXPECTED:
+                newlyUnexpected.add(epc.toString());
+                break;
+            default:
+                break;
+        }
     }
 
-    public String readBarcode() {
-        return scannedBarcode != null ? scannedBarcode : "FAIL";
+    private void sendReconciliationToListener(final Map<String, Object> update) {
+        if (uhfListener == null) return;
+        new Handler(Looper.getMainLooper()).post(() -> uhfListener.onReconciliation(update));
     }
 
-    public boolean connectRfid() {
-        try {
-            mReader = RFIDWithUHFUART.getInstance();
-        } catch (Exception ex) {
-            Log.e(TAG, "Error obtaining RFID instance", ex);
-            notifyRfidConnect(false, 0);
-            return false;
+    /**
+     * Loads the expected EPC list, packed as [u8 length][EPC bytes] entries, and reconciles it
+     * against the tags already in the list. From then on every flush updates the found, missing
+     * and unexpected counts; the reconciliation channel gets the new counters and the EPCs that
+     * changed state. An empty list turns reconciliation off.
+     *
+     * @return number of distinct expected EPCs
+     */
+    public int loadExpectedTags(byte[] packed) {
+        ExpectedTagSet expected = packed != null && packed.length > 0 ? new ExpectedTagSet(packed) : null;
+        if (tagList == null) return 0;
+
+        synchronized (tagList) {
+            // Found flags belong to the list being replaced
+            if (expectedTags != null) {
+                for (EPC tag : tagList.values()) {
+                    tag.setFind(false);
+                }
+            }
+            expectedTags = expected;
+            if (expected == null) {
+                return 0;
+            }
+            List<String> newlyFound = new ArrayList<>();
+            List<String> newlyUnexpected = new ArrayList<>();
+            for (EPC tag : tagList.values()) {
+                reconcile(expected, tag.getEpcKey(), tag, newlyFound, newlyUnexpected);
+            }
+            sendReconciliationToListener(expected.toMap(newlyFound, newlyUnexpected));
+            return expected.size();
         }
-        if (mReader != null) {
-            boolean connected = mReader.init(context);
-            isRfidConnected.set(connected);
-            notifyRfidConnect(connected, 0);
-            return connected;
+    }
+
+    /**
+     * @param which "found", "missing" or "unexpected"
+     * @return the EPCs in that state, empty if no expected list is loaded
+     */
+    public List<String> getReconciliationList(String which) {
+        if (tagList == null) return new ArrayList<>();
+        synchronized (tagList) {
+            return expectedTags != null ? expectedTags.getList(which) : new ArrayList<String>();
         }
-        notifyRfidConnect(false, 0);
-        return false;
     }
 
-    private void notifyRfidConnect(final boolean connected, final int code) {
-        if (uhfListener != null) {
-            new Handler(Looper.getMainLooper()).post(() ->
-                    uhfListener.onRfidConnect(connected, code));
+    private void sendPresenceEventsToListener(List<PresenceEvent> events) {
+        if (uhfListener == null || events.isEmpty()) return;
+
+        long nowNanos = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+        final List<Map<String, Object>> payload = new ArrayList<>(events.size());
+        for (PresenceEvent event : events) {
+            payload.add(event.toMap(nowNanos, nowMillis));
         }
+        new Handler(Looper.getMainLooper()).post(() ->
+                uhfListener.onPresenceEvents(payload));
     }
 
-    public boolean connectBarcode() {
-        try {
-            if (barcodeDecoder == null) {
-                barcodeDecoder = BarcodeFactory.getInstance().getBarcodeDecoder();
+    /**
+     * Enables arrival/departure events on the presence channel.
+     *
+     * @param enabled   false stops tracking and forgets which tags are present
+     * @param absenceMs how long a tag must go unseen before it is reported as departed
+     * @return false if the absence window is not positive
+     */
+    public boolean configurePresence(boolean enabled, Integer absenceMs) {
+        synchronized (tagList) {
+            if (!enabled) {
+                presenceTracker = null;
+                return true;
             }
-            boolean success = barcodeDecoder.open(context);
-            if (success) {
-                isBarcodeInitialized.set(true);
-                BarcodeUtility.getInstance().enablePlaySuccessSound(context, true);
-                barcodeDecoder.setDecodeCallback(new BarcodeDecoder.DecodeCallback() {
-                    @Override
-                    public void onDecodeComplete(BarcodeEntity barcodeEntity) {
-                        if (barcodeEntity.getResultCode() == BarcodeDecoder.DECODE_SUCCESS) {
-                            scannedBarcode = barcodeEntity.getBarcodeData();
-                            Message msg = barcodeHandler.obtainMessage();
-                            msg.obj = scannedBarcode;
-                            barcodeHandler.sendMessage(msg);
-                        } else {
-                            Message msg = barcodeHandler.obtainMessage();
-                            msg.obj = "-1";
-                            barcodeHandler.sendMessage(msg);
-                        }
-                    }
-                });
+            long window = absenceMs != null ? absenceMs : DEFAULT_PRESENCE_ABSENCE_MS;
+            if (window <= 0) {
+                Log.e(TAG, "Presence absence window must be positive");
+                return false;
+            }
+            if (presenceTracker == null) {
+                presenceTracker = new PresenceTracker(window);
+            } else {
+                presenceTracker.setAbsenceWindow(window);
             }
-            return success;
-        } catch (Exception e) {
-            Log.e(TAG, "Error initializing barcode scanner", e);
-            return false;
         }
+        return true;
     }
 
-    public boolean scanBarcode() {
-        if (!isBarcodeInitialized.get()) {
-            Log.e(TAG, "Barcode scanner not initialized");
-            return false;
-        }
-        barcodeDecoder.startScan();
+    /**
+     * Applies the tag cache eviction policy (see setTagEvictionPolicy).
+     *
+     * @return the keys that were removed, so delta listeners can drop them too
+     */
+    private List<EpcKey> trimTagList() {
+        List<EpcKey> removed = new ArrayList<>();
+        tagList.setMaxSize(maxTagCacheSize);
+        tagList.evict(System.nanoTime(), removed);
+        return removed;
+    }
+
+    /**
+     * Selects what identifies a tag in the tag list: its EPC (default), its TID, or both, e.g. for
+     * serialized-TID workflows where several tags carry the same EPC. Reads without a TID are
+     * keyed by EPC in every mode. Switching clears the session, since existing entries were
+     * deduplicated under the old key.
+     *
+     * @param mode TagAggregationBuffer.DEDUP_EPC, DEDUP_TID or DEDUP_EPC_TID
+     * @return false if the mode is unknown
+     */
+    public boolean setTagDedupKey(String mode) {
+        if (newTagsBatch == null) return false;
+        if (mode != null && mode.equals(newTagsBatch.getDedupKey())) return true;
+        if (!newTagsBatch.setDedupKey(mode)) return false;
+        clearData();
         return true;
     }
 
-    public boolean stopScanBarcode() {
-        if (!isBarcodeInitialized.get()) {
+    /**
+     * Selects how tags are evicted once the tag list is full.
+     *
+     * @param policy TagCache.POLICY_LRU (least recently seen first, default),
+     *               TagCache.POLICY_TTL (also drop tags not seen for ttlMs) or
+     *               TagCache.POLICY_LOWEST_RSSI (weakest signal first)
+     * @param ttlMs  age limit for POLICY_TTL
+     * @return false if the policy is unknown or the TTL is missing
+     */
+    public boolean setTagEvictionPolicy(String policy, Integer ttlMs) {
+        if (TagCache.POLICY_TTL.equals(policy) && (ttlMs == null || ttlMs <= 0)) {
+            Log.e(TAG, "TTL eviction needs a positive ttlMs");
             return false;
         }
-        barcodeDecoder.stopScan();
+        synchronized (tagList) {
+            if (!tagList.setPolicy(policy, ttlMs != null ? ttlMs : 0)) {
+                Log.e(TAG, "Unknown eviction policy: " + policy);
+                return false;
+            }
+        }
         return true;
     }
 
-    public boolean closeScanBarcode() {
-        if (barcodeDecoder != null) {
-            barcodeDecoder.close();
-            isBarcodeInitialized.set(false);
-            continuousBarcodeReadActive.set(false);
-            return true;
+    /**
+     * @return number of tags evicted from the tag list since the plugin was initialized
+     */
+    public long getEvictedTagCount() {
+        synchronized (tagList) {
+            return tagList.getEvictedCount();
         }
-        return false;
     }
 
-    public boolean startRfidSingle() {
-        if (continuousRfidReadActive.get() || isInventoryRunning.get()) {
-            Log.e(TAG, "Cannot perform single read while continuous read is active");
-            return false;
+    /**
+     * Writes the session's tag list to a file on the scheduler thread, after flushing pending
+     * reads. Relative paths resolve against the app's files directory. Completes with
+     * {"path": absolute path, "rows": row count} on the main thread.
+     */
+    public void exportSession(final String path, final String format, final Result resultCallback) {
+        if (path == null || path.isEmpty() || !TagExporter.isSupportedFormat(format)) {
+            resultCallback.error("INVALID_ARGUMENT", "Expected a path and format 'csv' or 'binary'", null);
+            return;
         }
-        UHFTAGInfo tagInfo = mReader.inventorySingleTag();
-        if (tagInfo != null) {
-            // Directly add to batch for processing
-            addEPCToBatch(tagInfo.getEPC(), tagInfo.getRssi());
-            return true;
+        if (tagList == null || scheduler == null || scheduler.isShutdown()) {
+            resultCallback.error("NOT_INITIALIZED", "Plugin is not initialized", null);
+            return;
         }
-        return false;
-    }
 
-    public boolean startRfidContinuous() {
-        if (continuousRfidReadActive.get() || isInventoryRunning.get()) {
-            Log.e(TAG, "Continuous RFID read already active");
-            return true;
-        }
-        if (mReader != null) {
-            isInventoryRunning.set(true);
-            continuousRfidReadActive.set(true);
-            new RfidContinuousReadThread().start();
-            return true;
+        File target = new File(path);
+        final File file = target.isAbsolute() ? target : new File(context.getFilesDir(), path);
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        try {
+            scheduler.execute(() -> {
+                try {
+                    processBatchUpdates();
+                    int rows;
+                    long start = System.nanoTime();
+                    synchronized (tagList) {
+                        rows = TagExporter.export(tagList.values(), file, format);
+                    }
+                    Log.d(TAG, "Exported " + rows + " tags in " + (System.nanoTime() - start) / 1_000_000L + " ms");
+                    final Map<String, Object> exported = new HashMap<>();
+                    exported.put("path", file.getAbsolutePath());
+                    exported.put("rows", rows);
+                    mainHandler.post(() -> resultCallback.success(exported));
+                } catch (final IOException | RuntimeException e) {
+                    // e.g. a SecurityException for the path; the Dart future must complete either way
+                    Log.e(TAG, "Error exporting session", e);
+                    mainHandler.post(() -> resultCallback.error("EXPORT_FAILED", e.getMessage(), null));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            resultCallback.error("NOT_INITIALIZED", "Plugin is shutting down", null);
         }
-        Log.e(TAG, "mReader is null");
-        return false;
     }
 
     /**
-     * Starts locating a specific RFID tag asynchronously.
-     *
-     * This method offloads the heavy work off the main thread so that the UI remains responsive.
-     * It returns the result (true if the location operation started successfully, false otherwise)
-     * via the provided Flutter platform channel callback.
-     *
-     * @param epc            The EPC of the tag to locate.
-     * @param resultCallback The callback to return the result.
+     * Creates a JSON array of the current tags and sends it to the Flutter listener. Unchanged
+     * lists are skipped unless a snapshot was requested.
      */
-    public void startTagLocation(final String epc, final Result resultCallback) {
-        if (mReader == null || !isRfidConnected.get() || epc == null || epc.isEmpty()) {
-            Log.e(TAG, "Cannot start tag location - reader not connected or invalid EPC");
-            resultCallback.success(false);
+    private void sendTagListUpdateToListener() {
+        if (uhfListener == null) {
+            tagStreamFlow.refund();
             return;
         }
+        boolean requested = snapshotRequested.getAndSet(false);
 
-        // Stop any ongoing inventory before starting location scanning.
-        if (isInventoryRunning.get() || continuousRfidReadActive.get()) {
-            stopRfid();
-        }
-
-        // Stop current location scanning if one is already running.
-        if (isLocationRunning.get()) {
-            stopTagLocation();
-        }
-
-        // Offload the heavy location-starting process to a background thread.
-        Executors.newSingleThreadExecutor().submit(() -> {
-            // Call the blocking native method.
-            final boolean success = mReader.startLocation(
-                    context,
-                    epc,
-                    RFIDWithUHFUART.Bank_EPC,
-                    32,
-                    new IUHFLocationCallback() {
-                        @Override
-                        public void getLocationValue(final int value, final boolean valid) {
-                            // Post location callback back to the main thread.
-                            new Handler(Looper.getMainLooper()).post(new Runnable() {
-                                @Override
-                                public void run() {
-                                    if (uhfListener != null) {
-                                        uhfListener.onLocationValue(value, valid);
-                                    }
-                                }
-                            });
-                        }
-                    }
-            );
+        if (binaryEncoding) {
+            final byte[] batch = TagBatchEncoder.encode(tagList.values(), null, 0,
+                    TagBatchEncoder.FLAG_FULL | TagBatchEncoder.keyFlags(newTagsBatch.getDedupKey()));
+            emitTagUpdate(() -> uhfListener.onRfidBatch(batch));
+            return;
+        }
 
-            Log.d(TAG, "LOCATION SUCCESS: " + success);
+        final String jsonString = TagJsonEncoder.encodeList(tagList.values());
 
-            if (success) {
-                isLocationRunning.set(true);
-                Log.d(TAG, "Tag location started for EPC: " + epc);
-                // Optionally, start a polling thread to keep the location operation active.
-                new LocationPollingThread().start();
-            }
+        // Only send if the tag list has changed since the last update.
+        if (!requested && jsonString.equals(lastTagListJson)) {
+            // No changes detected, skip update.
+            tagStreamFlow.refund();
+            return;
+        }
+        lastTagListJson = jsonString;
 
-            // Post the result back to the main thread.
-            new Handler(Looper.getMainLooper()).post(() -> resultCallback.success(success));
-        });
+        emitTagUpdate(() -> uhfListener.onRfidRead(jsonString));
     }
 
+    /**
+     * Sends only the tags that changed since the previous tick, wrapped in an envelope carrying a
+     * sequence number. Every DELTA_SNAPSHOT_EVERY_TICKS ticks, or when Flutter asked for a resync,
+     * the complete tag list is sent instead with "full" set to true.
+     *
+     * Envelope: {"seq":n,"full":bool,"tags":[...],"removed":["epc",...]}
+     */
+    private void sendTagDeltaToListener(List<EpcKey> changed, List<EpcKey> removed) {
+        if (uhfListener == null) {
+            tagStreamFlow.refund();
+            return;
+        }
 
+        boolean full = snapshotRequested.getAndSet(false) || ++ticksSinceSnapshot >= DELTA_SNAPSHOT_EVERY_TICKS;
+        if (full) {
+            ticksSinceSnapshot = 0;
+        }
 
-//    /**
-//     * Starts locating a specific RFID tag based on its EPC
-//     * @param epc The EPC of the tag to locate
-//     * @return true if started successfully, false otherwise
-//     */
-//    public boolean startTagLocation(String epc) {
-//        if (mReader == null || !isRfidConnected.get() || epc == null || epc.isEmpty()) {
-//            Log.e(TAG, "Cannot start tag location - reader not connected or invalid EPC");
-//            return false;
-//        }
-//
-//        if (isInventoryRunning.get() || continuousRfidReadActive.get()) {
-//            stopRfid(); // Stop any ongoing inventory before starting location
-//        }
-//
-//        if (isLocationRunning.get()) {
-//            stopTagLocation(); // Stop current location if already running
-//        }
-//
-//        boolean success = mReader.startLocation(context, epc, RFIDWithUHFUART.Bank_EPC, 32,
-//                new IUHFLocationCallback() {
-//                    @Override
-//                    public void getLocationValue(int value, boolean valid) {
-//                        if (uhfListener != null) {
-//                            new Handler(Looper.getMainLooper()).post(() ->
-//                                    uhfListener.onLocationValue(value, valid));
-//                        }
-//                    }
-//                });
-//
-//        Log.d(TAG, "LOCATION SUCCESS: " + success);
-//
-//        if (success) {
-//            isLocationRunning.set(true);
-//            Log.d(TAG, "Tag location started for EPC: " + epc);
-//
-//            // Start a polling thread to keep the location operation active
-//            new LocationPollingThread().start();
-//        }
-//
-//
-//        return success;
-//    }
-
-    class LocationPollingThread extends Thread {
-        @Override
-        public void run() {
-            Log.d(TAG, "Location polling thread started");
-            while (isLocationRunning.get()) {
-                try {
-                    // Poll at a reasonable interval
-                    Thread.sleep(50);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
+        Collection<EPC> tags;
+        if (full) {
+            tags = tagList.values();
+            removed = null;
+        } else {
+            List<EPC> changedTags = new ArrayList<>(changed != null ? changed.size() : 0);
+            if (changed != null) {
+                for (EpcKey key : changed) {
+                    EPC epcTag = tagList.get(key);
+                    if (epcTag != null) { // may have been trimmed in this very tick
+                        changedTags.add(epcTag);
+                    }
                 }
             }
-            Log.d(TAG, "Location polling thread stopped");
+            tags = changedTags;
         }
+        long seq = ++streamSequence;
+
+        if (binaryEncoding) {
+            int flags = TagBatchEncoder.FLAG_DELTA | (full ? TagBatchEncoder.FLAG_FULL : 0)
+                    | TagBatchEncoder.keyFlags(newTagsBatch.getDedupKey());
+            final byte[] batch = TagBatchEncoder.encode(tags, removed, seq, flags);
+            emitTagUpdate(() -> uhfListener.onRfidBatch(batch));
+            return;
+        }
+
+        final String jsonString = TagJsonEncoder.encodeDelta(tags, removed, seq, full, newTagsBatch.getDedupKey());
+
+        emitTagUpdate(() -> uhfListener.onRfidRead(jsonString));
     }
 
     /**
-     * Stops the currently running tag location operation
-     * @return true if stopped successfully, false otherwise
+     * Posts a tag stream update to the main thread and records how long it queued there and how
+     * old the oldest read it carries is by the time it reaches the listener. The tag stream
+     * forwards on the main thread without another hop, so once the listener returns the update
+     * has been handed to the EventSink and its in-flight slot can be released.
      */
-    public boolean stopTagLocation() {
-        if (mReader != null && isLocationRunning.get()) {
-            boolean success = mReader.stopLocation();
-            isLocationRunning.set(false);
-            Log.d(TAG, "Tag location stopped, result: " + success);
-            return success;
-        }
-        return false;
+    private void emitTagUpdate(final Runnable emit) {
+        final long oldestRead = batchOldestReadNanos;
+        final long postedNanos = System.nanoTime();
+        new Handler(Looper.getMainLooper()).post(() -> {
+            long now = System.nanoTime();
+            emit.run();
+            tagStreamFlow.onDelivered();
+            metrics.onEmit(oldestRead, now - postedNanos, now);
+        });
     }
+
     /**
-     * Checks if tag location is currently running
-     * @return true if location is running, false otherwise
+     * Configures backpressure of the tag stream. By default at most TagStreamFlow.MAX_IN_FLIGHT
+     * updates wait for the main thread and anything beyond is conflated. With creditBased set,
+     * updates are only sent as Dart requests them through requestTagUpdates. Null arguments keep
+     * their value; initialCredits defaults to 1.
+     *
+     * @param maxPendingTags bound of a conflated delta; beyond it a snapshot is sent instead
+     * @return false if a value is out of range
      */
-    public boolean isLocationRunning() {
-        return isLocationRunning.get();
+    public boolean configureTagStreamFlow(Boolean creditBased, Integer initialCredits, Integer maxPendingTags) {
+        if ((initialCredits != null && initialCredits < 0) || (maxPendingTags != null && maxPendingTags < 1)) {
+            Log.e(TAG, "Invalid tag stream flow configuration");
+            return false;
+        }
+        tagStreamFlow.configure(
+                creditBased != null ? creditBased : tagStreamFlow.isCreditBased(),
+                initialCredits != null ? initialCredits : 1,
+                maxPendingTags != null ? maxPendingTags : TagStreamFlow.DEFAULT_MAX_PENDING_TAGS);
+        return true;
     }
 
     /**
-     * Sets the dynamic distance for radar positioning
-     * @param value Value between 1-30
-     * @return true if set successfully, false otherwise
+     * Credit mode: allows {@code count} more tag stream updates. Anything held back meanwhile is
+     * sent right away instead of on the next tick.
      */
-    public boolean setLocationDynamicDistance(int value) {
-        if (mReader != null && isRfidConnected.get()) {
-            return mReader.setDynamicDistance(value);
+    public void requestTagUpdates(int count) {
+        if (count <= 0) return;
+        tagStreamFlow.grant(count);
+        if (tagStreamFlow.hasDeferred() && scheduler != null) {
+            try {
+                scheduler.execute(() -> {
+                    if (nextFlush != null && nextFlush.cancel(false)) {
+                        runScheduledFlush();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Reader closed
+            }
         }
-        return false;
     }
 
-    public boolean startBarcodeContinuous() {
-        continuousBarcodeReadActive.set(true);
-        new BarcodeContinuousReadThread().start();
-        return true;
+    /**
+     * @return current pipeline statistics: totals, reads and new unique tags per second since
+     * the previous sample, batch size and latency histograms, evictions and dropped reads
+     */
+    public Map<String, Object> getInventoryStats() {
+        return getInventoryStats(pollStatsWindow);
     }
 
-    public void clearData() {
-        scannedBarcode = null;
+    private Map<String, Object> getInventoryStats(InventoryMetrics.RateWindow window) {
+        int tagCount = 0;
+        long evictions = 0;
         if (tagList != null) {
-            tagList.clear();
-        }
-        if (newTagsBatch != null) {
-            newTagsBatch.clear();
+            synchronized (tagList) {
+                tagCount = tagList.size();
+                evictions = tagList.getEvictedCount();
+            }
         }
-    }
-
-    public boolean stopRfid() {
-        if (mReader != null) {
-            continuousRfidReadActive.set(false);
-            isInventoryRunning.set(false);
-            mReader.stopInventory();
-            mReader.setInventoryCallback(null);
-            return true;
+        Map<String, Object> stats = metrics.snapshot(tagCount, evictions,
+                newTagsBatch != null ? newTagsBatch.getDroppedReads() : 0,
+                newTagsBatch != null ? newTagsBatch.getFilteredReads() : 0,
+                System.nanoTime(), window);
+        stats.put("readerState", readerCommands != null ? readerCommands.getState() : ReaderCommandExecutor.STATE_IDLE);
+        if (barcodeSession != null) {
+            barcodeSession.putStats(stats);
         }
-        return false;
+        return stats;
     }
 
-    public void closeRfidReader() {
-        continuousRfidReadActive.set(false);
-        if (isLocationRunning.get()) {
-            stopTagLocation();
-        }
-
-        if (mReader != null) {
-            mReader.free();
-            isRfidConnected.set(false);
+    /**
+     * Streams getInventoryStats() to the listener every intervalMs while enabled.
+     *
+     * @return false if the interval is too short or the plugin is not initialized
+     */
+    public synchronized boolean configureInventoryStats(boolean enabled, Integer intervalMs) {
+        int interval = intervalMs != null ? intervalMs : DEFAULT_STATS_INTERVAL_MS;
+        if (scheduler == null || scheduler.isShutdown() || interval < MIN_STATS_INTERVAL_MS) return false;
+        if (statsTask != null) {
+            statsTask.cancel(false);
+            statsTask = null;
         }
-        if (scheduler != null && !scheduler.isShutdown()) {
-            scheduler.shutdown();
+        if (enabled) {
+            final InventoryMetrics.RateWindow window = metrics.newRateWindow(System.nanoTime());
             try {
-                scheduler.awaitTermination(1, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                Log.e(TAG, "Scheduler termination interrupted", e);
-                Thread.currentThread().interrupt();
+                statsTask = scheduler.scheduleAtFixedRate(() -> sendInventoryStatsToListener(window),
+                        interval, interval, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                return false;
             }
         }
-        clearData();
+        return true;
     }
 
-    public boolean setPowerLevel(String level) {
-        if (mReader != null) {
-            return mReader.setPower(Integer.parseInt(level));
+    private void sendInventoryStatsToListener(InventoryMetrics.RateWindow window) {
+        if (uhfListener == null) return;
+        final Map<String, Object> stats = getInventoryStats(window);
+        new Handler(Looper.getMainLooper()).post(() -> uhfListener.onInventoryStats(stats));
+    }
+
+    /**
+     * Selects how tag updates are sent on the tagsStatusSubject channel.
+     *
+     * @param mode STREAM_MODE_FULL (the whole list as a JSON array, default) or STREAM_MODE_DELTA
+     * @return true if the mode is known
+     */
+    public boolean setTagStreamMode(String mode) {
+        if (STREAM_MODE_FULL.equals(mode)) {
+            deltaMode = false;
+            requestTagSnapshot();
+            return true;
+        }
+        if (STREAM_MODE_DELTA.equals(mode)) {
+            deltaMode = true;
+            requestTagSnapshot();
+            return true;
         }
+        Log.e(TAG, "Unknown tag stream mode: " + mode);
         return false;
     }
 
-    public boolean setWorkArea(String area) {
-        if (mReader != null) {
-            return mReader.setFrequencyMode(Integer.parseInt(area));
+    /**
+     * Selects the payload encoding of the tag stream.
+     *
+     * @param encoding STREAM_ENCODING_JSON (default) or STREAM_ENCODING_BINARY (see TagBatchEncoder)
+     * @return true if the encoding is known
+     */
+    public boolean setTagStreamEncoding(String encoding) {
+        if (STREAM_ENCODING_JSON.equals(encoding)) {
+            binaryEncoding = false;
+        } else if (STREAM_ENCODING_BINARY.equals(encoding)) {
+            binaryEncoding = true;
+        } else {
+            Log.e(TAG, "Unknown tag stream encoding: " + encoding);
+            return false;
         }
-        return false;
+        requestTagSnapshot();
+        return true;
     }
 
     /**
-     * Adds a new tag (or updates an existing one) into the batch.
-     * The merge ensures that if the tag is already in the batch, its count is incremented and RSSI updated.
+     * Asks for a full snapshot on the next tick, in either stream mode. Used by Flutter when it
+     * detects a sequence gap, and whenever the mode or encoding changes.
      */
-    private void addEPCToBatch(String epc, String rssi) {
-        if (TextUtils.isEmpty(epc)) return;
+    public void requestTagSnapshot() {
+        snapshotRequested.set(true);
+    }
 
-        EPC tag = new EPC();
-        tag.setId("");
-        tag.setEpc(epc);
-        tag.setCount("1");
-        tag.setRssi(rssi);
-
-        newTagsBatch.merge(epc, tag, (existing, incoming) -> {
-            int count = Integer.parseInt(existing.getCount()) + 1;
-            existing.setCount(String.valueOf(count));
-            existing.setRssi(incoming.getRssi());
-            return existing;
-        });
-        pendingUpdates.set(true);
+    public String readBarcode() {
+        String code = barcodeSession != null ? barcodeSession.getLastCode() : null;
+        return code != null ? code : "FAIL";
+    }
+
+    public void connectRfid(Result result) {
+        runReaderCommand("connect", false, () -> {
+            if (mReader == null) {
+                mReader = new UartRfidReader(context);
+            }
+            boolean connected = mReader.init();
+            isRfidConnected.set(connected);
+            notifyRfidConnect(connected, 0);
+            return connected;
+        }, result);
     }
 
     /**
-     * Notifies the listener with the scanned barcode.
+     * Runs a reader command and reports its result to Flutter on the main thread.
      */
-    private void recordBarcodeScan(String barcodeScan) {
+    private <T> void runReaderCommand(String name, T fallback, ReaderCommandExecutor.Command<T> command,
+                                      final Result result) {
+        if (readerCommands == null) {
+            result.error("NOT_INITIALIZED", "Plugin is not initialized", null);
+            return;
+        }
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        readerCommands.submit(name, command, fallback, value -> mainHandler.post(() -> result.success(value)));
+    }
+
+    /**
+     * Command thread: ends the running inventory or location, if any.
+     */
+    private void stopReaderActivity() {
+        String state = readerCommands.getState();
+        if (ReaderCommandExecutor.STATE_INVENTORY.equals(state)) {
+            mReader.stopInventory();
+            mReader.setTagCallback(null);
+            Log.d(TAG, "Stopped inventory");
+        } else if (ReaderCommandExecutor.STATE_LOCATING.equals(state)) {
+            boolean stopped = mReader.stopLocation();
+            Log.d(TAG, "Tag location stopped, result: " + stopped);
+        } else if (ReaderCommandExecutor.STATE_MULTI_LOCATING.equals(state)) {
+            mReader.stopInventory();
+            mReader.setTagCallback(null);
+            if (multiLocateTask != null) {
+                multiLocateTask.cancel(false);
+                multiLocateTask = null;
+            }
+            multiLocator = null;
+            Log.d(TAG, "Multi-tag location stopped");
+        }
+        readerCommands.setState(ReaderCommandExecutor.STATE_IDLE);
+    }
+
+    private boolean isReaderIdle() {
+        return readerCommands == null || ReaderCommandExecutor.STATE_IDLE.equals(readerCommands.getState());
+    }
+
+    /**
+     * Enables the on-device session journal. While enabled every flushed batch is appended to
+     * a crash-safe log in app storage, and the next init() reloads the session from it.
+     * Disabling deletes the journal, also one kept on disk by closeRfidReader.
+     */
+    public void configureJournal(boolean enabled) {
+        if (tagList == null || context == null) return;
+
+        synchronized (tagList) {
+            if (enabled && journal == null) {
+                journal = new InventoryJournal(journalDirectory());
+                // Start from a snapshot of what is already in memory
+                journal.compact(tagList.values());
+            } else if (!enabled && journal != null) {
+                journal.delete();
+                journal = null;
+            } else if (!enabled) {
+                InventoryJournal.deleteFiles(journalDirectory());
+            }
+        }
+    }
+
+    private File journalDirectory() {
+        return new File(context.getFilesDir(), JOURNAL_DIR);
+    }
+
+    public boolean isJournalEnabled() {
+        if (tagList == null) return false;
+        synchronized (tagList) {
+            return journal != null;
+        }
+    }
+
+    /**
+     * Reloads the journaled session into the tag list and pushes it to the listener.
+     * Scheduler thread, so no flush can interleave with the replay.
+     */
+    private void restoreJournal() {
+        synchronized (tagList) {
+            if (journal == null) return;
+            long start = System.nanoTime();
+            int restored = journal.restore(tagList, newTagsBatch.getDedupKey());
+            Log.i(TAG, "Restored " + restored + " journaled tags in "
+                    + (System.nanoTime() - start) / 1_000_000L + " ms");
+            // Rewrite as a fresh generation so a torn tail or corrupt snapshot is left behind
+            journal.compact(tagList.values());
+            trimTagList();
+            if (deltaMode) {
+                requestTagSnapshot();
+            } else {
+                // Sent by the next flush, subject to the stream's flow control
+                tagStreamFlow.defer();
+            }
+        }
+    }
+
+    /**
+     * Replaces the reader backend, e.g. with a SimulatedRfidReader for load tests.
+     * Passing null goes back to the built-in UART module on the next connectRfid.
+     *
+     * Reports false if the current reader is busy.
+     */
+    public void setReader(final RfidReader reader, Result result) {
+        runReaderCommand("setReader", false, () -> {
+            if (!isReaderIdle()) {
+                Log.e(TAG, "Cannot replace the reader while it is running");
+                return false;
+            }
+            if (mReader != null && isRfidConnected.get()) {
+                mReader.free();
+                isRfidConnected.set(false);
+            }
+            mReader = reader;
+            return true;
+        }, result);
+    }
+
+    private void notifyRfidConnect(final boolean connected, final int code) {
         if (uhfListener != null) {
-            uhfListener.onBarcodeRead(barcodeScan);
+            new Handler(Looper.getMainLooper()).post(() ->
+                    uhfListener.onRfidConnect(connected, code));
         }
     }
 
-    public boolean isEmptyTags() {
-        return tagList != null && !tagList.isEmpty();
+    /**
+     * Groups the tags read after each barcode scan into one association event per scan: reads
+     * within {@code windowMs} of the scan (or until the next scan) are attributed to it, using
+     * System.nanoTime() stamps taken in the decoder and reader callbacks. Reads are still added to
+     * the inventory as usual; an inventory has to be running for tags to be read. Disabling sends
+     * the open window right away.
+     *
+     * @param windowMs 50..60000, default 2000
+     * @param maxTags  distinct tags per association, 1..10000, default 500
+     * @return false if an argument is invalid
+     */
+    public boolean configureAssociation(boolean enabled, Integer windowMs, Integer maxTags) {
+        int window = windowMs != null ? windowMs : AssociationTracker.DEFAULT_WINDOW_MS;
+        int tags = maxTags != null ? maxTags : AssociationTracker.DEFAULT_MAX_TAGS;
+        if (window < MIN_ASSOCIATION_WINDOW_MS || window > MAX_ASSOCIATION_WINDOW_MS
+                || tags < 1 || tags > MAX_ASSOCIATION_TAGS) {
+            return false;
+        }
+        AssociationTracker previous = associationTracker;
+        associationTracker = enabled ? new AssociationTracker(TimeUnit.MILLISECONDS.toNanos(window), tags) : null;
+        if (previous != null) {
+            sendAssociation(previous.flush());
+        }
+        return true;
     }
 
-    public boolean isContinuousRfidReadActive() {
-        return continuousRfidReadActive.get();
+    /**
+     * Decoder thread: opens an association window, which ends the previous one, and schedules the
+     * check that sends it once it expires.
+     */
+    private void onBarcodeDecoded(String code, long decodedAtNanos) {
+        final AssociationTracker tracker = associationTracker;
+        if (tracker == null) return;
+        sendAssociation(tracker.onBarcode(code, decodedAtNanos));
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null) return;
+        try {
+            executor.schedule(() -> sendAssociation(tracker.closeExpired(System.nanoTime())),
+                    tracker.getWindowNanos(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Cannot schedule the association window", e);
+        }
     }
 
-    public boolean isRfidConnected() {
-        return isRfidConnected.get();
+    private void sendAssociation(final Map<String, Object> association) {
+        if (association == null || uhfListener == null) return;
+        new Handler(Looper.getMainLooper()).post(() -> {
+            if (uhfListener != null) {
+                uhfListener.onAssociation(association);
+            }
+        });
     }
 
     /**
-     * Thread that continuously reads RFID tags.
-     */
-    class RfidContinuousReadThread extends Thread {
-        @Override
-        public void run() {
-            mReader.setInventoryCallback(new IUHFInventoryCallback() {
-                @Override
-                public void callback(UHFTAGInfo uhftagInfo) {
-                    if (uhftagInfo != null) {
-                        String tid = uhftagInfo.getTid();
-                        String prefix = "";
-                        if (!TextUtils.isEmpty(tid) && !tid.equals("0000000000000000")
-                                && !tid.equals("000000000000000000000000")) {
-                            prefix = "TID:" + tid + "\n";
-                        }
-                        String tagData = prefix + "EPC:" + uhftagInfo.getEPC() + "@" + uhftagInfo.getRssi();
-                        rfidHandler.obtainMessage(1, tagData).sendToTarget();
-                    }
-                }
-            });
-            boolean started = mReader.startInventoryTag();
+     * Opens the barcode scanner once; further calls keep the open session.
+     */
+    public boolean connectBarcode() {
+        return barcodeSession != null && barcodeSession.open(context);
+    }
+
+    public boolean scanBarcode() {
+        return barcodeSession != null && barcodeSession.startScan();
+    }
+
+    public boolean stopScanBarcode() {
+        return barcodeSession != null && barcodeSession.stopScan();
+    }
+
+    public boolean closeScanBarcode() {
+        return barcodeSession != null && barcodeSession.close();
+    }
+
+    /**
+     * @param triggerMode       BarcodeSession.TRIGGER_SINGLE (one code per scanBarcode) or
+     *                          TRIGGER_CONTINUOUS (scan until stopScanBarcode)
+     * @param duplicateWindowMs repeats of a code within this time are dropped, 0 keeps all; until
+     *                          set, only continuous mode drops repeats (within 1 s)
+     * @return false if an argument is invalid or the plugin is not initialized
+     */
+    public boolean configureBarcode(String triggerMode, Integer duplicateWindowMs) {
+        return barcodeSession != null && barcodeSession.configure(triggerMode, duplicateWindowMs);
+    }
+
+    public void startRfidSingle(Result result) {
+        runReaderCommand("inventorySingle", false, () -> {
+            if (mReader == null) return false;
+            if (!isReaderIdle()) {
+                Log.e(TAG, "Cannot perform single read while continuous read is active");
+                return false;
+            }
+            // Directly add to batch for processing
+            return mReader.inventorySingle((epc, tid, rssi) -> addEPCToBatch(epc, tid, rssi));
+        }, result);
+    }
+
+    public void startRfidContinuous(Result result) {
+        runReaderCommand("startInventory", false, () -> {
+            if (mReader == null) {
+                Log.e(TAG, "mReader is null");
+                return false;
+            }
+            String state = readerCommands.getState();
+            if (ReaderCommandExecutor.STATE_INVENTORY.equals(state)) {
+                Log.e(TAG, "Continuous RFID read already active");
+                return true;
+            }
+            if (!ReaderCommandExecutor.STATE_IDLE.equals(state)) {
+                // Location, or multi-tag location over an inventory that must not be restarted
+                stopReaderActivity();
+            }
+            // Reads arrive on the reader's callback thread and go straight into the batch;
+            // the main thread is only involved when the scheduler emits to Flutter.
+            mReader.setTagCallback(this::addEPCToBatch);
+            boolean started = mReader.startInventory();
             Log.d(TAG, "Started inventory: " + started);
-            while (continuousRfidReadActive.get() && isInventoryRunning.get()) {
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
+            if (started) {
+                readerCommands.setState(ReaderCommandExecutor.STATE_INVENTORY);
+            } else {
+                mReader.setTagCallback(null);
+            }
+            return started;
+        }, result);
+    }
+
+    /**
+     * Starts locating a specific RFID tag. Any running inventory or location is stopped first.
+     * Switching the module into location mode blocks, so it runs as a reader command and the
+     * result (true if location started) is reported through the callback.
+     *
+     * @param epc            The EPC of the tag to locate.
+     * @param resultCallback The callback to return the result.
+     */
+    public void startTagLocation(final String epc, final Result resultCallback) {
+        if (epc == null || epc.isEmpty()) {
+            Log.e(TAG, "Cannot start tag location - invalid EPC");
+            resultCallback.success(false);
+            return;
+        }
+        runReaderCommand("startLocation", false, () -> {
+            if (mReader == null || !isRfidConnected.get()) {
+                Log.e(TAG, "Cannot start tag location - reader not connected");
+                return false;
+            }
+            stopReaderActivity();
+            synchronized (locationFilter) {
+                locationFilter.reset();
+            }
+            lastLocationEmitNanos = 0;
+            boolean success = mReader.startLocation(epc, RfidReader.BANK_EPC, 32, this::onLocationReading);
+            Log.d(TAG, "LOCATION SUCCESS: " + success);
+            if (success) {
+                readerCommands.setState(ReaderCommandExecutor.STATE_LOCATING);
+                Log.d(TAG, "Tag location started for EPC: " + epc);
+            }
+            return success;
+        }, resultCallback);
+    }
+
+    /**
+     * Locates several tags in one sweep: runs a continuous inventory, keeps only reads of the
+     * given EPCs and sends smoothed per-target proximity at the location rate (see
+     * configureLocationFilter) to the listener. Updates refer to targets by their position in
+     * {@code epcs} and only carry the targets that changed. Stop it with stopTagLocation.
+     * Reports true if the inventory started.
+     */
+    public void startMultiTagLocation(List<String> epcs, Result result) {
+        final MultiTagLocator locator;
+        try {
+            locator = new MultiTagLocator(epcs, locationFilter,
+                    TimeUnit.MILLISECONDS.toNanos(MULTI_LOCATE_ABSENCE_MS));
+        } catch (IllegalArgumentException e) {
+            result.error("INVALID_ARGUMENT", e.getMessage(), null);
+            return;
+        }
+        runReaderCommand("startMultiLocation", false, () -> {
+            if (mReader == null || !isRfidConnected.get() || scheduler == null || scheduler.isShutdown()) {
+                Log.e(TAG, "Cannot start multi-tag location - reader not connected");
+                return false;
+            }
+            stopReaderActivity();
+            multiLocator = locator;
+            mReader.setTagCallback((epc, tid, rssi) -> {
+                metrics.onRead();
+                locator.onRead(epc, rssi, System.nanoTime());
+            });
+            if (!mReader.startInventory()) {
+                mReader.setTagCallback(null);
+                multiLocator = null;
+                return false;
+            }
+            if (!scheduleMultiLocateUpdates()) {
+                mReader.stopInventory();
+                mReader.setTagCallback(null);
+                multiLocator = null;
+                return false;
+            }
+            readerCommands.setState(ReaderCommandExecutor.STATE_MULTI_LOCATING);
+            Log.d(TAG, "Multi-tag location started for " + locator.size() + " tags");
+            return true;
+        }, result);
+    }
+
+    /**
+     * Command thread: (re)starts the multi-tag update ticks at the current location rate.
+     *
+     * @return false if the scheduler is shut down
+     */
+    private boolean scheduleMultiLocateUpdates() {
+        if (multiLocateTask != null) {
+            multiLocateTask.cancel(false);
+            multiLocateTask = null;
+        }
+        long intervalNanos = minLocationIntervalNanos;
+        try {
+            multiLocateTask = scheduler.scheduleAtFixedRate(this::sendMultiLocateUpdate,
+                    intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Scheduler thread: sends the targets that changed since the previous tick.
+     */
+    private void sendMultiLocateUpdate() {
+        MultiTagLocator locator = multiLocator;
+        if (locator == null) return;
+        final Map<String, Object> update = locator.tick(System.nanoTime());
+        if (update == null || uhfListener == null) return;
+        new Handler(Looper.getMainLooper()).post(() -> {
+            if (uhfListener != null) {
+                uhfListener.onMultiTagLocation(update);
+            }
+        });
+    }
+
+    /**
+     * Stops the currently running tag location operation, for one tag or several.
+     * Reports true if it was stopped, false if no location was running.
+     */
+    public void stopTagLocation(Result result) {
+        runReaderCommand("stopLocation", false, () -> {
+            String state = readerCommands.getState();
+            if (mReader == null || !(ReaderCommandExecutor.STATE_LOCATING.equals(state)
+                    || ReaderCommandExecutor.STATE_MULTI_LOCATING.equals(state))) {
+                return false;
+            }
+            stopReaderActivity();
+            return true;
+        }, result);
+    }
+
+    /**
+     * Checks if tag location is currently running
+     * @return true if location is running, false otherwise
+     */
+    public boolean isLocationRunning() {
+        if (readerCommands == null) return false;
+        String state = readerCommands.getState();
+        return ReaderCommandExecutor.STATE_LOCATING.equals(state) || ReaderCommandExecutor.STATE_MULTI_LOCATING.equals(state);
+    }
+
+    /**
+     * Reader callback thread: filters a raw proximity value and schedules an emission unless one
+     * was sent less than the configured interval ago or is still waiting for the main thread.
+     */
+    private void onLocationReading(int value, boolean valid) {
+        long now = System.nanoTime();
+        LocationFilter filter = locationFilter;
+        synchronized (filter) {
+            filter.update(value, valid, now);
+        }
+        if (now - lastLocationEmitNanos >= minLocationIntervalNanos && locationEmitPending.compareAndSet(false, true)) {
+            lastLocationEmitNanos = now;
+            if (locationHandler == null) {
+                locationHandler = new Handler(Looper.getMainLooper());
+            }
+            locationHandler.post(locationEmitter);
+        }
+    }
+
+    /**
+     * Main thread: copies the filter state into the reused payload and hands it to the listener,
+     * which serializes it before returning.
+     */
+    private void emitLocation() {
+        LocationFilter filter = locationFilter;
+        synchronized (filter) {
+            locationData.set((int) Math.round(filter.getValue()), filter.hasValue() && filter.isLastValid(),
+                    filter.getRaw(), filter.getTrend(), filter.getConfidence());
+        }
+        locationEmitPending.set(false);
+        if (uhfListener != null) {
+            uhfListener.onLocationData(locationData);
+        }
+    }
+
+    /**
+     * Selects how location values are smoothed and how often they are sent to Flutter. Takes
+     * effect immediately and restarts the filter. Null arguments keep their defaults.
+     *
+     * @param filter           LocationFilter.FILTER_NONE, FILTER_EMA, FILTER_KALMAN or FILTER_MEDIAN
+     * @param alpha            EMA weight of a new reading, (0, 1]
+     * @param windowSize       median window
+     * @param processNoise     Kalman process variance per reading
+     * @param measurementNoise Kalman variance of a reading
+     * @param maxRateHz        emissions per second at most, 1..60
+     * @return false if an argument is invalid
+     */
+    public boolean configureLocationFilter(String filter, Double alpha, Integer windowSize, Double processNoise,
+                                           Double measurementNoise, Integer maxRateHz) {
+        int rate = maxRateHz != null ? maxRateHz : DEFAULT_LOCATION_RATE_HZ;
+        if (rate < 1 || rate > MAX_LOCATION_RATE_HZ) return false;
+        LocationFilter configured;
+        try {
+            configured = new LocationFilter(
+                    filter != null ? filter : LocationFilter.FILTER_EMA,
+                    alpha != null ? alpha : LocationFilter.DEFAULT_ALPHA,
+                    windowSize != null ? windowSize : LocationFilter.DEFAULT_WINDOW,
+                    processNoise != null ? processNoise : LocationFilter.DEFAULT_PROCESS_NOISE,
+                    measurementNoise != null ? measurementNoise : LocationFilter.DEFAULT_MEASUREMENT_NOISE);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Invalid location filter", e);
+            return false;
+        }
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        boolean rateChanged = intervalNanos != minLocationIntervalNanos;
+        minLocationIntervalNanos = intervalNanos;
+        locationFilter = configured;
+        if (rateChanged && readerCommands != null) {
+            // A running multi-tag location ticks at the rate it started with until rescheduled
+            readerCommands.submit("rescheduleMultiLocation", () -> {
+                if (multiLocateTask != null
+                        && ReaderCommandExecutor.STATE_MULTI_LOCATING.equals(readerCommands.getState())) {
+                    scheduleMultiLocateUpdates();
                 }
+                return true;
+            }, false, null);
+        }
+        return true;
+    }
+
+    /**
+     * Sets the dynamic distance for radar positioning
+     * @param value Value between 1-30
+     */
+    public void setLocationDynamicDistance(final int value, Result result) {
+        runReaderCommand("setDynamicDistance", false,
+                () -> mReader != null && isRfidConnected.get() && mReader.setDynamicDistance(value), result);
+    }
+
+    /**
+     * Sets the reader's select filter, so tags whose memory does not match are never singulated.
+     * Rejected while an inventory is running, since the module ignores commands then.
+     *
+     * @param bank       RfidReader.BANK_EPC, BANK_TID or BANK_USER
+     * @param offsetBits first bit compared; the EPC starts at bit 32 of the EPC bank
+     * @param lengthBits number of bits compared, 0 to clear the filter
+     * @param maskHex    bits to compare against, as hex
+     * Reports false if the arguments are invalid or the reader refused the filter.
+     */
+    public void setSelectFilter(final int bank, final int offsetBits, final int lengthBits, final String maskHex,
+                                Result result) {
+        if (bank < RfidReader.BANK_EPC || bank > RfidReader.BANK_USER || offsetBits < 0 || lengthBits < 0
+                || (lengthBits > 0 && (maskHex == null || maskHex.length() * 4 < lengthBits || !isHex(maskHex)))) {
+            Log.e(TAG, "Invalid select filter: bank " + bank + ", " + offsetBits + "+" + lengthBits + " bits, " + maskHex);
+            result.success(false);
+            return;
+        }
+        runReaderCommand("setSelectFilter", false, () -> {
+            if (mReader == null || !isRfidConnected.get() || !isReaderIdle()) return false;
+            return mReader.setSelectFilter(bank, offsetBits, lengthBits, lengthBits > 0 ? maskHex : "");
+        }, result);
+    }
+
+    /**
+     * Reports the reader's Gen2 session, target and Q parameters, or null if unavailable.
+     */
+    public void getGen2Params(Result result) {
+        runReaderCommand("getGen2", null, () -> {
+            if (mReader == null || !isRfidConnected.get()) return null;
+            Gen2Settings settings = mReader.getGen2Settings();
+            return settings != null ? settings.toMap() : null;
+        }, result);
+    }
+
+    /**
+     * Changes the Gen2 inventory parameters; null arguments keep their current value. Session
+     * S1-S3 keeps tags that were read quiet for a while, which cuts repeat reads in dense fields.
+     * Rejected while an inventory is running.
+     *
+     * Reports false if the combination is invalid or the reader refused it.
+     */
+    public void setGen2Params(final Integer session, final Integer target, final Boolean dynamicQ,
+                              final Integer startQ, final Integer minQ, final Integer maxQ, Result result) {
+        runReaderCommand("setGen2", false, () -> {
+            if (mReader == null || !isRfidConnected.get() || !isReaderIdle()) return false;
+            Gen2Settings current = mReader.getGen2Settings();
+            if (current == null) return false;
+            Gen2Settings settings = current.copy();
+            if (session != null) settings.session = session;
+            if (target != null) settings.target = target;
+            if (dynamicQ != null) settings.qAlgorithm = dynamicQ ? Gen2Settings.Q_DYNAMIC : Gen2Settings.Q_FIXED;
+            if (startQ != null) settings.startQ = startQ;
+            if (minQ != null) settings.minQ = minQ;
+            if (maxQ != null) settings.maxQ = maxQ;
+            if (!settings.isValid()) {
+                Log.e(TAG, "Invalid Gen2 parameters: " + settings);
+                return false;
+            }
+            return mReader.setGen2Settings(settings);
+        }, result);
+    }
+
+    /**
+     * Software counterpart of the select filter for readers that cannot filter at the radio:
+     * reads whose EPC does not start with one of the hex prefixes are discarded before they
+     * reach the batch. Null or an empty list turns it off.
+     *
+     * @return false if a prefix is not hex
+     */
+    public boolean setEpcPrefixFilter(List<String> prefixes) {
+        return newTagsBatch != null && newTagsBatch.setEpcPrefixFilter(prefixes);
+    }
+
+    /**
+     * @return number of reads discarded by the EPC prefix filter since the plugin was initialized
+     */
+    public long getFilteredReadCount() {
+        return newTagsBatch != null ? newTagsBatch.getFilteredReads() : 0;
+    }
+
+    private static boolean isHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
             }
-            mReader.stopInventory();
-            Log.d(TAG, "Stopped inventory thread");
         }
+        return true;
     }
 
     /**
-     * Thread that continuously reads barcodes.
+     * Opens the scanner if needed and scans in continuous trigger mode until stopScanBarcode.
      */
-    class BarcodeContinuousReadThread extends Thread {
-        @Override
-        public void run() {
-            if (barcodeDecoder == null) {
-                barcodeDecoder = BarcodeFactory.getInstance().getBarcodeDecoder();
+    public boolean startBarcodeContinuous() {
+        return connectBarcode() && barcodeSession.configure(BarcodeSession.TRIGGER_CONTINUOUS, null)
+                && barcodeSession.startScan();
+    }
+
+    /**
+     * Clears the session, including a journal that closeRfidReader left on disk, so that the
+     * next init() does not bring it back.
+     */
+    public void clearData() {
+        clearSession();
+        if (tagList != null && context != null) {
+            synchronized (tagList) {
+                if (journal == null) {
+                    InventoryJournal.deleteFiles(journalDirectory());
+                }
             }
-            barcodeDecoder.open(context);
-            BarcodeUtility.getInstance().enablePlaySuccessSound(context, true);
-            barcodeDecoder.setDecodeCallback(new BarcodeDecoder.DecodeCallback() {
-                @Override
-                public void onDecodeComplete(BarcodeEntity barcodeEntity) {
-                    if (barcodeEntity.getResultCode() == BarcodeDecoder.DECODE_SUCCESS) {
-                        Message msg = barcodeHandler.obtainMessage();
-                        msg.obj = barcodeEntity.getBarcodeData();
-                        barcodeHandler.sendMessage(msg);
-                    } else {
-                        Message msg = barcodeHandler.obtainMessage();
-                        msg.obj = "-1";
-                        barcodeHandler.sendMessage(msg);
-                    }
+        }
+    }
+
+    /**
+     * Clears the tag list and the open journal, if any; a journal kept on disk stays.
+     */
+    private void clearSession() {
+        if (barcodeSession != null) {
+            barcodeSession.clearLastCode();
+        }
+        if (tagList != null) {
+            synchronized (tagList) {
+                tagList.clear();
+                if (presenceTracker != null) {
+                    presenceTracker.clear();
                 }
-            });
-            while (continuousBarcodeReadActive.get()) {
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
+                if (journal != null) {
+                    journal.reset();
+                }
+                if (expectedTags != null) {
+                    expectedTags.resetReads();
+                    sendReconciliationToListener(expectedTags.toMap(
+                            new ArrayList<String>(), new ArrayList<String>()));
                 }
             }
-            barcodeDecoder.close();
         }
+        if (newTagsBatch != null) {
+            newTagsBatch.clear();
+        }
+        // Delta listeners must drop their copy as well
+        requestTagSnapshot();
+    }
+
+    public void stopRfid(Result result) {
+        runReaderCommand("stopInventory", false, () -> {
+            if (mReader == null) return false;
+            if (ReaderCommandExecutor.STATE_INVENTORY.equals(readerCommands.getState())) {
+                stopReaderActivity();
+            }
+            return true;
+        }, result);
+    }
+
+    /**
+     * Stops whatever the reader is doing, frees it and stops the flush scheduler. Runs on the
+     * reader command thread, after the commands already queued, and reports true when done.
+     */
+    public void closeRfidReader(Result result) {
+        if (readerCommands == null) {
+            shutdownPipeline();
+            result.success(true);
+            return;
+        }
+        runReaderCommand("close", false, () -> {
+            closeReader();
+            shutdownPipeline();
+            return true;
+        }, result);
+    }
+
+    /**
+     * Command thread: stops and frees the reader.
+     */
+    private void closeReader() {
+        if (mReader != null) {
+            stopReaderActivity();
+            mReader.free();
+            isRfidConnected.set(false);
+        }
+    }
+
+    /**
+     * Stops the flush scheduler and closes the session. May wait up to a second for the
+     * scheduler, so never on the main thread except when detaching.
+     */
+    private void shutdownPipeline() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Log.e(TAG, "Scheduler termination interrupted", e);
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Keep the journal on disk so the session survives until it is cleared explicitly
+        if (tagList != null) {
+            synchronized (tagList) {
+                if (journal != null) {
+                    journal.close();
+                    journal = null;
+                }
+            }
+        }
+        clearSession();
+    }
+
+    /**
+     * Closes the reader and stops the reader command thread, when the engine detaches. Nothing
+     * is left to answer by then, so this waits for the reader commands and may block for up to a
+     * few seconds.
+     */
+    public void release() {
+        if (readerCommands != null) {
+            readerCommands.call("close", () -> {
+                closeReader();
+                return true;
+            }, false, READER_CLOSE_TIMEOUT_MS);
+        }
+        shutdownPipeline();
+        if (readerCommands != null) {
+            readerCommands.shutdown(READER_CLOSE_TIMEOUT_MS);
+        }
+    }
+
+    /**
+     * Sets the RF power; this turns adaptive power off.
+     */
+    public void setPowerLevel(final String level, Result result) {
+        powerController = null;
+        runReaderCommand("setPower", false,
+                () -> mReader != null && mReader.setPower(Integer.parseInt(level)), result);
+    }
+
+    /**
+     * Lets an AdaptivePowerController step the RF power during continuous inventory, so that tags
+     * beyond the zone edge ({@code zoneRssiDbm} at full power) stop being read. Each change is
+     * sent to the listener as a decision event. Starts from the reader's current power; disabling
+     * keeps the power it reached. Reports false if an argument is invalid or the reader is not
+     * connected.
+     *
+     * @param minPower        dBm, default 5
+     * @param maxPower        dBm, default 30
+     * @param step            dBm per change, default 2
+     * @param zoneRssiDbm     RSSI at full power of a tag at the edge of the zone, default -65
+     * @param maxOutsideShare share of tags beyond the edge that makes the power go down, default 0.1
+     * @param intervalMs      time between decisions, 250..60000, default 1000
+     */
+    public void configureAdaptivePower(boolean enabled, Integer minPower, Integer maxPower, Integer step,
+                                       Double zoneRssiDbm, Double maxOutsideShare, Integer intervalMs,
+                                       Result result) {
+        if (!enabled) {
+            powerController = null;
+            result.success(true);
+            return;
+        }
+        int interval = intervalMs != null ? intervalMs : AdaptivePowerController.DEFAULT_INTERVAL_MS;
+        if (interval < MIN_POWER_INTERVAL_MS || interval > MAX_POWER_INTERVAL_MS) {
+            result.success(false);
+            return;
+        }
+        runReaderCommand("configureAdaptivePower", false, () -> {
+            if (mReader == null || !isRfidConnected.get()) return false;
+            try {
+                powerController = new AdaptivePowerController(
+                        minPower != null ? minPower : AdaptivePowerController.MIN_POWER,
+                        maxPower != null ? maxPower : AdaptivePowerController.FULL_POWER,
+                        step != null ? step : AdaptivePowerController.DEFAULT_STEP,
+                        zoneRssiDbm != null ? (int) Math.round(zoneRssiDbm * 10) : AdaptivePowerController.DEFAULT_ZONE_RSSI,
+                        maxOutsideShare != null ? maxOutsideShare : AdaptivePowerController.DEFAULT_MAX_OUTSIDE_SHARE,
+                        TimeUnit.MILLISECONDS.toNanos(interval), mReader.getPower(), System.nanoTime());
+                return true;
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "Invalid adaptive power settings", e);
+                return false;
+            }
+        }, result);
+    }
+
+    /**
+     * Scheduler thread: has the reader command thread apply a power decision and then reports it,
+     * with "applied", to the listener. The module does not take commands while inventorying, so
+     * the inventory is paused for the change.
+     */
+    private void applyPowerDecision(final AdaptivePowerController controller, final Map<String, Object> decision) {
+        final int power = (Integer) decision.get("power");
+        readerCommands.submit("adaptPower", () -> {
+            if (mReader == null || powerController != controller) return false;
+            boolean inventory = ReaderCommandExecutor.STATE_INVENTORY.equals(readerCommands.getState());
+            if (inventory) {
+                mReader.stopInventory();
+            }
+            boolean applied = mReader.setPower(power);
+            if (inventory && !mReader.startInventory()) {
+                Log.e(TAG, "Inventory did not restart after the power change");
+                mReader.setTagCallback(null);
+                readerCommands.setState(ReaderCommandExecutor.STATE_IDLE);
+            }
+            return applied;
+        }, false, applied -> {
+            controller.onApplied(power, applied);
+            decision.put("applied", applied);
+            new Handler(Looper.getMainLooper()).post(() -> {
+                if (uhfListener != null) {
+                    uhfListener.onPowerDecision(decision);
+                }
+            });
+        });
+    }
+
+    public void setWorkArea(final String area, Result result) {
+        runReaderCommand("setFrequencyMode", false,
+                () -> mReader != null && mReader.setFrequencyMode(Integer.parseInt(area)), result);
+    }
+
+    /**
+     * Records one read in the batch. Called from the reader callback thread, or from the caller of
+     * startRfidSingle while no inventory is running, so there is only ever one producer.
+     */
+    private void addEPCToBatch(String epc, String tid, int rssi) {
+        if (TextUtils.isEmpty(epc)) return;
+        metrics.onRead();
+
+        long now = System.nanoTime();
+        AssociationTracker tracker = associationTracker;
+        if (tracker != null) {
+            tracker.onTagRead(epc, rssi, now);
+        }
+        // A full batch drops the read and counts it in getDroppedReads()
+        newTagsBatch.add(epc, tid, rssi, now);
+        maybeFlushEarly();
+    }
+
+    /**
+     * Notifies the listener with the scanned barcode.
+     */
+    private void recordBarcodeScan(String barcodeScan) {
+        if (uhfListener != null) {
+            uhfListener.onBarcodeRead(barcodeScan);
+        }
+    }
+
+    public boolean isEmptyTags() {
+        if (tagList == null) {
+            return false;
+        }
+        synchronized (tagList) {
+            return !tagList.isEmpty();
+        }
+    }
+
+    public boolean isContinuousRfidReadActive() {
+        return readerCommands != null && ReaderCommandExecutor.STATE_INVENTORY.equals(readerCommands.getState());
+    }
+
+    public boolean isRfidConnected() {
+        return isRfidConnected.get();
     }
 }
@@ -1,11 +1,28 @@
 package com.example.rfid_c72_plugin;
 
+import java.util.List;
+import java.util.Map;
+
 public abstract class UHFListener {
     abstract void onRfidRead(String tagsJson);
 
+    abstract void onRfidBatch(byte[] tagsBatch);
+
     abstract void onBarcodeRead(String barcodeScan);
 
     abstract void onRfidConnect(boolean isRfidConnected, int powerLevel);
 
-    abstract void onLocationValue(int value, boolean valid); // TODO: LocationData
+    abstract void onLocationData(LocationData location);
+
+    abstract void onMultiTagLocation(Map<String, Object> update);
+
+    abstract void onAssociation(Map<String, Object> association);
+
+    abstract void onPowerDecision(Map<String, Object> decision);
+
+    abstract void onPresenceEvents(List<Map<String, Object>> events);
+
+    abstract void onReconciliation(Map<String, Object> update);
+
+    abstract void onInventoryStats(Map<String, Object> stats);
 }
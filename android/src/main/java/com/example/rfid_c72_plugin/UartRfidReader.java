@@ -0,0 +1,166 @@
+package com.example.rfid_c72_plugin;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.rscja.deviceapi.RFIDWithUHFUART;
+import com.rscja.deviceapi.entity.Gen2Entity;
+import com.rscja.deviceapi.entity.UHFTAGInfo;
+import com.rscja.deviceapi.interfaces.IUHFInventoryCallback;
+import com.rscja.deviceapi.interfaces.IUHFLocationCallback;
+
+/**
+ * {@link RfidReader} backed by the vendor RFIDWithUHFUART module.
+ */
+public class UartRfidReader implements RfidReader {
+    private static final String TAG = "UartRfidReader";
+
+    private final Context context;
+    private RFIDWithUHFUART mReader;
+
+    public UartRfidReader(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public boolean init() {
+        try {
+            mReader = RFIDWithUHFUART.getInstance();
+        } catch (Exception ex) {
+            Log.e(TAG, "Error obtaining RFID instance", ex);
+            return false;
+        }
+        return mReader != null && mReader.init(context);
+    }
+
+    @Override
+    public boolean free() {
+        return mReader != null && mReader.free();
+    }
+
+    @Override
+    public boolean setPower(int power) {
+        return mReader != null && mReader.setPower(power);
+    }
+
+    @Override
+    public int getPower() {
+        return mReader != null ? mReader.getPower() : -1;
+    }
+
+    @Override
+    public boolean setFrequencyMode(int mode) {
+        return mReader != null && mReader.setFrequencyMode(mode);
+    }
+
+    @Override
+    public void setTagCallback(final TagCallback callback) {
+        if (mReader == null) return;
+        if (callback == null) {
+            mReader.setInventoryCallback(null);
+            return;
+        }
+        mReader.setInventoryCallback(new IUHFInventoryCallback() {
+            @Override
+            public void callback(UHFTAGInfo uhftagInfo) {
+                if (uhftagInfo != null) {
+                    callback.onTagRead(uhftagInfo.getEPC(), validTid(uhftagInfo.getTid()),
+                            EPC.parseRssi(uhftagInfo.getRssi()));
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean startInventory() {
+        return mReader != null && mReader.startInventoryTag();
+    }
+
+    @Override
+    public boolean stopInventory() {
+        return mReader != null && mReader.stopInventory();
+    }
+
+    @Override
+    public boolean inventorySingle(TagCallback callback) {
+        if (mReader == null) return false;
+        UHFTAGInfo tagInfo = mReader.inventorySingleTag();
+        if (tagInfo == null) return false;
+        callback.onTagRead(tagInfo.getEPC(), validTid(tagInfo.getTid()), EPC.parseRssi(tagInfo.getRssi()));
+        return true;
+    }
+
+    @Override
+    public boolean startLocation(String epc, int bank, int pointer, final LocationCallback callback) {
+        if (mReader == null) return false;
+        return mReader.startLocation(context, epc, bank, pointer, new IUHFLocationCallback() {
+            @Override
+            public void getLocationValue(int value, boolean valid) {
+                callback.onLocationValue(value, valid);
+            }
+        });
+    }
+
+    @Override
+    public boolean stopLocation() {
+        return mReader != null && mReader.stopLocation();
+    }
+
+    @Override
+    public boolean setDynamicDistance(int value) {
+        return mReader != null && mReader.setDynamicDistance(value);
+    }
+
+    @Override
+    public boolean setSelectFilter(int bank, int offsetBits, int lengthBits, String maskHex) {
+        if (mReader == null) return false;
+        // The module clears its filter when given a zero length; it still wants non-empty data
+        return mReader.setFilter(bank, offsetBits, lengthBits, lengthBits == 0 ? "00" : maskHex);
+    }
+
+    @Override
+    public Gen2Settings getGen2Settings() {
+        if (mReader == null) return null;
+        Gen2Entity entity = mReader.getGen2();
+        if (entity == null) return null;
+        Gen2Settings settings = new Gen2Settings();
+        settings.session = entity.getQuerySession();
+        settings.target = entity.getQueryTarget();
+        settings.qAlgorithm = entity.getQ();
+        settings.startQ = entity.getStartQ();
+        settings.minQ = entity.getMinQ();
+        settings.maxQ = entity.getMaxQ();
+        return settings;
+    }
+
+    @Override
+    public boolean setGen2Settings(Gen2Settings settings) {
+        if (mReader == null) return false;
+        // Start from the module's current values so the link and select parameters are kept
+        Gen2Entity entity = mReader.getGen2();
+        if (entity == null) return false;
+        entity.setQuerySession(settings.session);
+        entity.setQueryTarget(settings.target);
+        entity.setQ(settings.qAlgorithm);
+        entity.setStartQ(settings.startQ);
+        entity.setMinQ(settings.minQ);
+        entity.setMaxQ(settings.maxQ);
+        if (!entity.checkParameter()) {
+            Log.e(TAG, "Rejected Gen2 parameters: " + entity);
+            return false;
+        }
+        return mReader.setGen2(entity);
+    }
+
+    /**
+     * The module reports an all-zero TID when it is not reading the TID bank.
+     */
+    private static String validTid(String tid) {
+        if (TextUtils.isEmpty(tid) || tid.equals("0000000000000000")
+                || tid.equals("000000000000000000000000")) {
+            return null;
+        }
+        return tid;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class AdaptivePowerControllerTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void shrinksTheReadZoneOfASimulatedReader() {
+        // Base RSSI -75..-45 dBm at 30 dBm; the zone ends at -65 dBm, i.e. about 10 dB lower power
+        SimulatedRfidReader reader = new SimulatedRfidReader(500, 1000, 11);
+        final TagAggregationBuffer buffer = new TagAggregationBuffer(500);
+        final TagCache cache = new TagCache(500);
+        final AdaptivePowerController controller = new AdaptivePowerController(
+                AdaptivePowerController.MIN_POWER, AdaptivePowerController.FULL_POWER,
+                AdaptivePowerController.DEFAULT_STEP, AdaptivePowerController.DEFAULT_ZONE_RSSI,
+                AdaptivePowerController.DEFAULT_MAX_OUTSIDE_SHARE, 1000 * MS, 30, 0);
+        reader.init();
+        reader.setTagCallback((epc, tid, rssi) -> buffer.add(epc, rssi, System.nanoTime()));
+
+        List<Map<String, Object>> decisions = new ArrayList<>();
+        // 60 s at 1,000 reads/s, flushed every 100 ms like the scheduler does
+        for (long now = 100 * MS; now <= 60_000 * MS; now += 100 * MS) {
+            reader.emitReads(100);
+            buffer.drain((key, tag) -> {
+                int peak = tag.getPeakRssi();
+                boolean added = cache.merge(key, tag);
+                controller.onTagSeen(peak, added);
+                return added;
+            });
+            Map<String, Object> decision = controller.evaluate(now);
+            if (decision != null) {
+                decisions.add(decision);
+                int power = (Integer) decision.get("power");
+                assertTrue(reader.setPower(power));
+                controller.onApplied(power, true);
+            }
+        }
+
+        assertTrue(decisions.size() >= 2);
+        assertEquals(AdaptivePowerController.REASON_OUTSIDE_ZONE, decisions.get(0).get("reason"));
+        assertEquals(30, decisions.get(0).get("previousPower"));
+        int power = reader.getPower();
+        assertTrue("power " + power, power >= 16 && power <= 24);
+        // Settled: the last change is well in the past
+        assertTrue(decisions.size() < 12);
+    }
+
+    @Test
+    public void stepsUpWithinBoundsWhenNothingIsRead() {
+        AdaptivePowerController controller = new AdaptivePowerController(10, 20, 4, -650, 0.1, 1000 * MS, 12, 0);
+        assertNull(controller.evaluate(500 * MS));
+        Map<String, Object> decision = controller.evaluate(1000 * MS);
+        assertEquals(AdaptivePowerController.REASON_FEW_TAGS, decision.get("reason"));
+        assertEquals(16, decision.get("power"));
+        controller.onApplied(16, true);
+        assertEquals(16, controller.getPower());
+        // The interval after a change is skipped
+        assertNull(controller.evaluate(2000 * MS));
+        assertEquals(20, controller.evaluate(3000 * MS).get("power"));
+        controller.onApplied(20, true);
+        assertNull(controller.evaluate(4000 * MS));
+        assertNull(controller.evaluate(5000 * MS));
+    }
+
+    @Test
+    public void keepsThePowerUntilTheDecisionIsApplied() {
+        AdaptivePowerController controller = new AdaptivePowerController(10, 20, 4, -650, 0.1, 1000 * MS, 12, 0);
+        assertEquals(16, controller.evaluate(1000 * MS).get("power"));
+        assertEquals(12, controller.getPower());
+        // No further decision while the reader has not answered
+        assertNull(controller.evaluate(2000 * MS));
+        assertNull(controller.evaluate(3000 * MS));
+
+        controller.onApplied(16, false);
+        assertEquals(12, controller.getPower());
+        // A failed change is retried from the power in effect, without skipping an interval
+        assertEquals(16, controller.evaluate(4000 * MS).get("power"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvertedBounds() {
+        new AdaptivePowerController(20, 10, 2, -650, 0.1, 1000 * MS, 15, 0);
+    }
+}
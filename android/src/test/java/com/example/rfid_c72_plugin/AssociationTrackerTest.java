@@ -0,0 +1,54 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class AssociationTrackerTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void attributesReadsWithinTheWindowToTheScan() {
+        AssociationTracker tracker = new AssociationTracker(1000 * MS, 10);
+        tracker.onTagRead("E2000001", -500, 0); // before any scan
+        assertNull(tracker.onBarcode("CARTON-1", 100 * MS));
+        tracker.onTagRead("E2000001", -600, 150 * MS);
+        tracker.onTagRead("E2000001", -550, 200 * MS);
+        tracker.onTagRead("E2000002", -700, 400 * MS);
+        tracker.onTagRead("E2000003", -700, 1100 * MS); // after the window
+        assertNull(tracker.closeExpired(900 * MS));
+
+        Map<String, Object> association = tracker.closeExpired(1100 * MS);
+        assertEquals("CARTON-1", association.get("barcode"));
+        @SuppressWarnings("unchecked")
+        List<String> epcs = (List<String>) association.get("epcs");
+        assertEquals(2, epcs.size());
+        int first = epcs.indexOf("E2000001");
+        assertEquals(2, ((int[]) association.get("counts"))[first]);
+        assertEquals(-550, ((int[]) association.get("peakRssi"))[first]);
+        assertEquals(50, ((int[]) association.get("firstReadMs"))[first]);
+        assertNull(tracker.closeExpired(2000 * MS));
+    }
+
+    @Test
+    public void nextScanEndsTheWindow() {
+        AssociationTracker tracker = new AssociationTracker(5000 * MS, 1);
+        tracker.onBarcode("CARTON-1", 0);
+        tracker.onTagRead("E2000001", -500, 10 * MS);
+        tracker.onTagRead("E2000002", -500, 20 * MS);
+
+        Map<String, Object> association = tracker.onBarcode("CARTON-2", 100 * MS);
+        assertEquals("CARTON-1", association.get("barcode"));
+        assertEquals(1, association.get("truncated"));
+        assertEquals(1L, association.get("sequence"));
+
+        tracker.onTagRead("E2000003", -500, 120 * MS);
+        association = tracker.flush();
+        assertEquals("CARTON-2", association.get("barcode"));
+        assertEquals("E2000003", ((List<?>) association.get("epcs")).get(0));
+    }
+}
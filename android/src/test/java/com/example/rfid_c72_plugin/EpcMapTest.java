@@ -0,0 +1,71 @@
+package com.example.rfid_c72_plugin;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EpcMapTest {
+
+    @Test
+    public void keysRoundTripAndCompareByValue() {
+        EpcKey epc96 = EpcKey.of("e2801170000002093c8a1b2f");
+        assertEquals("E2801170000002093C8A1B2F", epc96.toString());
+        assertEquals(12, epc96.length());
+        assertEquals(0x2F, epc96.byteAt(11));
+
+        EpcKey scratch = new EpcKey();
+        assertEquals(epc96, scratch.set("E2801170000002093C8A1B2F"));
+        assertEquals(epc96.hashCode(), scratch.hashCode());
+        assertFalse(epc96.equals(scratch.set("E2801170000002093C8A1B2E")));
+
+        String epc256 = "300833B2DDD9014000000000000000000000000000000000000000000000ABCD";
+        EpcKey longKey = EpcKey.of(epc256);
+        assertEquals(epc256, longKey.toString());
+        assertEquals(longKey, scratch.set(epc256).copy());
+        assertFalse(longKey.equals(EpcKey.of(epc256.substring(0, 60) + "ABCE")));
+
+        EpcKey text = EpcKey.of("not-hex");
+        assertTrue(text.isText());
+        assertEquals("not-hex", text.toString());
+        assertEquals(text, EpcKey.of("not-hex"));
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomPutsAndRemoves() {
+        EpcMap<Integer> map = new EpcMap<>(4);
+        Map<EpcKey, Integer> reference = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            EpcKey key = EpcKey.of(String.format("E2000000%016X", (long) random.nextInt(3000)));
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove(key), map.remove(key));
+            } else {
+                assertEquals(reference.put(key, i), map.put(key, i));
+            }
+        }
+        assertEquals(reference.size(), map.size());
+        for (Map.Entry<EpcKey, Integer> entry : reference.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+
+        int iterated = 0;
+        for (int slot = 0; slot < map.capacity(); slot++) {
+            if (map.keyAt(slot) != null) {
+                assertEquals(reference.get(map.keyAt(slot)), map.valueAt(slot));
+                iterated++;
+            }
+        }
+        assertEquals(reference.size(), iterated);
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(reference.keySet().iterator().next()));
+    }
+}
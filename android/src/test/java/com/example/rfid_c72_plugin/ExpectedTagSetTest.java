@@ -0,0 +1,81 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class ExpectedTagSetTest {
+    private static byte[] packed(String... epcs) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String epc : epcs) {
+            byte[] bytes = bytes(epc);
+            out.write(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsATruncatedEntry() {
+        byte[] packed = packed("E2000001", "E2000002");
+        new ExpectedTagSet(Arrays.copyOf(packed, packed.length - 1));
+    }
+
+    @Test
+    public void skipsZeroLengthEntries() {
+        ExpectedTagSet set = new ExpectedTagSet(packed("", "E2000001", "", ""));
+        assertEquals(1, set.size());
+        assertEquals(Collections.singletonList("E2000001"), set.getList(ExpectedTagSet.LIST_MISSING));
+        assertEquals(0, new ExpectedTagSet(packed("", "")).size());
+        assertEquals(0, new ExpectedTagSet(new byte[0]).size());
+    }
+
+    @Test
+    public void storesDuplicatesOnce() {
+        ExpectedTagSet set = new ExpectedTagSet(
+                packed("E2000001", "E20000000002", "E2000001", "30", "E20000000002", "30"));
+        assertEquals(3, set.size());
+        assertEquals(Arrays.asList("E2000001", "E20000000002", "30"), set.getList(ExpectedTagSet.LIST_MISSING));
+        assertEquals("30", set.epcAt(2));
+
+        assertEquals(ExpectedTagSet.SEEN_FOUND, set.onSeen(EpcKey.of("E20000000002")));
+        assertEquals(ExpectedTagSet.SEEN_FOUND_AGAIN, set.onSeen(EpcKey.of("E20000000002")));
+        assertEquals(ExpectedTagSet.SEEN_FOUND, set.onSeen(EpcKey.of("30")));
+        assertEquals(ExpectedTagSet.SEEN_UNEXPECTED, set.onSeen(EpcKey.of("E2000003")));
+        assertEquals(ExpectedTagSet.SEEN_UNEXPECTED_AGAIN, set.onSeen(EpcKey.of("E2000003")));
+        assertEquals(2, set.getFoundCount());
+        assertEquals(1, set.getMissingCount());
+        assertEquals(1, set.getUnexpectedCount());
+        assertEquals(Collections.singletonList("E2000001"), set.getList(ExpectedTagSet.LIST_MISSING));
+    }
+
+    @Test
+    public void byteAndKeyHashesAgree() {
+        // Short, 96-bit, inline limit and overflow keys, with high bytes that sign-extend
+        String[] epcs = {"FF", "E2801170000000000000ABCD", "FFEEDDCCBBAA99887766554433221100",
+                "E28011700000000000000000FFFFFFFF80818283"};
+        ExpectedTagSet set = new ExpectedTagSet(packed(epcs));
+        for (int i = 0; i < epcs.length; i++) {
+            byte[] bytes = bytes(epcs[i]);
+            EpcKey key = EpcKey.of(epcs[i]);
+            assertEquals(epcs[i], ExpectedTagSet.hash(bytes, 0, bytes.length), ExpectedTagSet.hash(key));
+            assertEquals(ExpectedTagSet.hash(bytes, 0, bytes.length),
+                    ExpectedTagSet.hash(EpcKey.of(bytes, 0, bytes.length)));
+            assertEquals(i, set.indexOf(key));
+        }
+        assertEquals(-1, set.indexOf(EpcKey.of("E2801170000000000000ABCE")));
+        assertEquals(-1, set.indexOf(EpcKey.of("lot-7")));
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class InventoryJournalTest {
+    private final File directory;
+
+    public InventoryJournalTest() throws IOException {
+        directory = Files.createTempDirectory("journal").toFile();
+    }
+
+    @After
+    public void deleteDirectory() {
+        InventoryJournal.deleteFiles(directory);
+        directory.delete();
+    }
+
+    private static EPC tag(String epc, int rssi, int reads) {
+        EPC tag = new EPC();
+        tag.setKey(EpcKey.of(epc));
+        for (int i = 0; i < reads; i++) {
+            tag.recordRead(rssi, System.nanoTime());
+        }
+        return tag;
+    }
+
+    private static InventoryJournal.Batch batch(EPC... tags) {
+        InventoryJournal.Batch batch = new InventoryJournal.Batch();
+        for (EPC tag : tags) {
+            batch.add(tag);
+        }
+        return batch;
+    }
+
+    private TagCache restore() {
+        TagCache cache = new TagCache(100);
+        InventoryJournal journal = new InventoryJournal(directory);
+        journal.restore(cache, TagAggregationBuffer.DEDUP_EPC);
+        journal.close();
+        return cache;
+    }
+
+    private static int count(TagCache cache, String epc) {
+        EPC tag = cache.get(EpcKey.of(epc));
+        return tag != null ? tag.getCount() : 0;
+    }
+
+    private File log(long generation) {
+        return new File(directory, "journal-" + generation + ".log");
+    }
+
+    @Test
+    public void restoresAppendedBatches() {
+        InventoryJournal journal = new InventoryJournal(directory);
+        journal.compact(Collections.<EPC>emptyList());
+        assertFalse(journal.append(batch(tag("E2000001", -500, 3), tag("E2000002", -650, 1))));
+        journal.append(batch(tag("E2000001", -450, 2)));
+        journal.close();
+        assertTrue(InventoryJournal.exists(directory));
+
+        TagCache cache = restore();
+        assertEquals(2, cache.size());
+        EPC first = cache.get(EpcKey.of("E2000001"));
+        assertEquals(5, first.getCount());
+        assertEquals(-450, first.getRssi());
+        assertEquals(-450, first.getPeakRssi());
+        assertEquals(-500, first.getMinRssi());
+        assertEquals(1, count(cache, "E2000002"));
+    }
+
+    @Test
+    public void cutsATornTailBackToTheLastGoodRecord() throws IOException {
+        InventoryJournal journal = new InventoryJournal(directory);
+        journal.compact(Collections.<EPC>emptyList());
+        journal.append(batch(tag("E2000001", -500, 1)));
+        journal.close();
+        long goodLength = log(1).length();
+        journal = new InventoryJournal(directory);
+        journal.restore(new TagCache(100), TagAggregationBuffer.DEDUP_EPC);
+        journal.append(batch(tag("E2000002", -500, 1)));
+        journal.close();
+        // A crash in the middle of writing the second record
+        try (RandomAccessFile file = new RandomAccessFile(log(1), "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        journal = new InventoryJournal(directory);
+        TagCache cache = new TagCache(100);
+        journal.restore(cache, TagAggregationBuffer.DEDUP_EPC);
+        assertEquals(1, count(cache, "E2000001"));
+        assertNull(cache.get(EpcKey.of("E2000002")));
+        assertEquals(goodLength, log(1).length());
+
+        // Appends continue on the record boundary and are replayed next time
+        journal.append(batch(tag("E2000003", -500, 2)));
+        journal.close();
+        cache = restore();
+        assertEquals(1, count(cache, "E2000001"));
+        assertEquals(2, count(cache, "E2000003"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void skipsASnapshotWithABadCrc() throws IOException {
+        InventoryJournal journal = new InventoryJournal(directory);
+        journal.compact(Collections.singletonList(tag("E2000001", -500, 4)));
+        journal.close();
+        assertEquals(4, count(restore(), "E2000001"));
+
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, "snapshot.bin"), "rw")) {
+            file.seek(file.length() - 6);
+            int value = file.read();
+            file.seek(file.length() - 6);
+            file.write(value ^ 0xFF);
+        }
+        assertTrue(restore().isEmpty());
+    }
+
+    @Test
+    public void appendsAfterCompactionGoToTheNewGeneration() {
+        InventoryJournal journal = new InventoryJournal(directory);
+        journal.compact(Collections.<EPC>emptyList());
+        EPC first = tag("E2000001", -500, 1);
+        journal.append(batch(first));
+        journal.compact(Collections.singletonList(first));
+        journal.append(batch(tag("E2000002", -500, 2)));
+        journal.close();
+
+        assertFalse(log(1).exists());
+        assertTrue(log(2).exists());
+        TagCache cache = restore();
+        assertEquals(1, count(cache, "E2000001"));
+        assertEquals(2, count(cache, "E2000002"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class InventoryMetricsTest {
+
+    @Test
+    public void histogramPercentilesAreWithinAFactorOfTwo() {
+        InventoryMetrics.Histogram histogram = new InventoryMetrics.Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        long p50 = histogram.percentile(0.5);
+        long p99 = histogram.percentile(0.99);
+        assertTrue("p50: " + p50, p50 >= 500 && p50 <= 1000);
+        assertTrue("p99: " + p99, p99 >= 990 && p99 <= 1000);
+        assertEquals(1000, histogram.count());
+    }
+
+    @Test
+    public void countsReadsFromSeveralThreads() throws InterruptedException {
+        final InventoryMetrics metrics = new InventoryMetrics();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    metrics.onRead();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        metrics.onBatch(10, 4);
+
+        Map<String, Object> stats = metrics.snapshot(4, 0, 0, 0, System.nanoTime());
+        assertEquals(400_000L, stats.get("reads"));
+        assertEquals(4L, stats.get("uniqueTags"));
+    }
+
+    @Test
+    public void rateWindowsDoNotShortenEachOther() {
+        InventoryMetrics metrics = new InventoryMetrics();
+        long t0 = 1_000_000_000L;
+        InventoryMetrics.RateWindow stream = metrics.newRateWindow(t0);
+        InventoryMetrics.RateWindow poll = metrics.newRateWindow(t0);
+        for (int i = 0; i < 100; i++) {
+            metrics.onRead();
+        }
+
+        // A poll half way through the stream's second does not reset the stream's window
+        Map<String, Object> polled = metrics.snapshot(0, 0, 0, 0, t0 + 500_000_000L, poll);
+        assertEquals(200.0, (Double) polled.get("readsPerSecond"), 1e-9);
+        for (int i = 0; i < 100; i++) {
+            metrics.onRead();
+        }
+        Map<String, Object> streamed = metrics.snapshot(0, 0, 0, 0, t0 + 1_000_000_000L, stream);
+        assertEquals(200.0, (Double) streamed.get("readsPerSecond"), 1e-9);
+
+        // Too short a window keeps the previous rate
+        polled = metrics.snapshot(0, 0, 0, 0, t0 + 600_000_000L, poll);
+        assertEquals(200.0, (Double) polled.get("readsPerSecond"), 1e-9);
+        polled = metrics.snapshot(0, 0, 0, 0, t0 + 1_000_000_000L, poll);
+        assertEquals(200.0, (Double) polled.get("readsPerSecond"), 1e-9);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LocationFilterTest {
+    private static final long TICK_NANOS = 100_000_000L;
+
+    @Test
+    public void medianIgnoresSingleOutliers() {
+        LocationFilter filter = new LocationFilter(LocationFilter.FILTER_MEDIAN, 0.3, 5, 4, 64);
+        int[] readings = {40, 41, 95, 39, 40, 0, 41};
+        long now = 0;
+        for (int reading : readings) {
+            filter.update(reading, true, now += TICK_NANOS);
+        }
+        assertEquals(40, filter.getValue(), 1.0);
+    }
+
+    @Test
+    public void smoothsNoiseAndReportsApproachingTrend() {
+        Random random = new Random(1);
+        LocationFilter filter = new LocationFilter(LocationFilter.FILTER_KALMAN, 0.3, 5, 4, 64);
+        double truth = 20;
+        double rawError = 0;
+        double filteredError = 0;
+        long now = 0;
+        for (int i = 0; i < 100; i++) {
+            truth += 0.5; // 5 per second
+            int reading = (int) Math.round(truth + random.nextGaussian() * 8);
+            filter.update(reading, true, now += TICK_NANOS);
+            if (i >= 20) {
+                rawError += Math.abs(reading - truth);
+                filteredError += Math.abs(filter.getValue() - truth);
+            }
+        }
+        assertTrue(filteredError < rawError);
+        assertTrue(filter.getTrend() > 1);
+    }
+
+    @Test
+    public void missingReadingsLowerConfidenceButKeepTheValue() {
+        LocationFilter filter = new LocationFilter();
+        long now = 0;
+        for (int i = 0; i < 20; i++) {
+            filter.update(60, true, now += TICK_NANOS);
+        }
+        double confident = filter.getConfidence();
+        assertTrue(confident > 0.9);
+        for (int i = 0; i < 5; i++) {
+            filter.update(0, false, now += TICK_NANOS);
+        }
+        assertFalse(filter.isLastValid());
+        assertEquals(60, filter.getValue(), 0.001);
+        assertTrue(filter.getConfidence() < confident / 2);
+
+        filter.reset();
+        assertFalse(filter.hasValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownFilter() {
+        new LocationFilter("lowpass", 0.3, 5, 4, 64);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class MultiTagLocatorTest {
+    private static final long MS = 1_000_000L;
+
+    private static MultiTagLocator locator() {
+        return new MultiTagLocator(Arrays.asList("E2000001", "E2000002", "E2000003"),
+                new LocationFilter(LocationFilter.FILTER_NONE, 1, 1, 1, 1), 500 * MS);
+    }
+
+    @Test
+    public void reportsOnlyChangedTargetsAndTheClosest() {
+        MultiTagLocator locator = locator();
+        assertFalse(locator.onRead("E2000099", -500, 0));
+        assertTrue(locator.onRead("e2000002", -600, 10 * MS));
+        assertTrue(locator.onRead("E2000003", -480, 20 * MS));
+
+        Map<String, Object> update = locator.tick(100 * MS);
+        int[] index = (int[]) update.get("index");
+        int[] proximity = (int[]) update.get("proximity");
+        assertEquals(2, index.length);
+        assertEquals(1, index[0]);
+        assertEquals(2, index[1]);
+        assertEquals(MultiTagLocator.proximityOf(-480), proximity[1]);
+        assertEquals(2, update.get("closest"));
+
+        assertNull(locator.tick(200 * MS));
+    }
+
+    @Test
+    public void absentTargetsLoseConfidenceAndStopBeingClosest() {
+        MultiTagLocator locator = locator();
+        for (int i = 0; i < 10; i++) {
+            locator.onRead("E2000001", -500, i * 50 * MS);
+        }
+        Map<String, Object> update = locator.tick(500 * MS);
+        double before = ((double[]) update.get("confidence"))[0];
+        assertEquals(0, update.get("closest"));
+
+        update = locator.tick(1200 * MS);
+        assertEquals(-1, update.get("closest"));
+        assertTrue(((double[]) update.get("confidence"))[0] < before);
+        assertEquals(MultiTagLocator.proximityOf(-500), ((int[]) update.get("proximity"))[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDuplicateTargets() {
+        new MultiTagLocator(Arrays.asList("E2000001", "e2000001"), new LocationFilter(), 500 * MS);
+    }
+}
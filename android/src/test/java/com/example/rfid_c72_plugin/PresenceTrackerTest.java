@@ -0,0 +1,134 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PresenceTrackerTest {
+    private static final long MS = 1_000_000L;
+    // nanoTime may be negative; the wheel index must cope
+    private static final long T0 = -5_000 * MS;
+    private static final EpcKey A = EpcKey.of("E2000001");
+    private static final EpcKey B = EpcKey.of("E2000002");
+
+    private final List<PresenceEvent> events = new ArrayList<>();
+
+    private PresenceTracker tracker(long absenceMs) {
+        // 10 ms ticks
+        return new PresenceTracker(absenceMs, 10 * MS);
+    }
+
+    private void seen(PresenceTracker tracker, EpcKey key, long atMs) {
+        tracker.onSeen(key, key, T0 + atMs * MS, events);
+    }
+
+    private void advance(PresenceTracker tracker, long toMs) {
+        tracker.advance(T0 + toMs * MS, events);
+    }
+
+    private void assertEvent(String event, EpcKey epc, long seenMs) {
+        assertEquals(1, events.size());
+        assertEquals(event, events.get(0).getEvent());
+        assertEquals(epc, events.get(0).getEpc());
+        assertEquals(T0 + seenMs * MS, events.get(0).getSeenNanos());
+        events.clear();
+    }
+
+    @Test
+    public void arrivesOncePerPresence() {
+        PresenceTracker tracker = tracker(100);
+        seen(tracker, A, 0);
+        seen(tracker, A, 5);
+        seen(tracker, A, 8);
+        assertEvent(PresenceTracker.EVENT_ARRIVED, A, 0);
+
+        advance(tracker, 200);
+        assertEvent(PresenceTracker.EVENT_DEPARTED, A, 8);
+        assertFalse(tracker.isPresent(A));
+
+        seen(tracker, A, 250);
+        assertEvent(PresenceTracker.EVENT_ARRIVED, A, 250);
+    }
+
+    @Test
+    public void staysWhileReseenAndDepartsOneTickAfterTheWindow() {
+        PresenceTracker tracker = tracker(100);
+        for (long t = 0; t <= 500; t += 50) {
+            seen(tracker, A, t);
+            advance(tracker, t);
+        }
+        assertEvent(PresenceTracker.EVENT_ARRIVED, A, 0);
+        assertTrue(tracker.isPresent(A));
+
+        // Never before the window has passed, at the latest one tick after it
+        advance(tracker, 599);
+        assertTrue(events.isEmpty());
+        advance(tracker, 610);
+        assertEvent(PresenceTracker.EVENT_DEPARTED, A, 500);
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    public void windowChangeReschedulesPresentTags() {
+        PresenceTracker tracker = tracker(100);
+        seen(tracker, A, 0);
+        advance(tracker, 50);
+        tracker.setAbsenceWindow(300);
+        assertEquals(300, tracker.getAbsenceWindowMs());
+        events.clear();
+
+        advance(tracker, 200);
+        assertTrue(events.isEmpty());
+        advance(tracker, 310);
+        assertEvent(PresenceTracker.EVENT_DEPARTED, A, 0);
+
+        seen(tracker, B, 400);
+        advance(tracker, 450);
+        tracker.setAbsenceWindow(100);
+        events.clear();
+        advance(tracker, 510);
+        assertEvent(PresenceTracker.EVENT_DEPARTED, B, 400);
+    }
+
+    @Test
+    public void stallLongerThanTheWheelReportsEveryDepartureOnce() {
+        PresenceTracker tracker = tracker(100);
+        seen(tracker, A, 0);
+        seen(tracker, B, 30);
+        advance(tracker, 10);
+        events.clear();
+
+        // 10 s without a tick, a thousand ticks for a wheel of twelve slots
+        advance(tracker, 10_000);
+        assertEquals(2, events.size());
+        assertEquals(PresenceTracker.EVENT_DEPARTED, events.get(0).getEvent());
+        assertEquals(PresenceTracker.EVENT_DEPARTED, events.get(1).getEvent());
+        events.clear();
+
+        seen(tracker, A, 10_000);
+        advance(tracker, 10_050);
+        assertEvent(PresenceTracker.EVENT_ARRIVED, A, 10_000);
+        advance(tracker, 10_110);
+        assertEvent(PresenceTracker.EVENT_DEPARTED, A, 10_000);
+    }
+
+    @Test
+    public void clearForgetsPresentTags() {
+        PresenceTracker tracker = tracker(100);
+        seen(tracker, A, 0);
+        advance(tracker, 10);
+        tracker.clear();
+        events.clear();
+        assertEquals(0, tracker.size());
+
+        advance(tracker, 500);
+        assertTrue(events.isEmpty());
+        seen(tracker, A, 600);
+        assertEvent(PresenceTracker.EVENT_ARRIVED, A, 600);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ScanDeduplicatorTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void dropsRepeatsWithinTheWindow() {
+        ScanDeduplicator deduplicator = new ScanDeduplicator(1000 * MS);
+        assertTrue(deduplicator.accept("4006381333931", 0));
+        assertTrue(deduplicator.accept("9780201379624", 100 * MS));
+        assertFalse(deduplicator.accept("4006381333931", 900 * MS));
+        assertTrue(deduplicator.accept("4006381333931", 1000 * MS));
+        assertFalse(deduplicator.accept("9780201379624", 1099 * MS));
+    }
+
+    @Test
+    public void zeroWindowKeepsEveryScan() {
+        ScanDeduplicator deduplicator = new ScanDeduplicator(0);
+        assertTrue(deduplicator.accept("A1", 0));
+        assertTrue(deduplicator.accept("A1", 1));
+    }
+
+    @Test
+    public void boundsTheCodesItRemembers() {
+        ScanDeduplicator deduplicator = new ScanDeduplicator(1000 * MS);
+        for (int i = 0; i <= ScanDeduplicator.MAX_TRACKED + 1; i++) {
+            assertTrue(deduplicator.accept("C" + i, i));
+        }
+        // The oldest code was forgotten to stay within the bound
+        assertTrue(deduplicator.accept("C0", 400));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SimulatedRfidReaderTest {
+
+    @Test
+    public void sameSeedReplaysTheSameReads() {
+        assertEquals(record(42, 1000), record(42, 1000));
+    }
+
+    @Test
+    public void aggregatesWarehouseLoadWithoutLosingReads() {
+        final int tags = 5000;
+        final int reads = 200_000;
+        SimulatedRfidReader reader = new SimulatedRfidReader(tags, 1000, 7);
+        final TagAggregationBuffer buffer = new TagAggregationBuffer(tags);
+        final TagCache cache = new TagCache(tags);
+        reader.init();
+        reader.setTagCallback((epc, tid, rssi) -> buffer.add(epc, rssi, System.nanoTime()));
+
+        // 1,000 reads/s flushed every 200 ms
+        for (int emitted = 0; emitted < reads; emitted += 200) {
+            reader.emitReads(200);
+            buffer.drain(cache::merge);
+        }
+        buffer.drain(cache::merge);
+
+        long counted = 0;
+        for (EPC tag : cache.values()) {
+            counted += tag.getCount();
+            assertTrue(tag.getPeakRssi() >= tag.getMeanRssi());
+        }
+        assertEquals(reads, counted);
+        assertEquals(tags, cache.size());
+        assertEquals(0, buffer.getDroppedReads());
+    }
+
+    @Test
+    public void pacesContinuousInventoryAtTheConfiguredRate() throws InterruptedException {
+        SimulatedRfidReader reader = new SimulatedRfidReader(100, 1000, 3);
+        final long[] reads = new long[1];
+        reader.init();
+        reader.setTagCallback((epc, tid, rssi) -> reads[0]++);
+        assertTrue(reader.startInventory());
+        Thread.sleep(500);
+        reader.stopInventory();
+
+        assertTrue("reads: " + reads[0], reads[0] > 200 && reads[0] <= 600);
+    }
+
+    @Test
+    public void selectFilterHidesNonMatchingTags() {
+        SimulatedRfidReader reader = new SimulatedRfidReader(1000, 1000, 5);
+        reader.init();
+        // The EPC starts at bit 32 of the EPC bank; match the first byte after the common prefix
+        final String prefix = reader.getEpc(0).substring(0, 10);
+        assertTrue(reader.setSelectFilter(RfidReader.BANK_EPC, 32, 40, prefix));
+        final int[] reads = new int[2];
+        reader.setTagCallback((epc, tid, rssi) -> reads[epc.startsWith(prefix) ? 0 : 1]++);
+        reader.emitReads(1000);
+
+        assertEquals(1000, reads[0]);
+        assertEquals(0, reads[1]);
+    }
+
+    private static List<String> record(long seed, int reads) {
+        final List<String> out = new ArrayList<>();
+        SimulatedRfidReader reader = new SimulatedRfidReader(500, 1000, seed);
+        reader.init();
+        reader.setTagCallback((epc, tid, rssi) -> out.add(epc + "@" + rssi));
+        reader.emitReads(reads);
+        return out;
+    }
+}
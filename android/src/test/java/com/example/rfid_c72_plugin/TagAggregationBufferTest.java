@@ -0,0 +1,120 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class TagAggregationBufferTest {
+
+    @Test
+    public void aggregatesReadsOfTheSameTag() {
+        TagAggregationBuffer buffer = new TagAggregationBuffer(16);
+        buffer.add("E200", -600, 1);
+        buffer.add("E200", -500, 2);
+        buffer.add("E201", -700, 3);
+
+        final Map<String, EPC> drained = new HashMap<>();
+        assertEquals(2, buffer.drain((key, tag) -> {
+            drained.put(key.toString(), tag);
+            return true;
+        }));
+        EPC tag = drained.get("E200");
+        assertEquals(2, tag.getCount());
+        assertEquals(-500, tag.getRssi());
+        assertEquals(-500, tag.getPeakRssi());
+        assertEquals(-550, tag.getMeanRssi());
+        assertEquals(1, tag.getFirstSeenNanos());
+        assertEquals(2, tag.getLastSeenNanos());
+        assertFalse(buffer.hasPending());
+    }
+
+    @Test
+    public void dropsNewTagsWhenFullButKeepsUpdatingKnownOnes() {
+        TagAggregationBuffer buffer = new TagAggregationBuffer(2);
+        assertTrue(buffer.add("A1", -500, 1));
+        assertTrue(buffer.add("B1", -500, 1));
+        assertFalse(buffer.add("C1", -500, 1));
+        assertTrue(buffer.add("A1", -500, 2));
+        assertEquals(1, buffer.getDroppedReads());
+    }
+
+    @Test
+    public void recycledRecordsStartFromScratch() {
+        TagAggregationBuffer buffer = new TagAggregationBuffer(4);
+        buffer.add("A1", -500, 1);
+        buffer.drain((key, tag) -> false);
+        buffer.drain((key, tag) -> false);
+        buffer.add("B1", -400, 5);
+
+        final Map<String, EPC> drained = new HashMap<>();
+        buffer.drain((key, tag) -> {
+            drained.put(key.toString(), tag);
+            return true;
+        });
+        EPC tag = drained.get("B1");
+        assertEquals("B1", tag.getEpc());
+        assertEquals(1, tag.getCount());
+        assertEquals(5, tag.getFirstSeenNanos());
+    }
+
+    @Test
+    public void prefixFilterDiscardsOtherTags() {
+        TagAggregationBuffer buffer = new TagAggregationBuffer(16);
+        assertTrue(buffer.setEpcPrefixFilter(Arrays.asList("e2", "3034")));
+        assertTrue(buffer.add("E200", -500, 1));
+        assertTrue(buffer.add("30340001", -500, 1));
+        assertFalse(buffer.add("30350001", -500, 1));
+        assertFalse(buffer.setEpcPrefixFilter(Arrays.asList("XY")));
+
+        assertEquals(2, buffer.drain(null));
+        assertEquals(1, buffer.getFilteredReads());
+    }
+
+    @Test
+    public void concurrentFlushesNeverLoseReads() throws InterruptedException {
+        final int tags = 500;
+        final int reads = 2_000_000;
+        final TagAggregationBuffer buffer = new TagAggregationBuffer(tags);
+        final String[] keys = new String[tags];
+        for (int i = 0; i < tags; i++) {
+            keys[i] = String.format("E2000000%04X", i);
+        }
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final CountDownLatch started = new CountDownLatch(1);
+
+        // Simulated reader callback thread
+        Thread producer = new Thread(() -> {
+            started.countDown();
+            for (int i = 0; i < reads; i++) {
+                buffer.add(keys[i % tags], -500 - (i % 200), i);
+            }
+            done.set(true);
+        });
+
+        final long[] counted = new long[1];
+        TagAggregationBuffer.Consumer sum = (key, tag) -> {
+            counted[0] += tag.getCount();
+            return false;
+        };
+
+        producer.start();
+        started.await();
+        while (!done.get()) {
+            buffer.drain(sum);
+        }
+        producer.join();
+        buffer.drain(sum);
+        buffer.drain(sum);
+
+        assertEquals(reads, counted[0]);
+        assertEquals(0, buffer.getDroppedReads());
+    }
+}
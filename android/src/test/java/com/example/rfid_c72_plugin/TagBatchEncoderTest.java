@@ -0,0 +1,62 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * The golden frames below are decoded by the Dart test (test/rfid_c72_plugin.dart); change both
+ * together.
+ */
+public class TagBatchEncoderTest {
+    private static final long TIMESTAMP = 1000;
+
+    private static EPC tag(String epc, String tid, int rssi, int reads) {
+        EPC tag = new EPC();
+        tag.setKey(EpcKey.of(epc));
+        tag.setTid(tid);
+        for (int i = 0; i < reads; i++) {
+            tag.recordRead(rssi, i);
+        }
+        return tag;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02X", b & 0xFF));
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void encodesAFullSnapshot() {
+        byte[] frame = TagBatchEncoder.encode(Collections.singletonList(tag("E2801170", null, -553, 12)), null, 0,
+                TagBatchEncoder.FLAG_FULL, TIMESTAMP);
+        assertEquals("0201" + "00000000" + "00000000000003E8" + "00000001"
+                + "04E2801170" + "00" + "FDD7" + "0000000C"
+                + "00000000", hex(frame));
+    }
+
+    @Test
+    public void encodesADeltaWithRemovedKeys() {
+        byte[] frame = TagBatchEncoder.encode(Collections.singletonList(tag("3008", null, -600, 1)),
+                Arrays.asList(EpcKey.of("E200"), EpcKey.of("lot-7")), 7, TagBatchEncoder.FLAG_DELTA, TIMESTAMP);
+        assertEquals("0202" + "00000007" + "00000000000003E8" + "00000001"
+                + "023008" + "00" + "FDA8" + "00000001"
+                + "00000002" + "02E200" + "856C6F742D37", hex(frame));
+    }
+
+    @Test
+    public void encodesATidKeyedDelta() {
+        byte[] frame = TagBatchEncoder.encode(Collections.singletonList(tag("E280", "E2003412", -455, 3)),
+                Collections.singletonList(EpcKey.of("E2003499")), 8,
+                TagBatchEncoder.FLAG_DELTA | TagBatchEncoder.keyFlags(TagAggregationBuffer.DEDUP_TID), TIMESTAMP);
+        assertEquals("0206" + "00000008" + "00000000000003E8" + "00000001"
+                + "02E280" + "04E2003412" + "FE39" + "00000003"
+                + "00000001" + "04E2003499", hex(frame));
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.rfid_c72_plugin;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TagCacheTest {
+    private static final long MS = 1_000_000L;
+
+    private static EpcKey key(int id) {
+        return EpcKey.of(String.format("E2000000%016X", id));
+    }
+
+    private static EPC read(int rssi, long nowNanos) {
+        EPC tag = new EPC();
+        tag.recordRead(rssi, nowNanos);
+        return tag;
+    }
+
+    private static List<EpcKey> order(TagCache cache) {
+        List<EpcKey> keys = new ArrayList<>();
+        for (EPC tag : cache.values()) {
+            for (int id = 0; id < 16; id++) {
+                if (cache.get(key(id)) == tag) {
+                    keys.add(key(id));
+                }
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    public void lruEvictsTheLeastRecentlySeenAndRereadsPromote() {
+        TagCache cache = new TagCache(3);
+        assertTrue(cache.merge(key(1), read(-500, 0)));
+        assertTrue(cache.merge(key(2), read(-500, MS)));
+        assertTrue(cache.merge(key(3), read(-500, 2 * MS)));
+        // Re-read: folded into the stored record, which moves to the recent end
+        assertFalse(cache.merge(key(1), read(-450, 3 * MS)));
+        assertEquals(2, cache.get(key(1)).getCount());
+        assertEquals(-450, cache.get(key(1)).getRssi());
+        assertTrue(cache.merge(key(4), read(-500, 4 * MS)));
+
+        List<EpcKey> removed = new ArrayList<>();
+        assertEquals(1, cache.evict(4 * MS, removed));
+        assertEquals(1, removed.size());
+        assertEquals(key(2), removed.get(0));
+        assertNull(cache.get(key(2)));
+        assertEquals(3, cache.size());
+        List<EpcKey> expected = new ArrayList<>();
+        expected.add(key(3));
+        expected.add(key(1));
+        expected.add(key(4));
+        assertEquals(expected, order(cache));
+
+        assertEquals(0, cache.evict(5 * MS, null));
+        assertEquals(1, cache.getEvictedCount());
+    }
+
+    @Test
+    public void ttlDropsExpiredTagsBeforeTrimming() {
+        TagCache cache = new TagCache(2);
+        assertTrue(cache.setPolicy(TagCache.POLICY_TTL, 1000));
+        cache.merge(key(1), read(-500, 0));
+        cache.merge(key(2), read(-500, 500 * MS));
+        cache.merge(key(3), read(-500, 600 * MS));
+        // Re-read keeps tag 1 alive
+        cache.merge(key(1), read(-500, 900 * MS));
+
+        List<EpcKey> removed = new ArrayList<>();
+        // Nothing expired yet, so the size bound drops the least recently seen
+        assertEquals(1, cache.evict(1000 * MS, removed));
+        assertEquals(key(2), removed.get(0));
+
+        removed.clear();
+        assertEquals(1, cache.evict(1700 * MS, removed));
+        assertEquals(key(3), removed.get(0));
+        assertNotNull(cache.get(key(1)));
+
+        assertEquals(1, cache.evict(2000 * MS, null));
+        assertTrue(cache.isEmpty());
+        assertEquals(3, cache.getEvictedCount());
+        assertFalse(cache.setPolicy("fifo", 0));
+        assertEquals(TagCache.POLICY_TTL, cache.getPolicy());
+    }
+
+    @Test
+    public void lowestRssiEvictsTheWeakestAndFollowsRssiChanges() {
+        TagCache cache = new TagCache(3);
+        assertTrue(cache.setPolicy(TagCache.POLICY_LOWEST_RSSI, 0));
+        cache.merge(key(1), read(-500, 0));
+        cache.merge(key(2), read(-700, MS));
+        cache.merge(key(3), read(-600, 2 * MS));
+        // Tag 2 comes closer: it has to leave the weakest bucket
+        cache.merge(key(2), read(-400, 3 * MS));
+        cache.merge(key(4), read(-550, 4 * MS));
+
+        List<EpcKey> removed = new ArrayList<>();
+        assertEquals(1, cache.evict(5 * MS, removed));
+        assertEquals(key(3), removed.get(0));
+
+        cache.setMaxSize(1);
+        removed.clear();
+        assertEquals(2, cache.evict(6 * MS, removed));
+        assertEquals(key(4), removed.get(0));
+        assertEquals(key(1), removed.get(1));
+        assertNotNull(cache.get(key(2)));
+        assertEquals(3, cache.getEvictedCount());
+
+        // The bucket index starts over after a clear
+        cache.clear();
+        cache.setMaxSize(1);
+        cache.merge(key(5), read(-300, 7 * MS));
+        cache.merge(key(6), read(-900, 8 * MS));
+        removed.clear();
+        cache.evict(9 * MS, removed);
+        assertEquals(key(6), removed.get(0));
+    }
+
+    @Test
+    public void lowestRssiMatchesAScanUnderRandomReads() {
+        TagCache cache = new TagCache(64);
+        cache.setPolicy(TagCache.POLICY_LOWEST_RSSI, 0);
+        Map<EpcKey, Integer> reference = new HashMap<>();
+        Random random = new Random(3);
+        List<EpcKey> removed = new ArrayList<>();
+        long evicted = 0;
+        for (int i = 0; i < 50_000; i++) {
+            EpcKey key = EpcKey.of(String.format("E2000000%016X", (long) random.nextInt(200)));
+            // Whole dBm, so that the buckets order the tags exactly
+            int rssi = -(300 + random.nextInt(500)) / 10 * 10;
+            cache.merge(key, read(rssi, i));
+            reference.put(key, rssi);
+
+            removed.clear();
+            evicted += cache.evict(i, removed);
+            for (EpcKey gone : removed) {
+                int weakest = Integer.MAX_VALUE;
+                for (int value : reference.values()) {
+                    weakest = Math.min(weakest, value);
+                }
+                assertEquals(weakest, (int) reference.remove(gone));
+            }
+            assertEquals(reference.size(), cache.size());
+        }
+        assertEquals(64, cache.size());
+        assertEquals(evicted, cache.getEvictedCount());
+        for (Map.Entry<EpcKey, Integer> entry : reference.entrySet()) {
+            assertEquals((int) entry.getValue(), cache.get(entry.getKey()).getRssi());
+        }
+    }
+}
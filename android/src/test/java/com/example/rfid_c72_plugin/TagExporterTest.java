@@ -0,0 +1,111 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TagExporterTest {
+    private final File file;
+
+    public TagExporterTest() throws IOException {
+        file = File.createTempFile("export", ".out");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    private static TagCache session() {
+        TagCache cache = new TagCache(10);
+        EPC first = new EPC();
+        first.setKey(EpcKey.of("E2000001"));
+        first.recordRead(-500, System.nanoTime());
+        first.recordRead(-600, System.nanoTime());
+        cache.merge(first.getKey(), first);
+        EPC second = new EPC();
+        second.setKey(EpcKey.of("E2000002"));
+        second.setTid("E2801105");
+        second.recordRead(-453, System.nanoTime());
+        cache.merge(second.getKey(), second);
+        return cache;
+    }
+
+    private static void assertRecent(long millis, long before) {
+        assertTrue("timestamp " + millis, millis >= before - 1000 && millis <= System.currentTimeMillis() + 1000);
+    }
+
+    @Test
+    public void writesCsvRows() throws IOException {
+        long before = System.currentTimeMillis();
+        assertEquals(2, TagExporter.export(session().values(), file, TagExporter.FORMAT_CSV));
+
+        List<String> lines = Files.readAllLines(file.toPath(), Charset.forName("US-ASCII"));
+        assertEquals(3, lines.size());
+        assertEquals("epc,tid,count,first_seen,last_seen,min_rssi,max_rssi,avg_rssi", lines.get(0));
+
+        String[] first = lines.get(1).split(",", -1);
+        assertEquals(8, first.length);
+        assertEquals("E2000001", first[0]);
+        assertEquals("", first[1]);
+        assertEquals("2", first[2]);
+        assertRecent(Long.parseLong(first[3]), before);
+        assertRecent(Long.parseLong(first[4]), before);
+        assertEquals("-60.0", first[5]);
+        assertEquals("-50.0", first[6]);
+        assertEquals("-55.0", first[7]);
+
+        String[] second = lines.get(2).split(",", -1);
+        assertEquals("E2000002", second[0]);
+        assertEquals("E2801105", second[1]);
+        assertEquals("-45.3", second[6]);
+    }
+
+    @Test
+    public void writesBinaryRows() throws IOException {
+        long before = System.currentTimeMillis();
+        assertEquals(2, TagExporter.export(session().values(), file, TagExporter.FORMAT_BINARY));
+
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            assertEquals(0x52464558, in.readInt()); // RFEX
+            assertEquals(1, in.readUnsignedByte());
+            assertRecent(in.readLong(), before);
+            assertEquals(2, in.readInt());
+
+            assertEquals("E2000001", readAscii(in));
+            assertEquals("", readAscii(in));
+            assertEquals(2, in.readInt());
+            assertRecent(in.readLong(), before);
+            assertRecent(in.readLong(), before);
+            assertEquals(-600, in.readShort());
+            assertEquals(-500, in.readShort());
+            assertEquals(-550, in.readShort());
+
+            assertEquals("E2000002", readAscii(in));
+            assertEquals("E2801105", readAscii(in));
+            assertEquals(1, in.readInt());
+            in.readLong();
+            in.readLong();
+            assertEquals(-453, in.readShort());
+            assertEquals(-453, in.readShort());
+            assertEquals(-453, in.readShort());
+            assertEquals(-1, in.read());
+        }
+    }
+
+    private static String readAscii(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedByte()];
+        in.readFully(bytes);
+        return new String(bytes, Charset.forName("US-ASCII"));
+    }
+}
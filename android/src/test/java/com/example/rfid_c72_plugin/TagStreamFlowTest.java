@@ -0,0 +1,73 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TagStreamFlowTest {
+
+    @Test
+    public void creditModeSendsOnlyWhatWasRequested() {
+        TagStreamFlow flow = new TagStreamFlow();
+        flow.configure(true, 1, 100);
+        assertTrue(flow.tryAcquire());
+        assertFalse(flow.tryAcquire());
+        flow.grant(2);
+        assertTrue(flow.tryAcquire());
+        flow.refund();
+        assertTrue(flow.tryAcquire());
+        assertTrue(flow.tryAcquire());
+        assertFalse(flow.tryAcquire());
+    }
+
+    @Test
+    public void boundsUpdatesWaitingForTheMainThread() {
+        TagStreamFlow flow = new TagStreamFlow();
+        for (int i = 0; i < TagStreamFlow.MAX_IN_FLIGHT; i++) {
+            assertTrue(flow.tryAcquire());
+        }
+        assertFalse(flow.tryAcquire());
+        flow.onDelivered();
+        assertTrue(flow.tryAcquire());
+    }
+
+    @Test
+    public void mergesDeferredDeltasKeepingTheLatestState() {
+        TagStreamFlow flow = new TagStreamFlow();
+        EpcKey a = EpcKey.of("A1");
+        EpcKey b = EpcKey.of("B2");
+        List<EpcKey> none = Collections.emptyList();
+        assertTrue(flow.add(Arrays.asList(a, b), none));
+        assertTrue(flow.add(none, Collections.singletonList(a)));
+        assertTrue(flow.add(Collections.singletonList(b), none));
+
+        assertEquals(Collections.singletonList(b), flow.takeChanged());
+        assertEquals(Collections.singletonList(a), flow.takeRemoved());
+    }
+
+    @Test
+    public void tagReadAndEvictedInOneTickIsRemoved() {
+        TagStreamFlow flow = new TagStreamFlow();
+        EpcKey a = EpcKey.of("A1");
+        EpcKey b = EpcKey.of("B2");
+        // The tick merged a and b, then trimmed a
+        assertTrue(flow.add(Arrays.asList(a, b), Collections.singletonList(a)));
+
+        assertEquals(Collections.singletonList(b), flow.takeChanged());
+        assertEquals(Collections.singletonList(a), flow.takeRemoved());
+    }
+
+    @Test
+    public void overflowingDeltaIsDropped() {
+        TagStreamFlow flow = new TagStreamFlow();
+        flow.configure(false, 0, 2);
+        assertFalse(flow.add(Arrays.asList(EpcKey.of("01"), EpcKey.of("02"), EpcKey.of("03")), null));
+        assertTrue(flow.takeChanged().isEmpty());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.rfid_c72_plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+
+import io.flutter.plugin.common.MethodChannel.Result;
+
+public class UHFHelperTest {
+    private static final long TIMEOUT_MS = 2000;
+
+    // Results are posted to the main thread, which does not run here; the reader state is checked instead
+    private static final Result IGNORED = new Result() {
+        @Override
+        public void success(Object result) {
+        }
+
+        @Override
+        public void error(String errorCode, String errorMessage, Object errorDetails) {
+        }
+
+        @Override
+        public void notImplemented() {
+        }
+    };
+
+    private final UHFHelper helper = UHFHelper.getInstance();
+
+    @After
+    public void release() {
+        helper.release();
+    }
+
+    @Test
+    public void continuousInventoryTakesOverFromMultiTagLocation() throws InterruptedException {
+        SimulatedRfidReader reader = new SimulatedRfidReader(20, 500, 5);
+        helper.setReader(reader);
+        helper.startPipeline();
+        helper.connectRfid(IGNORED);
+
+        helper.startMultiTagLocation(Arrays.asList(reader.getEpc(0), reader.getEpc(1)), IGNORED);
+        assertEquals(ReaderCommandExecutor.STATE_MULTI_LOCATING, helper.awaitReaderState(TIMEOUT_MS));
+        assertTrue(reader.isInventoryRunning());
+
+        helper.startRfidContinuous(IGNORED);
+        assertEquals(ReaderCommandExecutor.STATE_INVENTORY, helper.awaitReaderState(TIMEOUT_MS));
+        assertFalse(helper.isLocationRunning());
+        assertTrue(reader.isInventoryRunning());
+        // Reads now go to the tag list rather than to the locator
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (helper.isEmptyTags() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(helper.isEmptyTags());
+
+        helper.stopRfid(IGNORED);
+        assertEquals(ReaderCommandExecutor.STATE_IDLE, helper.awaitReaderState(TIMEOUT_MS));
+        assertFalse(reader.isInventoryRunning());
+    }
+
+    @Test
+    public void closeRunsOnTheCommandThread() {
+        SimulatedRfidReader reader = new SimulatedRfidReader(20, 500, 5);
+        helper.setReader(reader);
+        helper.startPipeline();
+        helper.connectRfid(IGNORED);
+        helper.startRfidContinuous(IGNORED);
+        assertEquals(ReaderCommandExecutor.STATE_INVENTORY, helper.awaitReaderState(TIMEOUT_MS));
+
+        helper.closeRfidReader(IGNORED);
+        // Queued behind the close, so the reader is stopped and freed by the time this returns
+        assertEquals(ReaderCommandExecutor.STATE_IDLE, helper.awaitReaderState(TIMEOUT_MS));
+        assertFalse(reader.isInventoryRunning());
+        assertFalse(helper.isRfidConnected());
+    }
+}
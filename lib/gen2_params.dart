@@ -0,0 +1,35 @@
+/// Gen2 inventory parameters of the reader, see [RfidC72Plugin.setGen2Params].
+class Gen2Params {
+  static const int targetA = 0;
+  static const int targetB = 1;
+
+  /// Inventory session, 0-3 (S0 re-reads tags continuously, S1-S3 keep read tags quiet).
+  final int session;
+
+  /// Inventoried flag a round selects: [targetA] or [targetB].
+  final int target;
+
+  /// Whether the reader adapts Q to collisions, or keeps [startQ] fixed.
+  final bool dynamicQ;
+  final int startQ;
+  final int minQ;
+  final int maxQ;
+
+  Gen2Params({
+    required this.session,
+    required this.target,
+    required this.dynamicQ,
+    required this.startQ,
+    required this.minQ,
+    required this.maxQ,
+  });
+
+  factory Gen2Params.fromJson(Map<Object?, Object?> json) => Gen2Params(
+        session: json["session"] as int,
+        target: json["target"] as int,
+        dynamicQ: json["dynamicQ"] as bool,
+        startQ: json["startQ"] as int,
+        minQ: json["minQ"] as int,
+        maxQ: json["maxQ"] as int,
+      );
+}
@@ -0,0 +1,124 @@
+/// Summary of a native histogram. Percentiles are bucket upper bounds, accurate to a factor
+/// of two.
+class StatsHistogram {
+  final int count;
+  final int mean;
+  final int p50;
+  final int p90;
+  final int p99;
+  final int max;
+
+  StatsHistogram({
+    required this.count,
+    required this.mean,
+    required this.p50,
+    required this.p90,
+    required this.p99,
+    required this.max,
+  });
+
+  factory StatsHistogram.fromJson(Map<Object?, Object?> json) => StatsHistogram(
+        count: json["count"] as int,
+        mean: json["mean"] as int,
+        p50: json["p50"] as int,
+        p90: json["p90"] as int,
+        p99: json["p99"] as int,
+        max: json["max"] as int,
+      );
+}
+
+/// Pipeline statistics of the native side, see [RfidC72Plugin.getInventoryStats].
+/// Rates cover the time since the previous sample; everything else is a running total.
+class InventoryStats {
+  final int reads;
+  final double readsPerSecond;
+
+  /// Tags that were new to the tag list when read.
+  final int uniqueTags;
+  final double uniquePerSecond;
+
+  /// Tags currently in the native tag list.
+  final int tagCount;
+  final int batches;
+  final int emits;
+
+  /// Tag updates held back for a slow consumer and merged into a later one.
+  final int conflatedUpdates;
+
+  /// Times the held-back deltas outgrew their bound and a snapshot was sent instead.
+  final int deltaOverflows;
+
+  /// Distinct tags per flushed batch.
+  final StatsHistogram batchSize;
+
+  /// Time from the oldest read of an update to its delivery on the main thread, in ms.
+  final StatsHistogram emitLatencyMs;
+
+  /// Time updates waited in the main-thread queue, in µs.
+  final StatsHistogram mainQueueDelayUs;
+
+  /// Time from submitting a reader command to its completion, in µs.
+  final StatsHistogram commandLatencyUs;
+
+  /// What the reader is doing: "idle", "inventory", "locating" or "multiLocating".
+  final String readerState;
+
+  /// Barcode scans delivered, dropped as repeats, and dropped because the queue was full.
+  final int barcodeScans;
+  final int duplicateScans;
+  final int droppedScans;
+
+  /// Time from decode to delivery on the main thread, in µs.
+  final StatsHistogram barcodeLatencyUs;
+  final int evictions;
+  final int droppedReads;
+  final int filteredReads;
+
+  InventoryStats({
+    required this.reads,
+    required this.readsPerSecond,
+    required this.uniqueTags,
+    required this.uniquePerSecond,
+    required this.tagCount,
+    required this.batches,
+    required this.emits,
+    required this.conflatedUpdates,
+    required this.deltaOverflows,
+    required this.batchSize,
+    required this.emitLatencyMs,
+    required this.mainQueueDelayUs,
+    required this.commandLatencyUs,
+    required this.readerState,
+    required this.barcodeScans,
+    required this.duplicateScans,
+    required this.droppedScans,
+    required this.barcodeLatencyUs,
+    required this.evictions,
+    required this.droppedReads,
+    required this.filteredReads,
+  });
+
+  factory InventoryStats.fromJson(Map<Object?, Object?> json) => InventoryStats(
+        reads: json["reads"] as int,
+        readsPerSecond: (json["readsPerSecond"] as num).toDouble(),
+        uniqueTags: json["uniqueTags"] as int,
+        uniquePerSecond: (json["uniquePerSecond"] as num).toDouble(),
+        tagCount: json["tagCount"] as int,
+        batches: json["batches"] as int,
+        emits: json["emits"] as int,
+        conflatedUpdates: json["conflatedUpdates"] as int,
+        deltaOverflows: json["deltaOverflows"] as int,
+        batchSize: StatsHistogram.fromJson(json["batchSize"] as Map<Object?, Object?>),
+        emitLatencyMs: StatsHistogram.fromJson(json["emitLatencyMs"] as Map<Object?, Object?>),
+        mainQueueDelayUs: StatsHistogram.fromJson(json["mainQueueDelayUs"] as Map<Object?, Object?>),
+        commandLatencyUs: StatsHistogram.fromJson(json["commandLatencyUs"] as Map<Object?, Object?>),
+        readerState: json["readerState"] as String,
+        barcodeScans: json["barcodeScans"] as int,
+        duplicateScans: json["duplicateScans"] as int,
+        droppedScans: json["droppedScans"] as int,
+        barcodeLatencyUs: StatsHistogram.fromJson(json["barcodeLatencyUs"] as Map<Object?, Object?>),
+        evictions: json["evictions"] as int,
+        droppedReads: json["droppedReads"] as int,
+        filteredReads: json["filteredReads"] as int,
+      );
+}
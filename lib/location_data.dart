@@ -1,16 +1,38 @@
 class LocationData {
+  /// Smoothed proximity, 0..100.
   final int value;
   final bool valid;
 
-  LocationData({required this.value, required this.valid});
+  /// Latest valid reading before smoothing.
+  final int raw;
+
+  /// Change of [value] per second; positive while getting closer.
+  final double trend;
+
+  /// 0..1, lower when readings are missing or scattered.
+  final double confidence;
+
+  LocationData({
+    required this.value,
+    required this.valid,
+    this.raw = 0,
+    this.trend = 0,
+    this.confidence = 0,
+  });
 
   factory LocationData.fromJson(Map<Object?, Object?> json) => LocationData(
         value: json["value"] as int,
         valid: json["valid"] as bool,
+        raw: json["raw"] as int? ?? 0,
+        trend: (json["trend"] as num? ?? 0).toDouble(),
+        confidence: (json["confidence"] as num? ?? 0).toDouble(),
       );
 
   Map<String, dynamic> toJson() => {
         "value": value,
         "valid": valid,
+        "raw": raw,
+        "trend": trend,
+        "confidence": confidence,
       };
 }
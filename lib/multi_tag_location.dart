@@ -0,0 +1,55 @@
+/// Proximity of one target of [RfidC72Plugin.startMultiTagLocation].
+class TargetProximity {
+  /// Position of the target in the list passed to startMultiTagLocation.
+  final int index;
+
+  /// Smoothed proximity, 0..100.
+  final int proximity;
+
+  /// Last RSSI in tenths of a dBm.
+  final int rssi;
+
+  /// Change of [proximity] per second; positive while getting closer.
+  final double trend;
+
+  /// 0..1, drops while the target is not read.
+  final double confidence;
+
+  TargetProximity({
+    required this.index,
+    required this.proximity,
+    required this.rssi,
+    required this.trend,
+    required this.confidence,
+  });
+}
+
+/// The targets that changed since the previous update.
+class MultiTagLocationUpdate {
+  final List<TargetProximity> targets;
+
+  /// Index of the nearest target currently read, or -1.
+  final int closest;
+
+  MultiTagLocationUpdate({required this.targets, required this.closest});
+
+  factory MultiTagLocationUpdate.fromJson(Map<Object?, Object?> json) {
+    final index = json["index"] as List<int>;
+    final proximity = json["proximity"] as List<int>;
+    final rssi = json["rssi"] as List<int>;
+    final trend = json["trend"] as List<double>;
+    final confidence = json["confidence"] as List<double>;
+    return MultiTagLocationUpdate(
+      targets: List<TargetProximity>.generate(
+          index.length,
+          (i) => TargetProximity(
+                index: index[i],
+                proximity: proximity[i],
+                rssi: rssi[i],
+                trend: trend[i],
+                confidence: confidence[i],
+              )),
+      closest: json["closest"] as int,
+    );
+  }
+}
@@ -0,0 +1,45 @@
+/// A power change of the adaptive power controller, see [RfidC72Plugin.configureAdaptivePower].
+class PowerDecision {
+  static const String reasonOutsideZone = 'outsideZone';
+  static const String reasonFewTags = 'fewTags';
+  static const String reasonZoneNotReached = 'zoneNotReached';
+
+  final int power;
+  final int previousPower;
+
+  /// [reasonOutsideZone] (stepped down), [reasonFewTags] or [reasonZoneNotReached] (stepped up).
+  final String reason;
+
+  /// Whether the reader accepted the new power.
+  final bool applied;
+
+  /// Statistics of the interval the decision was based on.
+  final double sightingsPerSecond;
+  final double newPerSecond;
+  final double outsideShare;
+
+  /// Weakest 10% of the reads, normalized to full power, in tenths of a dBm.
+  final int p10Rssi;
+
+  PowerDecision({
+    required this.power,
+    required this.previousPower,
+    required this.reason,
+    required this.applied,
+    required this.sightingsPerSecond,
+    required this.newPerSecond,
+    required this.outsideShare,
+    required this.p10Rssi,
+  });
+
+  factory PowerDecision.fromJson(Map<Object?, Object?> json) => PowerDecision(
+        power: json["power"] as int,
+        previousPower: json["previousPower"] as int,
+        reason: json["reason"] as String,
+        applied: json["applied"] as bool,
+        sightingsPerSecond: (json["sightingsPerSecond"] as num).toDouble(),
+        newPerSecond: (json["newPerSecond"] as num).toDouble(),
+        outsideShare: (json["outsideShare"] as num).toDouble(),
+        p10Rssi: json["p10Rssi"] as int,
+      );
+}
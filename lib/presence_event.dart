@@ -0,0 +1,24 @@
+class PresenceEvent {
+  static const String arrived = 'arrived';
+  static const String departed = 'departed';
+
+  final String epc;
+  final String event;
+  final DateTime timestamp;
+
+  PresenceEvent({required this.epc, required this.event, required this.timestamp});
+
+  bool get isArrival => event == arrived;
+
+  factory PresenceEvent.fromJson(Map<Object?, Object?> json) => PresenceEvent(
+        epc: json["epc"] as String,
+        event: json["event"] as String,
+        timestamp: DateTime.fromMillisecondsSinceEpoch(json["timestamp"] as int),
+      );
+
+  Map<String, dynamic> toJson() => {
+        "epc": epc,
+        "event": event,
+        "timestamp": timestamp.millisecondsSinceEpoch,
+      };
+}
@@ -0,0 +1,34 @@
+class ReconciliationUpdate {
+  static const String found = 'found';
+  static const String missing = 'missing';
+  static const String unexpected = 'unexpected';
+
+  final int expectedCount;
+  final int foundCount;
+  final int missingCount;
+  final int unexpectedCount;
+
+  /// EPCs of the expected list read for the first time since the last update.
+  final List<String> newlyFound;
+
+  /// EPCs not on the expected list read for the first time since the last update.
+  final List<String> newlyUnexpected;
+
+  ReconciliationUpdate({
+    required this.expectedCount,
+    required this.foundCount,
+    required this.missingCount,
+    required this.unexpectedCount,
+    required this.newlyFound,
+    required this.newlyUnexpected,
+  });
+
+  factory ReconciliationUpdate.fromJson(Map<Object?, Object?> json) => ReconciliationUpdate(
+        expectedCount: json["expected"] as int,
+        foundCount: json["found"] as int,
+        missingCount: json["missing"] as int,
+        unexpectedCount: json["unexpected"] as int,
+        newlyFound: List<String>.from(json["newlyFound"] as List),
+        newlyUnexpected: List<String>.from(json["newlyUnexpected"] as List),
+      );
+}
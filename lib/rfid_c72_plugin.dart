@@ -1,7 +1,16 @@
 import 'dart:async';
+import 'dart:typed_data';
 
 import 'package:flutter/services.dart';
+import 'package:rfid_c72_plugin/gen2_params.dart';
+import 'package:rfid_c72_plugin/inventory_stats.dart';
 import 'package:rfid_c72_plugin/location_data.dart';
+import 'package:rfid_c72_plugin/multi_tag_location.dart';
+import 'package:rfid_c72_plugin/power_decision.dart';
+import 'package:rfid_c72_plugin/presence_event.dart';
+import 'package:rfid_c72_plugin/reconciliation_update.dart';
+import 'package:rfid_c72_plugin/session_export.dart';
+import 'package:rfid_c72_plugin/tag_association.dart';
 
 class RfidC72Plugin {
   static const MethodChannel _channel = MethodChannel('rfid_c72_plugin');
@@ -17,6 +26,12 @@ class RfidC72Plugin {
   static const EventChannel tagsStatusSubjectEventChannel = EventChannel('tagsStatusSubject');
   static const EventChannel barcodeScanSubjectEventChannel = EventChannel('barcodeScanSubject');
   static const EventChannel locationChannel = EventChannel('locationValueSubject');
+  static const EventChannel presenceChannel = EventChannel('presenceEventSubject');
+  static const EventChannel reconciliationChannel = EventChannel('reconciliationEventSubject');
+  static const EventChannel inventoryStatsChannel = EventChannel('inventoryStatsSubject');
+  static const EventChannel multiTagLocationChannel = EventChannel('multiTagLocationSubject');
+  static const EventChannel associationChannel = EventChannel('associationEventSubject');
+  static const EventChannel powerDecisionChannel = EventChannel('powerDecisionSubject');
 
   static Future<bool?> get isContinuousRfidReadActive async {
     return _channel.invokeMethod('isContinuousRfidReadActive');
@@ -66,6 +81,30 @@ class RfidC72Plugin {
     return _channel.invokeMethod('scanBarcode');
   }
 
+  /// [triggerMode] 'single' scans one code per [scanBarcode]; 'continuous' keeps scanning until
+  /// [stopScanBarcode]. Repeats of a code within [duplicateWindowMs] (0 keeps all) are dropped;
+  /// until it is set, only continuous mode drops repeats, within 1000 ms. Omitted arguments keep
+  /// their current value.
+  static Future<bool> configureBarcode({String? triggerMode, int? duplicateWindowMs}) async {
+    final result = await _channel.invokeMethod('configureBarcode', {
+      'triggerMode': triggerMode,
+      'duplicateWindowMs': duplicateWindowMs,
+    });
+    return result ?? false;
+  }
+
+  /// Groups the tags read within [windowMs] (default 2000) after each barcode scan, or until the
+  /// next scan, into one [TagAssociation] on [tagAssociations]. Both sources are timestamped
+  /// natively. Tags are only read while an inventory runs.
+  static Future<bool> configureAssociation({required bool enabled, int? windowMs, int? maxTags}) async {
+    final result = await _channel.invokeMethod('configureAssociation', {
+      'enabled': enabled,
+      'windowMs': windowMs,
+      'maxTags': maxTags,
+    });
+    return result ?? false;
+  }
+
   static Future<bool?> get stopScanBarcode async {
     return _channel.invokeMethod('stopScanBarcode');
   }
@@ -78,6 +117,34 @@ class RfidC72Plugin {
     return _channel.invokeMethod('setPowerLevel', <String, String>{'value': value});
   }
 
+  /// Lets the plugin step the RF power while a continuous inventory runs, so that it reads the
+  /// tags within a zone and few beyond it. [zoneRssiDbm] (default -65) is the edge of the zone as
+  /// RSSI at full power; the power goes down by [step] dBm (default 2) while more than
+  /// [maxOutsideShare] (default 0.1) of the tags read are outside it, and up while too few tags are
+  /// read, within [minPower]..[maxPower] (default 5..30). Decided every [intervalMs] (default 1000);
+  /// each change pauses the inventory briefly and is reported on [powerDecisions].
+  /// [setPowerLevel] turns it off.
+  static Future<bool> configureAdaptivePower({
+    required bool enabled,
+    int? minPower,
+    int? maxPower,
+    int? step,
+    double? zoneRssiDbm,
+    double? maxOutsideShare,
+    int? intervalMs,
+  }) async {
+    final result = await _channel.invokeMethod('configureAdaptivePower', {
+      'enabled': enabled,
+      'minPower': minPower,
+      'maxPower': maxPower,
+      'step': step,
+      'zoneRssiDbm': zoneRssiDbm,
+      'maxOutsideShare': maxOutsideShare,
+      'intervalMs': intervalMs,
+    });
+    return result ?? false;
+  }
+
   static Future<bool?> setWorkArea(String value) async {
     return _channel.invokeMethod('setWorkArea', <String, String>{'value': value});
   }
@@ -93,6 +160,14 @@ class RfidC72Plugin {
     return result ?? false;
   }
 
+  /// Locates all of [epcs] in one sweep over a continuous inventory; updates arrive on
+  /// [multiTagLocationUpdates] at the rate set by [configureLocationFilter]. Stop it with
+  /// [stopTagLocation].
+  static Future<bool> startMultiTagLocation(List<String> epcs) async {
+    final result = await _channel.invokeMethod('startMultiTagLocation', {'epcs': epcs});
+    return result ?? false;
+  }
+
   // Stop tag location
   static Future<bool> stopTagLocation() async {
     final result = await _channel.invokeMethod('stopTagLocation');
@@ -111,9 +186,297 @@ class RfidC72Plugin {
     return result ?? false;
   }
 
+  /// Smooths [locationValues] natively and caps them at [maxRateHz] (default 10, at most 60).
+  /// [filter] is 'none', 'ema' (default, weight [alpha] of a new reading), 'kalman'
+  /// ([processNoise], [measurementNoise]) or 'median' (of the last [window] readings).
+  static Future<bool> configureLocationFilter({
+    String filter = 'ema',
+    double? alpha,
+    int? window,
+    double? processNoise,
+    double? measurementNoise,
+    int? maxRateHz,
+  }) async {
+    final result = await _channel.invokeMethod('configureLocationFilter', {
+      'filter': filter,
+      'alpha': alpha,
+      'window': window,
+      'processNoise': processNoise,
+      'measurementNoise': measurementNoise,
+      'maxRateHz': maxRateHz,
+    });
+    return result ?? false;
+  }
+
+  /// Selects the payload sent on [tagsStatusSubjectEventChannel]:
+  /// 'full' (JSON array of every tag, default) or 'delta' (see [TagDelta]).
+  static Future<bool> setTagStreamMode(String mode) async {
+    final result = await _channel.invokeMethod('setTagStreamMode', {'mode': mode});
+    return result ?? false;
+  }
+
+  /// Selects the tag stream encoding: 'json' (default) or 'binary'.
+  /// Binary events arrive as Uint8List and are decoded with [TagEpc.decodeBatch].
+  static Future<bool> setTagStreamEncoding(String encoding) async {
+    final result = await _channel.invokeMethod('setTagStreamEncoding', {'encoding': encoding});
+    return result ?? false;
+  }
+
+  /// Tunes how the native side batches reads before emitting them on the tag stream.
+  /// [intervalMs] is the flush interval (default 200). With [adaptive] set, a batch is flushed
+  /// as soon as it holds [maxBatchSize] tags (at most 5000), and the interval backs off up to
+  /// [maxLatencyMs] (not below the interval) while nothing changes. [maxTags] bounds the native
+  /// tag list (default 1000). Omitted values keep their current setting; returns false if a
+  /// value is out of range.
+  static Future<bool> configureInventoryStream({
+    int? intervalMs,
+    int? maxBatchSize,
+    int? maxLatencyMs,
+    bool? adaptive,
+    int? maxTags,
+  }) async {
+    final result = await _channel.invokeMethod('configureInventoryStream', {
+      'intervalMs': intervalMs,
+      'maxBatchSize': maxBatchSize,
+      'maxLatencyMs': maxLatencyMs,
+      'adaptive': adaptive,
+      'maxTags': maxTags,
+    });
+    return result ?? false;
+  }
+
+  /// Selects which tags are evicted once the native tag list is full:
+  /// 'lru' (least recently seen first, default), 'ttl' (additionally drop tags
+  /// not seen for [ttlMs]) or 'lowestRssi' (weakest signal first).
+  static Future<bool> setTagEvictionPolicy(String policy, {int? ttlMs}) async {
+    final result = await _channel.invokeMethod('setTagEvictionPolicy', {'policy': policy, 'ttlMs': ttlMs});
+    return result ?? false;
+  }
+
+  static Future<int> get evictedTagCount async {
+    final result = await _channel.invokeMethod('getEvictedTagCount');
+    return result ?? 0;
+  }
+
+  /// Enables 'arrived'/'departed' events on [presenceEvents]. A tag departs after it
+  /// has not been read for [absenceMs] (default 2000).
+  static Future<bool> configurePresence({required bool enabled, int? absenceMs}) async {
+    final result = await _channel.invokeMethod('configurePresence', {'enabled': enabled, 'absenceMs': absenceMs});
+    return result ?? false;
+  }
+
+  /// Journals the inventory session to app storage so it survives the app being killed or
+  /// the battery being swapped. A journaled session is reloaded when the plugin starts and is
+  /// streamed like any other update. [clearData] empties it; `enabled: false` deletes it.
+  static Future<bool> configureJournal({required bool enabled}) async {
+    final result = await _channel.invokeMethod('configureJournal', {'enabled': enabled});
+    return result ?? false;
+  }
+
+  /// Selects what identifies a tag: [TagEpc.dedupEpc] (default), [TagEpc.dedupTid] or
+  /// [TagEpc.dedupEpcTid], for serialized-TID workflows where tags may share an EPC. Reads
+  /// without a TID are keyed by EPC in every mode. Switching clears the session.
+  static Future<bool> setTagDedupKey(String key) async {
+    final result = await _channel.invokeMethod('setTagDedupKey', {'key': key});
+    return result ?? false;
+  }
+
+  /// Writes the current session natively to [path] (relative paths land in the app's files
+  /// directory) as 'csv' or 'binary', without streaming the tags through Dart. Returns the
+  /// absolute path and the number of rows written.
+  static Future<SessionExport> exportSession(String path, {String format = SessionExport.csv}) async {
+    final result = await _channel.invokeMethod('exportSession', {'path': path, 'format': format});
+    return SessionExport.fromJson(result as Map<Object?, Object?>);
+  }
+
+  /// Loads the EPCs (hex) expected at this location. From then on found, missing and unexpected
+  /// tags are tracked natively and reported on [reconciliationUpdates]. Tags already read count
+  /// immediately. An empty list turns reconciliation off. Returns the number of distinct EPCs.
+  static Future<int> loadExpectedTags(Iterable<String> epcs) async {
+    final packed = BytesBuilder(copy: false);
+    for (final epc in epcs) {
+      if (epc.length.isOdd || epc.length > 510) {
+        throw ArgumentError.value(epc, 'epcs', 'not a hex EPC');
+      }
+      final bytes = Uint8List(epc.length ~/ 2 + 1);
+      bytes[0] = epc.length ~/ 2;
+      for (var i = 0; i < epc.length; i += 2) {
+        bytes[i ~/ 2 + 1] = int.parse(epc.substring(i, i + 2), radix: 16);
+      }
+      packed.add(bytes);
+    }
+    final result = await _channel.invokeMethod('loadExpectedTags', {'epcs': packed.takeBytes()});
+    return result ?? 0;
+  }
+
+  /// EPCs currently [ReconciliationUpdate.found], [ReconciliationUpdate.missing] or
+  /// [ReconciliationUpdate.unexpected].
+  static Future<List<String>> getReconciliationList(String list) async {
+    final result = await _channel.invokeMethod('getReconciliationList', {'list': list});
+    return List<String>.from(result ?? const []);
+  }
+
+  /// Sets the reader's select filter: only tags whose [bank] (1 EPC, 2 TID, 3 user) matches
+  /// the first [lengthBits] bits of the hex [mask] from bit [offsetBits] on are inventoried.
+  /// The EPC starts at bit 32 of the EPC bank, so an EPC prefix `P` is
+  /// `setSelectFilter(mask: P, lengthBits: P.length * 4)`. Not accepted during inventory.
+  static Future<bool> setSelectFilter({
+    required String mask,
+    required int lengthBits,
+    int bank = 1,
+    int offsetBits = 32,
+  }) async {
+    final result = await _channel.invokeMethod('setSelectFilter', {
+      'bank': bank,
+      'offsetBits': offsetBits,
+      'lengthBits': lengthBits,
+      'mask': mask,
+    });
+    return result ?? false;
+  }
+
+  static Future<bool> clearSelectFilter() async {
+    final result = await _channel.invokeMethod('setSelectFilter', {'lengthBits': 0});
+    return result ?? false;
+  }
+
+  /// The reader's Gen2 session, target and Q parameters, or null if not connected.
+  static Future<Gen2Params?> getGen2Params() async {
+    final result = await _channel.invokeMethod('getGen2Params');
+    return result != null ? Gen2Params.fromJson(result as Map<Object?, Object?>) : null;
+  }
+
+  /// Changes the Gen2 inventory parameters; omitted values keep their current setting.
+  /// Session 1-3 keeps tags quiet after they were read, which cuts repeat reads in dense
+  /// fields. Not accepted during inventory.
+  static Future<bool> setGen2Params({
+    int? session,
+    int? target,
+    bool? dynamicQ,
+    int? startQ,
+    int? minQ,
+    int? maxQ,
+  }) async {
+    final result = await _channel.invokeMethod('setGen2Params', {
+      'session': session,
+      'target': target,
+      'dynamicQ': dynamicQ,
+      'startQ': startQ,
+      'minQ': minQ,
+      'maxQ': maxQ,
+    });
+    return result ?? false;
+  }
+
+  /// Discards reads whose EPC does not start with one of the hex [prefixes] before they are
+  /// aggregated, for readers that cannot filter at the radio. An empty list turns it off.
+  static Future<bool> setEpcPrefixFilter(List<String> prefixes) async {
+    final result = await _channel.invokeMethod('setEpcPrefixFilter', {'prefixes': prefixes});
+    return result ?? false;
+  }
+
+  static Future<int> get filteredReadCount async {
+    final result = await _channel.invokeMethod('getFilteredReadCount');
+    return result ?? 0;
+  }
+
+  /// Backpressure of [tagsStatusSubjectEventChannel]. Updates the consumer cannot take yet are
+  /// conflated natively instead of queued: full lists are sent as their latest state, deltas
+  /// are merged, and turn into a snapshot beyond [maxPendingTags] tags (default 2000).
+  /// With [creditBased] set, the native side sends only as many updates as were requested with
+  /// [requestTagUpdates], starting with [initialCredits] (default 1); otherwise it keeps at most
+  /// two updates queued for the main thread.
+  static Future<bool> configureTagStreamFlow({bool? creditBased, int? initialCredits, int? maxPendingTags}) async {
+    final result = await _channel.invokeMethod('configureTagStreamFlow', {
+      'creditBased': creditBased,
+      'initialCredits': initialCredits,
+      'maxPendingTags': maxPendingTags,
+    });
+    return result ?? false;
+  }
+
+  /// Credit mode: allows [count] more tag updates, typically one after each update processed.
+  static Future<void> requestTagUpdates([int count = 1]) async {
+    await _channel.invokeMethod('requestTagUpdates', {'count': count});
+  }
+
+  /// Throughput and latency counters of the native inventory pipeline. Rates cover the time
+  /// since the previous call; samples on [inventoryStats] do not affect them.
+  static Future<InventoryStats> getInventoryStats() async {
+    final result = await _channel.invokeMethod('getInventoryStats');
+    return InventoryStats.fromJson(result as Map<Object?, Object?>);
+  }
+
+  /// Streams [getInventoryStats] on [inventoryStats] every [intervalMs] (default 1000).
+  static Future<bool> configureInventoryStats({required bool enabled, int? intervalMs}) async {
+    final result = await _channel.invokeMethod('configureInventoryStats', {'enabled': enabled, 'intervalMs': intervalMs});
+    return result ?? false;
+  }
+
+  /// Swaps the C72 module for a simulated reader that replays [tagCount] synthetic tags at
+  /// [readsPerSecond] with Gaussian RSSI noise ([rssiNoise], dBm). The read sequence only depends
+  /// on [seed]. Call [connectRfid] afterwards. `enabled: false` goes back to the hardware.
+  static Future<bool> useSimulatedReader({
+    required bool enabled,
+    int? tagCount,
+    int? readsPerSecond,
+    int? seed,
+    double? rssiNoise,
+  }) async {
+    final result = await _channel.invokeMethod('useSimulatedReader', {
+      'enabled': enabled,
+      'tagCount': tagCount,
+      'readsPerSecond': readsPerSecond,
+      'seed': seed,
+      'rssiNoise': rssiNoise,
+    });
+    return result ?? false;
+  }
+
+  // Ask for a full snapshot on the next tick (delta mode resync)
+  static Future<bool?> get requestTagSnapshot async {
+    return _channel.invokeMethod('requestTagSnapshot');
+  }
+
   static Stream<LocationData> get locationValues {
     return locationChannel.receiveBroadcastStream().map<LocationData>((value) {
       return LocationData.fromJson(value);
     });
   }
+
+  static Stream<ReconciliationUpdate> get reconciliationUpdates {
+    return reconciliationChannel
+        .receiveBroadcastStream()
+        .map((value) => ReconciliationUpdate.fromJson(value as Map<Object?, Object?>));
+  }
+
+  static Stream<MultiTagLocationUpdate> get multiTagLocationUpdates {
+    return multiTagLocationChannel
+        .receiveBroadcastStream()
+        .map((value) => MultiTagLocationUpdate.fromJson(value as Map<Object?, Object?>));
+  }
+
+  static Stream<TagAssociation> get tagAssociations {
+    return associationChannel
+        .receiveBroadcastStream()
+        .map((value) => TagAssociation.fromJson(value as Map<Object?, Object?>));
+  }
+
+  static Stream<PowerDecision> get powerDecisions {
+    return powerDecisionChannel
+        .receiveBroadcastStream()
+        .map((value) => PowerDecision.fromJson(value as Map<Object?, Object?>));
+  }
+
+  static Stream<InventoryStats> get inventoryStats {
+    return inventoryStatsChannel
+        .receiveBroadcastStream()
+        .map((value) => InventoryStats.fromJson(value as Map<Object?, Object?>));
+  }
+
+  static Stream<List<PresenceEvent>> get presenceEvents {
+    return presenceChannel.receiveBroadcastStream().map<List<PresenceEvent>>((value) {
+      return List<PresenceEvent>.from((value as List).map((e) => PresenceEvent.fromJson(e)));
+    });
+  }
 }
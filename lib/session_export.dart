@@ -0,0 +1,14 @@
+class SessionExport {
+  static const String csv = 'csv';
+  static const String binary = 'binary';
+
+  final String path;
+  final int rows;
+
+  SessionExport({required this.path, required this.rows});
+
+  factory SessionExport.fromJson(Map<Object?, Object?> json) => SessionExport(
+        path: json["path"] as String,
+        rows: json["rows"] as int,
+      );
+}
@@ -0,0 +1,58 @@
+/// A tag read within the association window of a barcode scan.
+class AssociatedTag {
+  final String epc;
+  final int count;
+
+  /// Strongest RSSI in the window, in tenths of a dBm.
+  final int peakRssi;
+
+  /// Time of the first read after the scan, in ms.
+  final int firstReadMs;
+
+  AssociatedTag({
+    required this.epc,
+    required this.count,
+    required this.peakRssi,
+    required this.firstReadMs,
+  });
+}
+
+/// The tags read after one barcode scan, see [RfidC72Plugin.configureAssociation].
+class TagAssociation {
+  final int sequence;
+  final String barcode;
+  final int windowMs;
+
+  /// Further tags that did not fit into the association.
+  final int truncated;
+  final List<AssociatedTag> tags;
+
+  TagAssociation({
+    required this.sequence,
+    required this.barcode,
+    required this.windowMs,
+    required this.truncated,
+    required this.tags,
+  });
+
+  factory TagAssociation.fromJson(Map<Object?, Object?> json) {
+    final epcs = (json["epcs"] as List).cast<String>();
+    final counts = json["counts"] as List<int>;
+    final peakRssi = json["peakRssi"] as List<int>;
+    final firstReadMs = json["firstReadMs"] as List<int>;
+    return TagAssociation(
+      sequence: json["sequence"] as int,
+      barcode: json["barcode"] as String,
+      windowMs: json["windowMs"] as int,
+      truncated: json["truncated"] as int,
+      tags: List<AssociatedTag>.generate(
+          epcs.length,
+          (i) => AssociatedTag(
+                epc: epcs[i],
+                count: counts[i],
+                peakRssi: peakRssi[i],
+                firstReadMs: firstReadMs[i],
+              )),
+    );
+  }
+}
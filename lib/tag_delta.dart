@@ -0,0 +1,88 @@
+import 'dart:convert';
+
+import 'package:rfid_c72_plugin/rfid_c72_plugin.dart';
+import 'package:rfid_c72_plugin/tag_epc.dart';
+
+/// One update of the tag stream in delta mode (see [RfidC72Plugin.setTagStreamMode]).
+class TagDelta {
+  final int seq;
+  final bool full;
+
+  /// What [removed] holds, see [TagEpc.keyFor].
+  final String dedupKey;
+  final List<TagEpc> tags;
+  final List<String> removed;
+
+  TagDelta({
+    required this.seq,
+    required this.full,
+    this.dedupKey = TagEpc.dedupEpc,
+    required this.tags,
+    required this.removed,
+  });
+
+  factory TagDelta.fromMap(Map<String, dynamic> json) => TagDelta(
+        seq: json["seq"] as int,
+        full: json["full"] as bool,
+        dedupKey: json["key"] as String? ?? TagEpc.dedupEpc,
+        tags: List<TagEpc>.from(json["tags"].map((x) => TagEpc.fromMap(x))),
+        removed: List<String>.from(json["removed"]),
+      );
+
+  factory TagDelta.fromBatch(TagBatch batch) => TagDelta(
+        seq: batch.seq,
+        full: batch.full,
+        dedupKey: batch.dedupKey,
+        tags: batch.tags,
+        removed: batch.removed,
+      );
+
+  static TagDelta parse(String str) => TagDelta.fromMap(json.decode(str));
+}
+
+/// Keeps a local copy of the native tag list up to date from delta updates.
+///
+/// When a sequence number is skipped the tracker drops its state, asks the plugin
+/// for a full snapshot and ignores deltas until that snapshot arrives.
+class TagDeltaTracker {
+  final Map<String, TagEpc> _tags = {};
+  int _lastSeq = 0;
+  bool _awaitingSnapshot = true;
+
+  Iterable<TagEpc> get tags => _tags.values;
+
+  int get length => _tags.length;
+
+  /// Applies [delta] and returns true if the local list changed.
+  bool apply(TagDelta delta) {
+    if (delta.full) {
+      _tags
+        ..clear()
+        ..addEntries(delta.tags.map((t) => MapEntry(t.keyFor(delta.dedupKey), t)));
+      _lastSeq = delta.seq;
+      _awaitingSnapshot = false;
+      return true;
+    }
+    if (_awaitingSnapshot) {
+      return false;
+    }
+    if (delta.seq != _lastSeq + 1) {
+      _awaitingSnapshot = true;
+      RfidC72Plugin.requestTagSnapshot;
+      return false;
+    }
+    _lastSeq = delta.seq;
+    for (final tag in delta.tags) {
+      _tags[tag.keyFor(delta.dedupKey)] = tag;
+    }
+    for (final key in delta.removed) {
+      _tags.remove(key);
+    }
+    return true;
+  }
+
+  void clear() {
+    _tags.clear();
+    _awaitingSnapshot = true;
+  }
+}
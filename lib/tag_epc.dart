@@ -1,16 +1,25 @@
 import 'dart:convert';
+import 'dart:typed_data';
 
 class TagEpc {
+  static const String dedupEpc = 'epc';
+  static const String dedupTid = 'tid';
+  static const String dedupEpcTid = 'epcTid';
+
   final String id;
   final String epc;
   final String count;
   final String rssi;
 
+  /// TID in hex, empty if the reader did not report one.
+  final String tid;
+
   TagEpc({
     required this.id,
     required this.epc,
     required this.count,
     required this.rssi,
+    this.tid = "",
   });
 
   factory TagEpc.fromMap(Map<String, dynamic> json) => TagEpc(
@@ -18,18 +27,114 @@ class TagEpc {
     epc: json["KEY_EPC"],
     count: json["KEY_COUNT"],
     rssi: json["KEY_RSSI"],
+    tid: json["KEY_TID"] ?? "",
   );
 
   Map<String, dynamic> toMap() => {
     "KEY_ID": id,
     "KEY_EPC": epc,
+    "KEY_TID": tid,
     "KEY_COUNT": count,
     "KEY_RSSI": rssi,
   };
 
+  /// The key the plugin deduplicates this tag by under [dedupKey]
+  /// (see [RfidC72Plugin.setTagDedupKey]); matches the entries of removed lists.
+  String keyFor(String dedupKey) {
+    if (tid.isEmpty || dedupKey == dedupEpc) {
+      return epc;
+    }
+    return dedupKey == dedupTid ? tid : epc + tid;
+  }
+
   static List<TagEpc> parseTags(String str) =>
       List<TagEpc>.from(json.decode(str).map((x) => TagEpc.fromMap(x)));
 
   static String tagEpcToJson(List<TagEpc> data) =>
       json.encode(List<dynamic>.from(data.map((x) => x.toMap())));
+
+  /// Decodes a binary frame sent when the stream encoding is 'binary'.
+  /// The layout is documented in TagBatchEncoder.java.
+  static TagBatch decodeBatch(Uint8List bytes) {
+    final data = ByteData.sublistView(bytes);
+    var offset = 0;
+
+    String readKey() {
+      final header = data.getUint8(offset++);
+      final length = header & 0x7F;
+      final keyBytes = Uint8List.sublistView(bytes, offset, offset + length);
+      offset += length;
+      if (header & 0x80 != 0) {
+        return utf8.decode(keyBytes);
+      }
+      final hex = StringBuffer();
+      for (final b in keyBytes) {
+        hex.write(b.toRadixString(16).padLeft(2, '0'));
+      }
+      return hex.toString().toUpperCase();
+    }
+
+    final version = data.getUint8(offset++);
+    if (version != 1 && version != 2) {
+      throw FormatException('Unsupported tag batch version $version');
+    }
+    final flags = data.getUint8(offset++);
+    final seq = data.getInt32(offset);
+    offset += 4;
+    final timestamp = data.getInt64(offset);
+    offset += 8;
+
+    final tagCount = data.getInt32(offset);
+    offset += 4;
+    final tags = <TagEpc>[];
+    for (var i = 0; i < tagCount; i++) {
+      final epc = readKey();
+      final tid = version >= 2 ? readKey() : "";
+      final rssi = data.getInt16(offset) / 10;
+      offset += 2;
+      final count = data.getInt32(offset);
+      offset += 4;
+      tags.add(TagEpc(id: "", epc: epc, tid: tid, count: count.toString(), rssi: rssi.toStringAsFixed(1)));
+    }
+
+    final removedCount = data.getInt32(offset);
+    offset += 4;
+    final removed = <String>[];
+    for (var i = 0; i < removedCount; i++) {
+      removed.add(readKey());
+    }
+
+    return TagBatch(
+      seq: seq,
+      full: flags & 0x01 != 0,
+      delta: flags & 0x02 != 0,
+      dedupKey: flags & 0x04 != 0 ? dedupTid : (flags & 0x08 != 0 ? dedupEpcTid : dedupEpc),
+      timestamp: DateTime.fromMillisecondsSinceEpoch(timestamp),
+      tags: tags,
+      removed: removed,
+    );
+  }
+}
+
+/// A decoded binary tag frame (see [TagEpc.decodeBatch]).
+class TagBatch {
+  final int seq;
+  final bool full;
+  final bool delta;
+
+  /// What tags and removed keys are keyed by, see [TagEpc.keyFor].
+  final String dedupKey;
+  final DateTime timestamp;
+  final List<TagEpc> tags;
+  final List<String> removed;
+
+  TagBatch({
+    required this.seq,
+    required this.full,
+    required this.delta,
+    this.dedupKey = TagEpc.dedupEpc,
+    required this.timestamp,
+    required this.tags,
+    required this.removed,
+  });
 }
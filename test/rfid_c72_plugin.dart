@@ -1,6 +1,17 @@
+import 'dart:typed_data';
+
 import 'package:flutter/services.dart';
 import 'package:flutter_test/flutter_test.dart';
 import 'package:rfid_c72_plugin/rfid_c72_plugin.dart';
+import 'package:rfid_c72_plugin/tag_epc.dart';
+
+Uint8List fromHex(String hex) {
+  final bytes = Uint8List(hex.length ~/ 2);
+  for (var i = 0; i < bytes.length; i++) {
+    bytes[i] = int.parse(hex.substring(i * 2, i * 2 + 2), radix: 16);
+  }
+  return bytes;
+}
 
 void main() {
   const MethodChannel channel = MethodChannel('rfid_c72_plugin');
@@ -20,4 +31,108 @@ void main() {
   test('getPlatformVersion', () async {
     expect(await RfidC72Plugin.platformVersion, '42');
   });
+
+  test('decodeBatch still reads v1 frames', () {
+    final data = ByteData(1 + 1 + 4 + 8 + 4 + (1 + 2 + 2 + 4) + 4 + (1 + 2));
+    var o = 0;
+    data.setUint8(o++, 1);
+    data.setUint8(o++, 0x03);
+    data.setInt32(o, 7);
+    o += 4;
+    data.setInt64(o, 1000);
+    o += 8;
+    data.setInt32(o, 1);
+    o += 4;
+    data.setUint8(o++, 2);
+    data.setUint8(o++, 0xE2);
+    data.setUint8(o++, 0x80);
+    data.setInt16(o, -553);
+    o += 2;
+    data.setInt32(o, 12);
+    o += 4;
+    data.setInt32(o, 1);
+    o += 4;
+    data.setUint8(o++, 2);
+    data.setUint8(o++, 0x30);
+    data.setUint8(o++, 0x08);
+
+    final batch = TagEpc.decodeBatch(data.buffer.asUint8List());
+    expect(batch.seq, 7);
+    expect(batch.full, true);
+    expect(batch.delta, true);
+    expect(batch.tags.single.epc, 'E280');
+    expect(batch.tags.single.rssi, '-55.3');
+    expect(batch.tags.single.count, '12');
+    expect(batch.removed, ['3008']);
+  });
+
+  test('decodeBatch v2 carries the TID and the dedup key', () {
+    final data = ByteData(1 + 1 + 4 + 8 + 4 + (1 + 2 + 1 + 2 + 2 + 4) + 4);
+    var o = 0;
+    data.setUint8(o++, 2);
+    data.setUint8(o++, 0x02 | 0x04);
+    data.setInt32(o, 1);
+    o += 4;
+    data.setInt64(o, 1000);
+    o += 8;
+    data.setInt32(o, 1);
+    o += 4;
+    data.setUint8(o++, 2);
+    data.setUint8(o++, 0xE2);
+    data.setUint8(o++, 0x80);
+    data.setUint8(o++, 2);
+    data.setUint8(o++, 0xE2);
+    data.setUint8(o++, 0x00);
+    data.setInt16(o, -600);
+    o += 2;
+    data.setInt32(o, 3);
+    o += 4;
+    data.setInt32(o, 0);
+
+    final batch = TagEpc.decodeBatch(data.buffer.asUint8List());
+    expect(batch.dedupKey, TagEpc.dedupTid);
+    expect(batch.tags.single.epc, 'E280');
+    expect(batch.tags.single.tid, 'E200');
+    expect(batch.tags.single.keyFor(batch.dedupKey), 'E200');
+  });
+
+  // Golden frames produced by TagBatchEncoderTest.java
+  test('decodeBatch reads an encoded full snapshot', () {
+    final batch = TagEpc.decodeBatch(fromHex(
+        '0201' '00000000' '00000000000003E8' '00000001' '04E2801170' '00' 'FDD7' '0000000C' '00000000'));
+    expect(batch.full, true);
+    expect(batch.delta, false);
+    expect(batch.seq, 0);
+    expect(batch.timestamp.millisecondsSinceEpoch, 1000);
+    expect(batch.tags.single.epc, 'E2801170');
+    expect(batch.tags.single.tid, '');
+    expect(batch.tags.single.rssi, '-55.3');
+    expect(batch.tags.single.count, '12');
+    expect(batch.removed, isEmpty);
+  });
+
+  test('decodeBatch reads an encoded delta with removed keys', () {
+    final batch = TagEpc.decodeBatch(fromHex('0202' '00000007' '00000000000003E8' '00000001'
+        '023008' '00' 'FDA8' '00000001' '00000002' '02E200' '856C6F742D37'));
+    expect(batch.full, false);
+    expect(batch.delta, true);
+    expect(batch.seq, 7);
+    expect(batch.dedupKey, TagEpc.dedupEpc);
+    expect(batch.tags.single.epc, '3008');
+    expect(batch.tags.single.rssi, '-60.0');
+    expect(batch.removed, ['E200', 'lot-7']);
+  });
+
+  test('decodeBatch reads an encoded TID-keyed delta', () {
+    final batch = TagEpc.decodeBatch(fromHex('0206' '00000008' '00000000000003E8' '00000001'
+        '02E280' '04E2003412' 'FE39' '00000003' '00000001' '04E2003499'));
+    expect(batch.seq, 8);
+    expect(batch.dedupKey, TagEpc.dedupTid);
+    expect(batch.tags.single.epc, 'E280');
+    expect(batch.tags.single.tid, 'E2003412');
+    expect(batch.tags.single.rssi, '-45.5');
+    expect(batch.tags.single.count, '3');
+    expect(batch.tags.single.keyFor(batch.dedupKey), 'E2003412');
+    expect(batch.removed, ['E2003499']);
+  });
 }